@@ -0,0 +1,17 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+/**
+ * Posts resolved by a batch read, in request order. {@code missing} lists the ids that do not
+ * exist or are not visible to the caller; the two cases are deliberately not distinguished.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record BatchGetPostsResponse(
+        List<PostResponse> items,
+        List<String> missing
+) {
+}
@@ -9,10 +9,12 @@ import java.time.Instant;
 public record CommentResponse(
         String id,
         String postId,
+        String parentId,
         String authorId,
         String authorDisplayName,
         String text,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        long replyCount
 ) {
 }
@@ -0,0 +1,17 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * One line of the NDJSON bulk export and import format, tagged by {@code type}.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ExportedPost.class, name = "post"),
+        @JsonSubTypes.Type(value = ExportedComment.class, name = "comment")
+})
+public sealed interface ExportRecord permits ExportedPost, ExportedComment {
+
+    String id();
+}
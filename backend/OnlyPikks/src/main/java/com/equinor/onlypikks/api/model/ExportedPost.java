@@ -0,0 +1,39 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.time.Instant;
+import java.util.List;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ExportedPost(
+        String id,
+        String title,
+        String description,
+        List<String> tags,
+        PostVisibility visibility,
+        String ownerId,
+        String ownerDisplayName,
+        String fileId,
+        String fileUrl,
+        String thumbnailUrl,
+        String originalFileName,
+        long fileSizeBytes,
+        String mimeType,
+        Integer width,
+        Integer height,
+        String placeholder,
+        Long perceptualHash,
+        Instant createdAt,
+        Instant updatedAt,
+        long commentCount,
+        long likeCount
+) implements ExportRecord {
+
+    public ExportedPost withTags(List<String> tags) {
+        return new ExportedPost(id, title, description, tags, visibility, ownerId, ownerDisplayName, fileId, fileUrl,
+                thumbnailUrl, originalFileName, fileSizeBytes, mimeType, width, height, placeholder,
+                perceptualHash, createdAt, updatedAt, commentCount, likeCount);
+    }
+}
@@ -0,0 +1,20 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Progress line streamed back while an import runs. The last line has {@code done} set, or
+ * an {@code error}; everything counted before the error has already been committed.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ImportProgressResponse(
+        long lines,
+        long posts,
+        long comments,
+        boolean done,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String error
+) {
+}
@@ -0,0 +1,23 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.time.Instant;
+
+/**
+ * The loaded blocklist and scan counters since startup. {@code lastError} describes the last
+ * failed reload, which left the previous list in place; it clears on the next success.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ModerationStatsResponse(
+        int terms,
+        Instant loadedAt,
+        String lastError,
+        long scanned,
+        long rejected,
+        long scannedChars,
+        double averageScanMicros,
+        double maxScanMicros
+) {
+}
@@ -1,5 +1,6 @@
 package com.equinor.onlypikks.api.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 
@@ -10,6 +11,17 @@ public record PagedResponse<T>(
         List<T> items,
         int page,
         int perPage,
-        long total
+        long total,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        List<TagCountResponse> facets,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String nextCursor
 ) {
+    public PagedResponse(List<T> items, int page, int perPage, long total) {
+        this(items, page, perPage, total, null, null);
+    }
+
+    public PagedResponse(List<T> items, int page, int perPage, long total, List<TagCountResponse> facets) {
+        this(items, page, perPage, total, facets, null);
+    }
 }
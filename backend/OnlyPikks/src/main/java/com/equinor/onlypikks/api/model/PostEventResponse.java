@@ -0,0 +1,22 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.time.Instant;
+
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PostEventResponse(
+        String type,
+        String postId,
+        String commentId,
+        Instant occurredAt,
+        CommentResponse comment
+) {
+    public static final String COMMENT_CREATED = "comment.created";
+    public static final String COMMENT_DELETED = "comment.deleted";
+    public static final String POST_UPDATED = "post.updated";
+    public static final String POST_DELETED = "post.deleted";
+}
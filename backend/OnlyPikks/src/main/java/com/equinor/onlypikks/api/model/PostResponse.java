@@ -20,6 +20,10 @@ public record PostResponse(
         String thumbnailUrl,
         String originalFileName,
         long fileSize,
+        String mimeType,
+        Integer width,
+        Integer height,
+        String placeholder,
         Instant createdAt,
         Instant updatedAt,
         long commentCount,
@@ -16,6 +16,9 @@ public record PostSummaryResponse(
         String ownerId,
         String ownerDisplayName,
         String thumbnailUrl,
+        Integer width,
+        Integer height,
+        String placeholder,
         Instant createdAt,
         Instant updatedAt,
         long commentCount,
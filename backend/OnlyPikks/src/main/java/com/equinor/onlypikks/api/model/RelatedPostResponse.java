@@ -0,0 +1,15 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A post on a similar subject; {@code score} is the Jaccard similarity of the two posts'
+ * tags and title words, from 0 to 1.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record RelatedPostResponse(
+        PostSummaryResponse post,
+        double score
+) {
+}
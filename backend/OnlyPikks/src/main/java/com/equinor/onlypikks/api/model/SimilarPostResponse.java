@@ -0,0 +1,15 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A post whose image looks like another's; {@code distance} is the number of differing bits
+ * between their 64-bit perceptual hashes, 0 for the same picture.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record SimilarPostResponse(
+        PostSummaryResponse post,
+        int distance
+) {
+}
@@ -0,0 +1,7 @@
+package com.equinor.onlypikks.api.model;
+
+public enum SuggestionKind {
+    TAG,
+    TITLE,
+    OWNER
+}
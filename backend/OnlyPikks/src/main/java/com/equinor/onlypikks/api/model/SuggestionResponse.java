@@ -0,0 +1,16 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * @param weight the number of public posts carrying the tag, using the word in their title or
+ *               owned by the user
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record SuggestionResponse(
+        String text,
+        SuggestionKind kind,
+        long weight
+) {
+}
@@ -0,0 +1,20 @@
+package com.equinor.onlypikks.api.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Upload admission counters since startup. {@code active} and {@code queued} are current
+ * values; wait times cover admitted uploads only.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record UploadStatsResponse(
+        int active,
+        int queued,
+        long admitted,
+        long rejected,
+        long timedOut,
+        double averageWaitMillis,
+        double maxWaitMillis
+) {
+}
@@ -0,0 +1,14 @@
+package com.equinor.onlypikks.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "onlypikks.admin")
+public record AdminProperties(
+        List<String> userIds
+) {
+    public boolean isAdmin(AuthContext auth) {
+        return userIds != null && userIds.contains(auth.userId());
+    }
+}
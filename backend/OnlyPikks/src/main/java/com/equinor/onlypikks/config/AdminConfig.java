@@ -0,0 +1,10 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.auth.AdminProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AdminProperties.class)
+public class AdminConfig {
+}
@@ -0,0 +1,226 @@
+package com.equinor.onlypikks.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Makes the container's compression threshold apply to JSON written by message converters.
+ * Tomcat only leaves a body uncompressed when its Content-Length says it is small, and
+ * converters stream without one. Holding back up to the threshold gives small bodies a length;
+ * larger ones carry on as chunked, compressed streams.
+ */
+@Component
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private final int threshold;
+
+    public CompressionThresholdFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        this.threshold = compression.getEnabled() ? (int) compression.getMinResponseSize().toBytes() : 0;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return threshold <= 0;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        BufferingResponse buffering = new BufferingResponse(response, threshold);
+        filterChain.doFilter(request, buffering);
+        if (request.isAsyncStarted()) {
+            // Server-sent events and streaming bodies are written after this returns.
+            buffering.release();
+        } else {
+            buffering.complete();
+        }
+    }
+
+    private static final class BufferingResponse extends HttpServletResponseWrapper {
+
+        private final int threshold;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean decided;
+        private boolean passthrough;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        BufferingResponse(HttpServletResponse response, int threshold) {
+            super(response);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new BufferingOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            super.setContentLength(length);
+            release();
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            super.setContentLengthLong(length);
+            release();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (decided && !passthrough) {
+                // Spring flushes after writing a converted body; keep holding a small JSON body.
+                return;
+            }
+            release();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (!passthrough) {
+                buffer.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (!passthrough) {
+                buffer.reset();
+                decided = false;
+            }
+        }
+
+        void release() {
+            if (passthrough) {
+                return;
+            }
+            passthrough = true;
+            try {
+                if (buffer.size() > 0) {
+                    buffer.writeTo(getResponse().getOutputStream());
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                buffer = null;
+            }
+        }
+
+        void complete() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (passthrough) {
+                return;
+            }
+            if (buffer.size() > 0 && !isCommitted()) {
+                getResponse().setContentLength(buffer.size());
+            }
+            release();
+        }
+
+        private boolean buffering(int length) {
+            if (passthrough) {
+                return false;
+            }
+            if (!decided) {
+                decided = true;
+                String contentType = getContentType();
+                // Line-delimited and event streams are flushed as they go; only buffer plain JSON.
+                if (contentType == null || !contentType.startsWith("application/json")) {
+                    release();
+                    return false;
+                }
+            }
+            if (buffer.size() + length > threshold) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        private final class BufferingOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                if (buffering(1)) {
+                    buffer.write(b);
+                } else {
+                    getResponse().getOutputStream().write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (buffering(length)) {
+                    buffer.write(bytes, offset, length);
+                } else {
+                    getResponse().getOutputStream().write(bytes, offset, length);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // Converters flush when they finish; that must not commit a body still being held.
+                if (passthrough) {
+                    getResponse().getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException ex) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.service.FeedProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedConfig {
+}
@@ -0,0 +1,17 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.id.IdGeneratorProperties;
+import com.equinor.onlypikks.id.SnowflakeIdGenerator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdGeneratorProperties.class)
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdGeneratorProperties properties) {
+        return new SnowflakeIdGenerator(properties.nodeIdOrDefault());
+    }
+}
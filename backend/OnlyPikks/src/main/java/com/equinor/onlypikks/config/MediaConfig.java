@@ -0,0 +1,24 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.storage.LocalObjectStorage;
+import com.equinor.onlypikks.storage.MediaProperties;
+import com.equinor.onlypikks.storage.MediaUrlSigner;
+import com.equinor.onlypikks.storage.ObjectStorage;
+import com.equinor.onlypikks.storage.S3ObjectStorage;
+import com.equinor.onlypikks.storage.StorageProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({MediaProperties.class, StorageProperties.class})
+public class MediaConfig {
+
+    @Bean
+    public ObjectStorage objectStorage(StorageProperties storage, MediaProperties media, MediaUrlSigner urlSigner) {
+        if (storage.s3Enabled()) {
+            return new S3ObjectStorage(storage.s3OrDefault(), media);
+        }
+        return new LocalObjectStorage(storage.localDirectoryOrDefault(), urlSigner);
+    }
+}
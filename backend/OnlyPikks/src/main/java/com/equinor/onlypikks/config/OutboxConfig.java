@@ -0,0 +1,10 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.service.OutboxProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+}
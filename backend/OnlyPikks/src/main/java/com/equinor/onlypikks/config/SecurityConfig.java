@@ -20,7 +20,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/health", "/auth/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/posts/**", "/files/**", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/posts/**", "/tags/**", "/suggest", "/files/**", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/posts/*/comments/**").permitAll()
                         .anyRequest().authenticated()
                 )
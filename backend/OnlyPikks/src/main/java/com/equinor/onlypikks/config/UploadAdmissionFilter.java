@@ -0,0 +1,77 @@
+package com.equinor.onlypikks.config;
+
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.auth.AuthService;
+import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.UploadScheduler;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Puts media uploads through the {@link UploadScheduler} before any of the body is read. It
+ * has to be a filter: the dispatcher parses multipart bodies into temporary files before a
+ * controller runs, so anonymous uploads are refused here too. Oversized uploads are turned
+ * away on their {@code Content-Length} alone, and rejections go through the regular
+ * exception handlers.
+ */
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Pattern POST_PATH = Pattern.compile("/posts/[^/]+");
+
+    private final UploadScheduler scheduler;
+    private final AuthService authService;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public UploadAdmissionFilter(
+            UploadScheduler scheduler,
+            AuthService authService,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver
+    ) {
+        this.scheduler = scheduler;
+        this.authService = authService;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            return !"/posts".equals(path);
+        }
+        return !HttpMethod.PUT.matches(request.getMethod()) || !POST_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Optional<AuthContext> auth = authService.resolve(request.getHeader(HttpHeaders.AUTHORIZATION));
+        UploadScheduler.Permit permit;
+        try {
+            String userId = auth.orElseThrow(() -> new UnauthorizedException("Authentication required")).userId();
+            permit = scheduler.admit(userId, request.getContentLengthLong());
+        } catch (RuntimeException ex) {
+            exceptionResolver.resolveException(request, response, null, ex);
+            return;
+        }
+        try (permit) {
+            request.setAttribute(UploadScheduler.Permit.ATTRIBUTE, permit);
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.ImportProgressResponse;
+import com.equinor.onlypikks.api.model.ModerationStatsResponse;
+import com.equinor.onlypikks.api.model.UploadStatsResponse;
+import com.equinor.onlypikks.auth.AdminProperties;
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.auth.AuthService;
+import com.equinor.onlypikks.exception.ForbiddenException;
+import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.BulkTransferService;
+import com.equinor.onlypikks.service.ContentModerator;
+import com.equinor.onlypikks.service.UploadScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/admin")
+public class AdminController {
+
+    private final BulkTransferService transferService;
+    private final AuthService authService;
+    private final AdminProperties adminProperties;
+    private final ObjectMapper objectMapper;
+    private final UploadScheduler uploadScheduler;
+    private final ContentModerator moderator;
+
+    public AdminController(
+            BulkTransferService transferService,
+            AuthService authService,
+            AdminProperties adminProperties,
+            ObjectMapper objectMapper,
+            UploadScheduler uploadScheduler,
+            ContentModerator moderator
+    ) {
+        this.transferService = transferService;
+        this.authService = authService;
+        this.adminProperties = adminProperties;
+        this.objectMapper = objectMapper;
+        this.uploadScheduler = uploadScheduler;
+        this.moderator = moderator;
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+    ) {
+        requireAdmin(authorization);
+        StreamingResponseBody body = transferService::export;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("onlypikks-export.ndjson").build().toString())
+                .body(body);
+    }
+
+    /**
+     * Streams one progress line per committed chunk while the request body is still being read,
+     * so long imports show progress and an error is reported with the lines it affected.
+     */
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importData(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        requireAdmin(authorization);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        ImportProgressResponse result = transferService.importNdjson(
+                request.getInputStream(),
+                progress -> writeLine(progress, out)
+        );
+        writeLine(result, out);
+    }
+
+    /**
+     * Upload queue depth and wait times, to tell an upload storm from slow storage.
+     */
+    @GetMapping(path = "/uploads", produces = MediaType.APPLICATION_JSON_VALUE)
+    public UploadStatsResponse uploadStats(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+    ) {
+        requireAdmin(authorization);
+        return uploadScheduler.stats();
+    }
+
+    /**
+     * The loaded blocklist and how long comment and post text takes to scan.
+     */
+    @GetMapping(path = "/moderation", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ModerationStatsResponse moderationStats(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+    ) {
+        requireAdmin(authorization);
+        return moderator.stats();
+    }
+
+    /**
+     * Reloads the blocklist file without waiting for the change check.
+     */
+    @PostMapping(path = "/moderation/reload", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ModerationStatsResponse reloadModeration(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization
+    ) {
+        requireAdmin(authorization);
+        return moderator.reload();
+    }
+
+    private void requireAdmin(String authorization) {
+        AuthContext auth = authService.resolve(authorization)
+                .orElseThrow(() -> new UnauthorizedException("Authentication required"));
+        if (!adminProperties.isAdmin(auth)) {
+            throw new ForbiddenException("Administrator access required");
+        }
+    }
+
+    private void writeLine(ImportProgressResponse progress, OutputStream out) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(progress));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.equinor.onlypikks.controller;
 
 import com.equinor.onlypikks.api.model.ErrorResponse;
+import com.equinor.onlypikks.exception.ContentRejectedException;
 import com.equinor.onlypikks.exception.ForbiddenException;
 import com.equinor.onlypikks.exception.NotFoundException;
+import com.equinor.onlypikks.exception.PayloadTooLargeException;
+import com.equinor.onlypikks.exception.ServiceUnavailableException;
+import com.equinor.onlypikks.exception.TooManyRequestsException;
 import com.equinor.onlypikks.exception.UnauthorizedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 
@@ -36,6 +42,32 @@ public class ApiExceptionHandler {
                 .body(new ErrorResponse("unauthorized", ex.getMessage(), null));
     }
 
+    @ExceptionHandler({PayloadTooLargeException.class, MaxUploadSizeExceededException.class})
+    public ResponseEntity<ErrorResponse> handlePayloadTooLarge(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new ErrorResponse("payload_too_large", ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(ContentRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleContentRejected(ContentRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(new ErrorResponse("content_rejected", ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse("too_many_requests", ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse("server_busy", ex.getMessage(), null));
+    }
+
     @ExceptionHandler({
             MethodArgumentNotValidException.class,
             MethodArgumentTypeMismatchException.class,
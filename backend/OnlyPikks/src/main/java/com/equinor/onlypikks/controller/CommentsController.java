@@ -8,6 +8,8 @@ import com.equinor.onlypikks.auth.AuthService;
 import com.equinor.onlypikks.exception.ForbiddenException;
 import com.equinor.onlypikks.exception.NotFoundException;
 import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.CommentCursor;
+import com.equinor.onlypikks.service.ContentModerator;
 import com.equinor.onlypikks.service.MockPostService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -16,6 +18,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 @RestController
 @CrossOrigin
 @RequestMapping(path = "/posts/{postId}/comments", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -23,23 +27,38 @@ public class CommentsController {
 
     private final MockPostService postService;
     private final AuthService authService;
+    private final ContentModerator moderator;
 
-    public CommentsController(MockPostService postService, AuthService authService) {
+    public CommentsController(MockPostService postService, AuthService authService, ContentModerator moderator) {
         this.postService = postService;
         this.authService = authService;
+        this.moderator = moderator;
     }
 
     @GetMapping
     public ResponseEntity<PagedResponse<CommentResponse>> listComments(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @PathVariable String postId,
             @RequestParam(name = "page", defaultValue = "1") int page,
-            @RequestParam(name = "per_page", defaultValue = "20") int perPage
+            @RequestParam(name = "per_page", defaultValue = "20") int perPage,
+            @RequestParam(name = "parent_id", required = false) String parentId,
+            @RequestParam(name = "after", required = false) String after
     ) {
-        PagedResponse<CommentResponse> response = postService.listComments(postId, page, perPage)
+        MockPostService.CommentThread thread = postService.commentThread(postId)
                 .orElseThrow(() -> new NotFoundException("Post not found"));
+        Optional<String> parentFilter = Optional.ofNullable(parentId).filter(StringUtils::hasText);
+        Optional<CommentCursor> cursor = Optional.ofNullable(after)
+                .filter(StringUtils::hasText)
+                .map(CommentCursor::decode);
+        String etag = ETags.weak(thread.version(), page, perPage, parentFilter, cursor);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        PagedResponse<CommentResponse> response = postService.listComments(thread, page, perPage, parentFilter, cursor)
+                .orElseThrow(() -> new NotFoundException("Comment not found"));
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Total-Count", String.valueOf(response.total()));
-        return ResponseEntity.ok()
+        return ETags.ok(etag)
                 .headers(headers)
                 .body(response);
     }
@@ -55,7 +74,8 @@ public class CommentsController {
         if (!StringUtils.hasText(request.text())) {
             throw new IllegalArgumentException("text is required");
         }
-        CommentResponse created = postService.addComment(postId, auth, request.text())
+        moderator.check("text", request.text());
+        CommentResponse created = postService.addComment(postId, auth, request.text(), request.parentId())
                 .orElseThrow(() -> new NotFoundException("Post not found"));
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
@@ -0,0 +1,87 @@
+package com.equinor.onlypikks.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entity tags for conditional GETs. Controllers derive the tag from a cheap version
+ * lookup, compare it against {@code If-None-Match} and only build the body on a mismatch.
+ *
+ * <p>Bodies the container may gzip carry weak tags: Tomcat leaves responses with a strong
+ * tag uncompressed, since one strong tag cannot name both encodings.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Hashes a resource version together with everything else that shapes the
+     * representation, such as paging and filter parameters.
+     */
+    static String strong(Object... parts) {
+        StringBuilder source = new StringBuilder();
+        for (Object part : parts) {
+            source.append(part).append('|');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static String weak(Object... parts) {
+        return "W/" + strong(parts);
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = stripWeak(candidate.trim());
+            if (trimmed.equals("*") || trimmed.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * @param varyBy request headers the representation depends on besides
+     *               {@code Authorization}; a 304 must repeat the {@code Vary} of the 200
+     */
+    static <T> ResponseEntity<T> notModified(String etag, String... varyBy) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(vary(varyBy))
+                .build();
+    }
+
+    static ResponseEntity.BodyBuilder ok(String etag, String... varyBy) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(vary(varyBy));
+    }
+
+    // varyBy replaces the header, so every value has to go in one call.
+    private static String[] vary(String... varyBy) {
+        String[] headers = new String[varyBy.length + 1];
+        headers[0] = HttpHeaders.AUTHORIZATION;
+        System.arraycopy(varyBy, 0, headers, 1, varyBy.length);
+        return headers;
+    }
+}
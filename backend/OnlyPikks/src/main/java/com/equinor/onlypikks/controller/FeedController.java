@@ -0,0 +1,41 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.PagedResponse;
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.auth.AuthService;
+import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.MockPostService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+public class FeedController {
+
+    private final MockPostService postService;
+    private final AuthService authService;
+
+    public FeedController(MockPostService postService, AuthService authService) {
+        this.postService = postService;
+        this.authService = authService;
+    }
+
+    @GetMapping
+    public PagedResponse<PostSummaryResponse> followingFeed(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(name = "page", defaultValue = "1") int page,
+            @RequestParam(name = "per_page", defaultValue = "24") int perPage
+    ) {
+        AuthContext auth = authService.resolve(authorization)
+                .orElseThrow(() -> new UnauthorizedException("Authentication required"));
+        return postService.followingFeed(auth, page, perPage);
+    }
+}
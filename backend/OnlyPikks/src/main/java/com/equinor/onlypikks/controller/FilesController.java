@@ -1,28 +1,85 @@
 package com.equinor.onlypikks.controller;
 
+import com.equinor.onlypikks.exception.ForbiddenException;
+import com.equinor.onlypikks.exception.NotFoundException;
+import com.equinor.onlypikks.service.MediaService;
+import com.equinor.onlypikks.storage.MediaUrlSigner;
+import com.equinor.onlypikks.storage.ObjectContent;
+import com.equinor.onlypikks.storage.SignedUrl;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
-import java.util.UUID;
+import java.time.Duration;
+import java.time.Instant;
 
 @RestController
 @CrossOrigin
 public class FilesController {
 
+    private final MediaService mediaService;
+    private final MediaUrlSigner urlSigner;
+
+    public FilesController(MediaService mediaService, MediaUrlSigner urlSigner) {
+        this.mediaService = mediaService;
+        this.urlSigner = urlSigner;
+    }
+
     @GetMapping("/files/{fileId}")
     public ResponseEntity<Void> redirectToFile(
             @PathVariable String fileId,
             @RequestParam(name = "disposition", defaultValue = "inline") String disposition
     ) {
-        String safeDisposition = StringUtils.hasText(disposition) ? disposition : "inline";
-        String presignedUrl = "https://cdn.example.com/object/%s?disposition=%s&token=%s"
-                .formatted(fileId, safeDisposition, UUID.randomUUID());
-        HttpHeaders headers = new HttpHeaders();
-        headers.setLocation(URI.create(presignedUrl));
-        return new ResponseEntity<>(headers, HttpStatus.FOUND);
+        requireDisposition(disposition);
+        SignedUrl signed = mediaService.downloadUrl(fileId, disposition);
+        // Cacheable for as long as this request would be redirected to the same URL.
+        Duration stable = Duration.between(Instant.now(), signed.stableUntil());
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(signed.url()))
+                .cacheControl(CacheControl.maxAge(stable).cachePublic())
+                .build();
+    }
+
+    /**
+     * Serves locally stored media behind a signed URL. With S3 storage the redirect points at
+     * the bucket instead and this endpoint is not used.
+     */
+    @GetMapping("/files/{fileId}/content")
+    public ResponseEntity<InputStreamResource> fileContent(
+            @PathVariable String fileId,
+            @RequestParam(name = "disposition") String disposition,
+            @RequestParam(name = "expires") long expires,
+            @RequestParam(name = "signature") String signature
+    ) {
+        requireDisposition(disposition);
+        if (!urlSigner.verify(fileId, disposition, expires, signature)) {
+            throw new ForbiddenException("Invalid or expired file link");
+        }
+        ObjectContent content = mediaService.open(fileId)
+                .orElseThrow(() -> new NotFoundException("File not found"));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(content.contentType() != null
+                        ? MediaType.parseMediaType(content.contentType())
+                        : MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                // The URL embeds its expiry, so its content never changes while it verifies.
+                .cacheControl(CacheControl.maxAge(Duration.between(Instant.now(), Instant.ofEpochSecond(expires)))
+                        .cachePublic()
+                        .immutable());
+        if (content.length() >= 0) {
+            response.contentLength(content.length());
+        }
+        return response.body(new InputStreamResource(content.stream()));
+    }
+
+    private static void requireDisposition(String disposition) {
+        if (!"inline".equals(disposition) && !"attachment".equals(disposition)) {
+            throw new IllegalArgumentException("Unsupported disposition: " + disposition);
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.auth.AuthService;
+import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.TimelineService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/users/{userId}/follow", produces = MediaType.APPLICATION_JSON_VALUE)
+public class FollowsController {
+
+    private final TimelineService timelineService;
+    private final AuthService authService;
+
+    public FollowsController(TimelineService timelineService, AuthService authService) {
+        this.timelineService = timelineService;
+        this.authService = authService;
+    }
+
+    @PutMapping
+    public ResponseEntity<Void> follow(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String userId
+    ) {
+        AuthContext auth = authService.resolve(authorization)
+                .orElseThrow(() -> new UnauthorizedException("Authentication required"));
+        timelineService.follow(auth.userId(), userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> unfollow(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String userId
+    ) {
+        AuthContext auth = authService.resolve(authorization)
+                .orElseThrow(() -> new UnauthorizedException("Authentication required"));
+        timelineService.unfollow(auth.userId(), userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.PagedResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link PagedResponse} bodies straight to the response stream with a
+ * {@link JsonGenerator}. The envelope is written with pre-encoded names; items and facets go
+ * through the mapper on the same generator, so they serialize exactly as they do elsewhere.
+ * The output is byte-for-byte what Jackson would produce for the same object.
+ *
+ * <p>Registered ahead of the default Jackson converter; Jackson's factory recycles the
+ * generator buffers per thread.
+ */
+@Component
+public class PagedResponseHttpMessageConverter extends AbstractHttpMessageConverter<PagedResponse<?>> {
+
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString PER_PAGE = new SerializedString("per_page");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString FACETS = new SerializedString("facets");
+    private static final SerializedString NEXT_CURSOR = new SerializedString("next_cursor");
+
+    private final ObjectMapper objectMapper;
+    // Flushing after every value would push each item down the socket on its own.
+    private final ObjectWriter valueWriter;
+
+    public PagedResponseHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PagedResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PagedResponse<?> readInternal(Class<? extends PagedResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Paged responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(PagedResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            write(generator, response);
+        }
+    }
+
+    void write(JsonGenerator generator, PagedResponse<?> response) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ITEMS);
+        generator.writeStartArray();
+        for (Object item : response.items()) {
+            valueWriter.writeValue(generator, item);
+        }
+        generator.writeEndArray();
+        generator.writeFieldName(PAGE);
+        generator.writeNumber(response.page());
+        generator.writeFieldName(PER_PAGE);
+        generator.writeNumber(response.perPage());
+        generator.writeFieldName(TOTAL);
+        generator.writeNumber(response.total());
+        if (response.facets() != null) {
+            generator.writeFieldName(FACETS);
+            valueWriter.writeValue(generator, response.facets());
+        }
+        if (response.nextCursor() != null) {
+            generator.writeFieldName(NEXT_CURSOR);
+            generator.writeString(response.nextCursor());
+        }
+        generator.writeEndObject();
+    }
+}
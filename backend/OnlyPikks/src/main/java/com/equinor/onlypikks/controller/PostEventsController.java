@@ -0,0 +1,48 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.auth.AuthService;
+import com.equinor.onlypikks.service.MockPostService;
+import com.equinor.onlypikks.service.PostEventBus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/posts/{postId}/events")
+public class PostEventsController {
+
+    private final MockPostService postService;
+    private final AuthService authService;
+    private final PostEventBus eventBus;
+
+    public PostEventsController(MockPostService postService, AuthService authService, PostEventBus eventBus) {
+        this.postService = postService;
+        this.authService = authService;
+        this.eventBus = eventBus;
+    }
+
+    @GetMapping
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String postId
+    ) {
+        Optional<AuthContext> auth = authService.resolve(authorization);
+        if (postService.postVersion(postId, auth).isEmpty()) {
+            // A plain 404 without a JSON body: EventSource clients stop reconnecting on non-200 responses.
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(eventBus.subscribe(postId));
+    }
+}
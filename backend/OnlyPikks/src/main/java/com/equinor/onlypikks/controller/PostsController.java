@@ -1,16 +1,26 @@
 package com.equinor.onlypikks.controller;
 
+import com.equinor.onlypikks.api.model.BatchGetPostsResponse;
 import com.equinor.onlypikks.api.model.PagedResponse;
 import com.equinor.onlypikks.api.model.PostResponse;
 import com.equinor.onlypikks.api.model.PostSummaryResponse;
 import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.api.model.RelatedPostsResponse;
+import com.equinor.onlypikks.api.model.SimilarPostsResponse;
 import com.equinor.onlypikks.api.model.UpdatePostMetadataRequest;
 import com.equinor.onlypikks.auth.AuthContext;
 import com.equinor.onlypikks.auth.AuthService;
-import com.equinor.onlypikks.exception.ForbiddenException;
 import com.equinor.onlypikks.exception.NotFoundException;
 import com.equinor.onlypikks.exception.UnauthorizedException;
+import com.equinor.onlypikks.service.ContentModerator;
+import com.equinor.onlypikks.service.MediaService;
 import com.equinor.onlypikks.service.MockPostService;
+import com.equinor.onlypikks.service.PostOrder;
+import com.equinor.onlypikks.service.PostSummaryField;
+import com.equinor.onlypikks.service.PublicFeedSnapshot;
+import com.equinor.onlypikks.service.StoredMedia;
+import com.equinor.onlypikks.service.UploadScheduler;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -19,12 +29,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @CrossOrigin
@@ -33,25 +46,53 @@ public class PostsController {
 
     private final MockPostService postService;
     private final AuthService authService;
+    private final MediaService mediaService;
+    private final ContentModerator moderator;
 
-    public PostsController(MockPostService postService, AuthService authService) {
+    public PostsController(
+            MockPostService postService,
+            AuthService authService,
+            MediaService mediaService,
+            ContentModerator moderator
+    ) {
         this.postService = postService;
         this.authService = authService;
+        this.mediaService = mediaService;
+        this.moderator = moderator;
     }
 
     @GetMapping
-    public ResponseEntity<PagedResponse<PostSummaryResponse>> listPosts(
+    public ResponseEntity<?> listPosts(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
             @RequestParam(name = "page", defaultValue = "1") int page,
             @RequestParam(name = "per_page", defaultValue = "24") int perPage,
             @RequestParam(name = "sort", defaultValue = "created_desc") String sort,
             @RequestParam(name = "q", required = false) String query,
             @RequestParam(name = "owner", required = false) String owner,
-            @RequestParam(name = "visibility", required = false) String visibilityParam
+            @RequestParam(name = "visibility", required = false) String visibilityParam,
+            @RequestParam(name = "facets", defaultValue = "false") boolean includeFacets,
+            @RequestParam(name = "fields", required = false) String fieldsParam,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
         Optional<AuthContext> auth = authService.resolve(authorization);
-        if (!List.of("created_desc", "created_asc", "popular", "trending").contains(sort)) {
-            throw new IllegalArgumentException("Unsupported sort value: " + sort);
+        PostOrder order = PostOrder.parse(sort);
+        Optional<Set<PostSummaryField>> fields = Optional.ofNullable(fieldsParam)
+                .filter(StringUtils::hasText)
+                .map(PostSummaryField::parse);
+        boolean anonymousHomeFeed = auth.isEmpty()
+                && order == PostOrder.NEWEST
+                && perPage == PublicFeedSnapshot.PAGE_SIZE
+                && !StringUtils.hasText(query)
+                && !StringUtils.hasText(owner)
+                && !StringUtils.hasText(visibilityParam)
+                && !includeFacets
+                && fields.isEmpty();
+        if (anonymousHomeFeed) {
+            Optional<PublicFeedSnapshot.Page> snapshot = postService.publicFeedPage(page);
+            if (snapshot.isPresent()) {
+                return publicFeedResponse(snapshot.get(), page, ifNoneMatch, acceptsGzip(acceptEncoding));
+            }
         }
         Optional<String> ownerFilter = Optional.empty();
         boolean includePrivate = false;
@@ -83,6 +124,55 @@ public class PostsController {
 
         Optional<String> normalizedQuery = Optional.ofNullable(query).filter(StringUtils::hasText);
 
+        String etag = ETags.weak(
+                postService.feedVersion(includePrivate, includeUnlisted, visibilityFilter),
+                page,
+                perPage,
+                sort,
+                ownerFilter,
+                includePrivate,
+                includeUnlisted,
+                normalizedQuery,
+                visibilityFilter,
+                includeFacets,
+                fields
+        );
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+
+        if (fields.isPresent()) {
+            // Without a text query or facets nothing needs the omitted columns, so they are not read.
+            PagedResponse<Map<String, Object>> sparse = normalizedQuery.isEmpty() && !includeFacets
+                    && order == PostOrder.NEWEST
+                    ? postService.listPostFields(
+                            page,
+                            perPage,
+                            ownerFilter,
+                            includePrivate,
+                            includeUnlisted,
+                            visibilityFilter,
+                            fields.get()
+                    )
+                    : MockPostService.selectFields(
+                            postService.listPosts(
+                                    page,
+                                    perPage,
+                                    ownerFilter,
+                                    includePrivate,
+                                    includeUnlisted,
+                                    normalizedQuery,
+                                    visibilityFilter,
+                                    includeFacets,
+                                    order
+                            ),
+                            fields.get()
+                    );
+            return ETags.ok(etag)
+                    .headers(listHeaders(sparse.total()))
+                    .body(sparse);
+        }
+
         PagedResponse<PostSummaryResponse> response = postService.listPosts(
                 page,
                 perPage,
@@ -90,17 +180,57 @@ public class PostsController {
                 includePrivate,
                 includeUnlisted,
                 normalizedQuery,
-                visibilityFilter
+                visibilityFilter,
+                includeFacets,
+                order
         );
 
+        return ETags.ok(etag)
+                .headers(listHeaders(response.total()))
+                .body(response);
+    }
+
+    private ResponseEntity<byte[]> publicFeedResponse(
+            PublicFeedSnapshot.Page snapshot,
+            int page,
+            String ifNoneMatch,
+            boolean gzip
+    ) {
+        String etag = ETags.strong("public-feed", snapshot.version(), page, gzip ? "gzip" : "identity");
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag, HttpHeaders.ACCEPT_ENCODING);
+        }
+        // The snapshot is already JSON, compressed once per rebuild; the byte array converter
+        // writes it as-is and the container does not compress a body that has a Content-Encoding.
+        ResponseEntity.BodyBuilder response = ETags.ok(etag, HttpHeaders.ACCEPT_ENCODING)
+                .headers(listHeaders(snapshot.total()))
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzipBody());
+        }
+        return response.body(snapshot.body());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private HttpHeaders listHeaders(long total) {
         HttpHeaders headers = new HttpHeaders();
-        headers.add("X-Total-Count", String.valueOf(response.total()));
+        headers.add("X-Total-Count", String.valueOf(total));
         headers.add("X-RateLimit-Limit", "120");
         headers.add("X-RateLimit-Remaining", "118");
         headers.add("X-RateLimit-Reset", String.valueOf(Instant.now().plusSeconds(60).getEpochSecond()));
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(applyAbsoluteUrls(response));
+        return headers;
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -110,26 +240,32 @@ public class PostsController {
             @RequestPart(name = "title", required = false) String title,
             @RequestPart(name = "description", required = false) String description,
             @RequestPart(name = "tags", required = false) List<String> tags,
-            @RequestPart(name = "visibility", required = false) String visibility
-    ) {
+            @RequestPart(name = "visibility", required = false) String visibility,
+            HttpServletRequest request
+    ) throws IOException {
         AuthContext auth = authService.resolve(authorization)
                 .orElseThrow(() -> new UnauthorizedException("Authentication required"));
-        PostResponse created = createPostWithMetadata(
-                auth,
-                title,
-                description,
-                tags,
-                visibility,
-                file.getOriginalFilename(),
-                file.getSize()
-        );
+        PostResponse created;
+        try (InputStream content = throttled(request, file.getInputStream())) {
+            created = createPostWithMetadata(
+                    auth,
+                    title,
+                    description,
+                    tags,
+                    visibility,
+                    file.getOriginalFilename(),
+                    content,
+                    file.getSize(),
+                    file.getContentType()
+            );
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
     public ResponseEntity<PostResponse> createPostFromBinary(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
-            @RequestBody byte[] payload,
+            HttpServletRequest request,
             @RequestParam(name = "title", required = false) String title,
             @RequestParam(name = "description", required = false) String description,
             @RequestParam(name = "tags", required = false) List<String> tags,
@@ -138,12 +274,12 @@ public class PostsController {
             @RequestHeader(value = "X-Filename", required = false) String filenameHeader,
             @RequestHeader(value = "Slug", required = false) String slugHeader,
             @RequestHeader(value = HttpHeaders.CONTENT_DISPOSITION, required = false) String contentDisposition
-    ) {
+    ) throws IOException {
         AuthContext auth = authService.resolve(authorization)
                 .orElseThrow(() -> new UnauthorizedException("Authentication required"));
 
         String originalFileName = resolveOriginalFileName(filename, filenameHeader, slugHeader, contentDisposition);
-        long fileSize = payload != null ? payload.length : 0L;
+        // Streamed straight from the request into storage; the body is never held in memory whole.
         PostResponse created = createPostWithMetadata(
                 auth,
                 title,
@@ -151,19 +287,65 @@ public class PostsController {
                 tags,
                 visibility,
                 originalFileName,
-                fileSize
+                throttled(request, request.getInputStream()),
+                request.getContentLengthLong(),
+                request.getContentType()
         );
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @GetMapping(params = "ids")
+    public BatchGetPostsResponse batchGetPosts(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(name = "ids") List<String> ids
+    ) {
+        Optional<AuthContext> auth = authService.resolve(authorization);
+        return postService.findPosts(ids, auth);
+    }
+
     @GetMapping("/{postId}")
-    public PostResponse getPost(
+    public ResponseEntity<PostResponse> getPost(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @PathVariable String postId
     ) {
         Optional<AuthContext> auth = authService.resolve(authorization);
-        return postService.findPost(postId, auth)
-                .map(this::applyAbsoluteUrls)
+        String etag = postService.postVersion(postId, auth)
+                .map(ETags::weak)
+                .orElseThrow(() -> new NotFoundException("Post not found or inaccessible"));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ETags.notModified(etag);
+        }
+        PostResponse post = postService.findPost(postId, auth)
+                .orElseThrow(() -> new NotFoundException("Post not found or inaccessible"));
+        return ETags.ok(etag).body(post);
+    }
+
+    /**
+     * Other public posts on a similar subject, to keep browsing from a post.
+     */
+    @GetMapping("/{postId}/related")
+    public RelatedPostsResponse relatedPosts(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String postId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        Optional<AuthContext> auth = authService.resolve(authorization);
+        return postService.findRelatedPosts(postId, auth, limit)
+                .orElseThrow(() -> new NotFoundException("Post not found or inaccessible"));
+    }
+
+    /**
+     * Near-duplicates of the post's image, such as the same photo resized or recompressed.
+     */
+    @GetMapping("/{postId}/similar")
+    public SimilarPostsResponse similarPosts(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String postId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        Optional<AuthContext> auth = authService.resolve(authorization);
+        return postService.findSimilarPosts(postId, auth, limit)
                 .orElseThrow(() -> new NotFoundException("Post not found or inaccessible"));
     }
 
@@ -171,23 +353,30 @@ public class PostsController {
     public PostResponse replaceMedia(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
             @PathVariable String postId,
-            @RequestPart("file") MultipartFile file
-    ) {
+            @RequestPart("file") MultipartFile file,
+            HttpServletRequest request
+    ) throws IOException {
         AuthContext auth = authService.resolve(authorization)
                 .orElseThrow(() -> new UnauthorizedException("Authentication required"));
-        Optional<PostResponse> updated = postService.replaceMedia(
-                postId,
-                auth,
-                StringUtils.hasText(file.getOriginalFilename()) ? file.getOriginalFilename() : "upload.bin",
-                file.getSize()
-        );
-        if (updated.isPresent()) {
-            return applyAbsoluteUrls(updated.get());
+        // Refuse before storing: the upload is only read once the post is known to be the caller's.
+        postService.checkCanReplaceMedia(postId, auth);
+        StoredMedia media;
+        try (InputStream content = throttled(request, file.getInputStream())) {
+            media = mediaService.store(content, file.getSize(), file.getContentType());
         }
-        if (!postService.postExists(postId)) {
-            throw new NotFoundException("Post not found");
+        PostResponse updated;
+        try {
+            updated = postService.replaceMedia(
+                    postId,
+                    auth,
+                    StringUtils.hasText(file.getOriginalFilename()) ? file.getOriginalFilename() : "upload.bin",
+                    media
+            );
+        } catch (RuntimeException ex) {
+            mediaService.discard(media);
+            throw ex;
         }
-        throw new ForbiddenException("You are not allowed to replace this media");
+        return updated;
     }
 
     @PatchMapping(path = "/{postId}", consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -198,14 +387,9 @@ public class PostsController {
     ) {
         AuthContext auth = authService.resolve(authorization)
                 .orElseThrow(() -> new UnauthorizedException("Authentication required"));
-        Optional<PostResponse> updated = postService.updateMetadata(postId, auth, request);
-        if (updated.isPresent()) {
-            return applyAbsoluteUrls(updated.get());
-        }
-        if (!postService.postExists(postId)) {
-            throw new NotFoundException("Post not found");
-        }
-        throw new ForbiddenException("You are not allowed to update this post");
+        moderator.check("title", request.title());
+        moderator.check("description", request.description());
+        return postService.updateMetadata(postId, auth, request);
     }
 
     @DeleteMapping("/{postId}")
@@ -215,13 +399,7 @@ public class PostsController {
     ) {
         AuthContext auth = authService.resolve(authorization)
                 .orElseThrow(() -> new UnauthorizedException("Authentication required"));
-        boolean deleted = postService.deletePost(postId, auth);
-        if (!deleted) {
-            if (!postService.postExists(postId)) {
-                throw new NotFoundException("Post not found");
-            }
-            throw new ForbiddenException("You are not allowed to delete this post");
-        }
+        postService.deletePost(postId, auth);
         return ResponseEntity.noContent().build();
     }
 
@@ -232,23 +410,44 @@ public class PostsController {
             List<String> tags,
             String visibility,
             String originalFileName,
-            long fileSize
+            InputStream content,
+            long contentLength,
+            String contentType
     ) {
         String normalizedVisibility = StringUtils.hasText(visibility) ? visibility : "public";
         PostVisibility postVisibility = PostVisibility.valueOf(normalizedVisibility.toUpperCase());
         String resolvedTitle = StringUtils.hasText(title) ? title : "Untitled post";
         String resolvedOriginalFileName = StringUtils.hasText(originalFileName) ? originalFileName : "upload.bin";
+        moderator.check("title", title);
+        moderator.check("description", description);
         List<String> normalizedTags = normalizeTags(tags);
-        PostResponse created = postService.createPost(
-                auth,
-                resolvedTitle,
-                description,
-                normalizedTags,
-                postVisibility,
-                resolvedOriginalFileName,
-                fileSize
-        );
-        return applyAbsoluteUrls(created);
+        // Store the bytes before the post exists, so a committed post always has its media.
+        StoredMedia media = mediaService.store(content, contentLength, contentType);
+        try {
+            PostResponse created = postService.createPost(
+                    auth,
+                    resolvedTitle,
+                    description,
+                    normalizedTags,
+                    postVisibility,
+                    resolvedOriginalFileName,
+                    media
+            );
+            return created;
+        } catch (RuntimeException ex) {
+            mediaService.discard(media);
+            throw ex;
+        }
+    }
+
+    /**
+     * Holds the upload to the rates of the permit it was admitted with. A multipart body has
+     * already been spooled to disk by now, so this paces the copy into storage; a binary body
+     * is paced off the socket itself.
+     */
+    private static InputStream throttled(HttpServletRequest request, InputStream content) {
+        Object permit = request.getAttribute(UploadScheduler.Permit.ATTRIBUTE);
+        return permit instanceof UploadScheduler.Permit admitted ? admitted.throttle(content) : content;
     }
 
     private String resolveOriginalFileName(
@@ -291,63 +490,4 @@ public class PostsController {
         }
         return tags;
     }
-
-    private PagedResponse<PostSummaryResponse> applyAbsoluteUrls(PagedResponse<PostSummaryResponse> response) {
-        List<PostSummaryResponse> normalizedItems = response.items().stream()
-                .map(this::applyAbsoluteUrls)
-                .toList();
-        return new PagedResponse<>(normalizedItems, response.page(), response.perPage(), response.total());
-    }
-
-    private PostSummaryResponse applyAbsoluteUrls(PostSummaryResponse summary) {
-        return new PostSummaryResponse(
-                summary.id(),
-                summary.title(),
-                summary.description(),
-                summary.tags(),
-                summary.visibility(),
-                summary.ownerId(),
-                summary.ownerDisplayName(),
-                ensureAbsoluteUrl(summary.thumbnailUrl()),
-                summary.createdAt(),
-                summary.updatedAt(),
-                summary.commentCount(),
-                summary.likeCount()
-        );
-    }
-
-    private PostResponse applyAbsoluteUrls(PostResponse response) {
-        return new PostResponse(
-                response.id(),
-                response.title(),
-                response.description(),
-                response.tags(),
-                response.visibility(),
-                response.ownerId(),
-                response.ownerDisplayName(),
-                response.fileId(),
-                ensureAbsoluteUrl(response.fileUrl()),
-                ensureAbsoluteUrl(response.thumbnailUrl()),
-                response.originalFileName(),
-                response.fileSize(),
-                response.createdAt(),
-                response.updatedAt(),
-                response.commentCount(),
-                response.likeCount(),
-                response.latestComments()
-        );
-    }
-
-    private String ensureAbsoluteUrl(String url) {
-        if (!StringUtils.hasText(url)) {
-            return url;
-        }
-        if (url.startsWith("http://") || url.startsWith("https://")) {
-            return url;
-        }
-        String normalizedPath = url.startsWith("/") ? url : "/" + url;
-        return ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path(normalizedPath)
-                .toUriString();
-    }
 }
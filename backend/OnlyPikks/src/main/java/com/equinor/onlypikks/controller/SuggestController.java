@@ -0,0 +1,36 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.SuggestionResponse;
+import com.equinor.onlypikks.service.MockPostService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+public class SuggestController {
+
+    private final MockPostService postService;
+
+    public SuggestController(MockPostService postService) {
+        this.postService = postService;
+    }
+
+    /**
+     * Completions for a search box as the user types; served from memory, so it is cheap to
+     * call on every keystroke.
+     */
+    @GetMapping
+    public List<SuggestionResponse> suggest(
+            @RequestParam(name = "prefix", defaultValue = "") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        return postService.suggest(prefix, limit);
+    }
+}
@@ -0,0 +1,31 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.TagCountResponse;
+import com.equinor.onlypikks.service.MockPostService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin
+@RequestMapping(path = "/tags", produces = MediaType.APPLICATION_JSON_VALUE)
+public class TagsController {
+
+    private final MockPostService postService;
+
+    public TagsController(MockPostService postService) {
+        this.postService = postService;
+    }
+
+    @GetMapping
+    public List<TagCountResponse> popularTags(
+            @RequestParam(name = "limit", defaultValue = "20") int limit
+    ) {
+        return postService.popularTags(limit);
+    }
+}
@@ -0,0 +1,8 @@
+package com.equinor.onlypikks.exception;
+
+public class ContentRejectedException extends RuntimeException {
+
+    public ContentRejectedException(String message) {
+        super(message);
+    }
+}
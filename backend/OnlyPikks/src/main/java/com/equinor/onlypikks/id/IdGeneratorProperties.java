@@ -0,0 +1,17 @@
+package com.equinor.onlypikks.id;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "onlypikks.ids")
+public record IdGeneratorProperties(
+        Integer nodeId
+) {
+    public int nodeIdOrDefault() {
+        int resolved = nodeId != null ? nodeId : 0;
+        if (resolved < 0 || resolved > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException(
+                    "onlypikks.ids.node-id must be between 0 and " + SnowflakeIdGenerator.MAX_NODE_ID);
+        }
+        return resolved;
+    }
+}
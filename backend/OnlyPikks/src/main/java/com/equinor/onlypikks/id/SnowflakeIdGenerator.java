@@ -0,0 +1,76 @@
+package com.equinor.onlypikks.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 63-bit ids: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id
+ * and 12 bits of per-millisecond sequence. Each replica needs its own node id; no state is
+ * read from the database, so startup cost does not depend on how much data exists.
+ *
+ * <p>The timestamp and sequence are packed into one {@link AtomicLong}. When the sequence
+ * overflows, or the wall clock steps backwards, the generator keeps counting on from the
+ * last issued timestamp instead of blocking, and catches up once the clock passes it.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = clock.getAsLong() - EPOCH.toEpochMilli();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long next = now > lastTimestamp ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public int nodeId() {
+        return (int) nodeId;
+    }
+
+    public String nextId(String prefix) {
+        return prefix + nextId();
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(millisOf(id));
+    }
+
+    /**
+     * The timestamp of {@code id} in milliseconds since {@link #EPOCH}.
+     */
+    public static long millisOf(long id) {
+        return id >>> (NODE_BITS + SEQUENCE_BITS);
+    }
+}
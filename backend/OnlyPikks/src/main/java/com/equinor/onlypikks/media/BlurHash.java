@@ -0,0 +1,114 @@
+package com.equinor.onlypikks.media;
+
+/**
+ * <a href="https://blurha.sh">BlurHash</a> placeholders: a few cosine components of an image,
+ * encoded in a short string clients paint as a blurred preview while the thumbnail loads.
+ *
+ * <p>Encoded from an {@link ImageSample}: a 4x3 component hash shows no more detail than
+ * that, so encoding costs the same for any upload size.
+ */
+public final class BlurHash {
+
+    static final int COMPONENTS_X = 4;
+    static final int COMPONENTS_Y = 3;
+
+    private static final char[] BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~".toCharArray();
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double v = i / 255.0;
+            SRGB_TO_LINEAR[i] = v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private BlurHash() {
+    }
+
+    public static String encode(ImageSample sample) {
+        return encode(sample.pixels(), sample.width(), sample.height());
+    }
+
+    /**
+     * Encodes {@code width * height} packed RGB pixels, row by row, with 4x3 components.
+     */
+    public static String encode(int[] pixels, int width, int height) {
+        double[][] factors = new double[COMPONENTS_X * COMPONENTS_Y][];
+        double[] cosX = new double[COMPONENTS_X * width];
+        double[] cosY = new double[COMPONENTS_Y * height];
+        for (int i = 0; i < COMPONENTS_X; i++) {
+            for (int x = 0; x < width; x++) {
+                cosX[i * width + x] = Math.cos(Math.PI * i * x / width);
+            }
+        }
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int y = 0; y < height; y++) {
+                cosY[j * height + y] = Math.cos(Math.PI * j * y / height);
+            }
+        }
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int i = 0; i < COMPONENTS_X; i++) {
+                double r = 0;
+                double g = 0;
+                double b = 0;
+                for (int y = 0; y < height; y++) {
+                    double basisY = cosY[j * height + y];
+                    int row = y * width;
+                    for (int x = 0; x < width; x++) {
+                        double basis = cosX[i * width + x] * basisY;
+                        int rgb = pixels[row + x];
+                        r += basis * SRGB_TO_LINEAR[(rgb >> 16) & 0xff];
+                        g += basis * SRGB_TO_LINEAR[(rgb >> 8) & 0xff];
+                        b += basis * SRGB_TO_LINEAR[rgb & 0xff];
+                    }
+                }
+                double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+                factors[j * COMPONENTS_X + i] = new double[]{r * scale, g * scale, b * scale};
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * factors.length);
+        base83(hash, (COMPONENTS_X - 1) + (COMPONENTS_Y - 1) * 9, 1);
+        double actualMax = 0;
+        for (int k = 1; k < factors.length; k++) {
+            for (double value : factors[k]) {
+                actualMax = Math.max(actualMax, Math.abs(value));
+            }
+        }
+        int quantisedMax = (int) Math.max(0, Math.min(82, Math.floor(actualMax * 166 - 0.5)));
+        double maximumValue = (quantisedMax + 1) / 166.0;
+        base83(hash, quantisedMax, 1);
+        double[] dc = factors[0];
+        base83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            base83(hash, quantiseAc(ac[0], maximumValue) * 19 * 19
+                    + quantiseAc(ac[1], maximumValue) * 19
+                    + quantiseAc(ac[2], maximumValue), 2);
+        }
+        return hash.toString();
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double scaled = Math.copySign(Math.sqrt(Math.abs(value / maximumValue)), value);
+        return (int) Math.max(0, Math.min(18, Math.floor(scaled * 9 + 9.5)));
+    }
+
+    private static void base83(StringBuilder out, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int divisor = 1;
+            for (int k = 0; k < length - i; k++) {
+                divisor *= 83;
+            }
+            out.append(BASE83[(value / divisor) % 83]);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.equinor.onlypikks.media;
+
+/**
+ * Reads the logical screen size; GIF has no EXIF, so the rest passes through.
+ */
+final class GifParser extends ImageFormatParser {
+
+    GifParser() {
+        super(10);
+    }
+
+    @Override
+    String mimeType() {
+        return "image/gif";
+    }
+
+    @Override
+    void onHeader(byte[] header, int length, Output out) {
+        out.write(header, 0, 10);
+        width = u16le(header, 6);
+        height = u16le(header, 8);
+        passthrough();
+    }
+}
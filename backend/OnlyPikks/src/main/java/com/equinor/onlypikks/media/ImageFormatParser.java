@@ -0,0 +1,137 @@
+package com.equinor.onlypikks.media;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Base for the per-format parsers. An image is a sequence of small headers, each followed by
+ * a body the parser copies, drops, blanks or captures in bulk, so only header bytes are
+ * looked at one by one and the cost per byte stays near a copy. A parser that meets
+ * something it does not understand passes the rest through untouched.
+ */
+abstract class ImageFormatParser {
+
+    enum Body { COPY, DROP, ZERO, CAPTURE }
+
+    private final byte[] header = new byte[32];
+    private int headerNeeded;
+    private int headerLength;
+    private long bodyRemaining;
+    private Body bodyMode = Body.COPY;
+    private ByteArrayOutputStream captured;
+    private boolean passthrough;
+
+    int width = -1;
+    int height = -1;
+
+    ImageFormatParser(int firstHeaderBytes) {
+        this.headerNeeded = firstHeaderBytes;
+    }
+
+    abstract String mimeType();
+
+    /**
+     * Called once {@code length} header bytes have arrived. Must say what comes next with
+     * {@link #next}, {@link #body} or {@link #passthrough}.
+     */
+    abstract void onHeader(byte[] header, int length, Output out);
+
+    /**
+     * Called with the bytes of a {@link Body#CAPTURE} body once it is complete.
+     */
+    void onCaptured(byte[] data, Output out) {
+    }
+
+    final void accept(byte[] bytes, int offset, int length, Output out) {
+        while (length > 0) {
+            if (passthrough) {
+                out.write(bytes, offset, length);
+                return;
+            }
+            if (bodyRemaining > 0) {
+                int n = (int) Math.min(length, bodyRemaining);
+                switch (bodyMode) {
+                    case COPY -> out.write(bytes, offset, n);
+                    case ZERO -> out.writeZeros(n);
+                    case CAPTURE -> captured.write(bytes, offset, n);
+                    case DROP -> {
+                    }
+                }
+                offset += n;
+                length -= n;
+                bodyRemaining -= n;
+                if (bodyRemaining == 0 && bodyMode == Body.CAPTURE) {
+                    byte[] data = captured.toByteArray();
+                    captured = null;
+                    onCaptured(data, out);
+                }
+                continue;
+            }
+            int n = Math.min(length, headerNeeded - headerLength);
+            System.arraycopy(bytes, offset, header, headerLength, n);
+            headerLength += n;
+            offset += n;
+            length -= n;
+            if (headerLength == headerNeeded) {
+                headerLength = 0;
+                onHeader(header, headerNeeded, out);
+            }
+        }
+    }
+
+    /**
+     * Flushes a header cut short by the end of the input; a truncated file stays as it was.
+     */
+    final void finish(Output out) {
+        if (!passthrough && bodyRemaining == 0 && headerLength > 0) {
+            out.write(header, 0, headerLength);
+        }
+    }
+
+    final void next(int headerBytes) {
+        headerNeeded = headerBytes;
+    }
+
+    final void body(Body mode, long length, int thenHeaderBytes) {
+        bodyMode = mode;
+        bodyRemaining = length;
+        headerNeeded = thenHeaderBytes;
+        if (mode == Body.CAPTURE) {
+            // Callers capture only non-empty bodies of at most 64 KB.
+            captured = new ByteArrayOutputStream((int) length);
+        }
+    }
+
+    final void passthrough() {
+        passthrough = true;
+    }
+
+    static int u16be(byte[] b, int i) {
+        return (b[i] & 0xff) << 8 | (b[i + 1] & 0xff);
+    }
+
+    static int u16le(byte[] b, int i) {
+        return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8;
+    }
+
+    static int u24le(byte[] b, int i) {
+        return u16le(b, i) | (b[i + 2] & 0xff) << 16;
+    }
+
+    static long u32be(byte[] b, int i) {
+        return (long) u16be(b, i) << 16 | u16be(b, i + 2);
+    }
+
+    static long u32le(byte[] b, int i) {
+        return u16le(b, i) | (long) u16le(b, i + 2) << 16;
+    }
+
+    /**
+     * Where a parser writes the bytes to keep.
+     */
+    interface Output {
+
+        void write(byte[] bytes, int offset, int length);
+
+        void writeZeros(int length);
+    }
+}
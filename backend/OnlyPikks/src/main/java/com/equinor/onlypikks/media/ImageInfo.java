@@ -0,0 +1,8 @@
+package com.equinor.onlypikks.media;
+
+/**
+ * What an upload's headers say about the image, with width and height as displayed, that is
+ * after any EXIF rotation.
+ */
+public record ImageInfo(String mimeType, int width, int height) {
+}
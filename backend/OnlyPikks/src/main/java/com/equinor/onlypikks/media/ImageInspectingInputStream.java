@@ -0,0 +1,185 @@
+package com.equinor.onlypikks.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Passes an upload through while reading the image's format and size from its headers and
+ * stripping its metadata, without decoding pixels. JPEG, PNG, GIF and WebP are recognized;
+ * anything else passes through unchanged. Bodies are copied in bulk, so inspecting costs
+ * about one extra copy of the bytes.
+ *
+ * <p>The format is sniffed when the stream is opened, so the MIME type is known before the
+ * body is stored; the dimensions are known once the headers have been read, at the latest
+ * when the stream is exhausted. Stripping can shorten the output.
+ */
+public final class ImageInspectingInputStream extends InputStream {
+
+    private static final int SNIFF_BYTES = 12;
+
+    private final InputStream in;
+    private final ImageFormatParser parser;
+    private final byte[] chunk = new byte[16 * 1024];
+    private final Buffer output = new Buffer();
+    private boolean eof;
+
+    private ImageInspectingInputStream(InputStream in, byte[] sniffed, int sniffedLength) {
+        this.in = in;
+        this.parser = detect(sniffed, sniffedLength);
+        if (parser != null) {
+            parser.accept(sniffed, 0, sniffedLength, output);
+        } else {
+            output.write(sniffed, 0, sniffedLength);
+        }
+    }
+
+    /**
+     * Reads the first bytes of {@code in} to recognize the format.
+     */
+    public static ImageInspectingInputStream inspect(InputStream in) throws IOException {
+        byte[] sniffed = in.readNBytes(SNIFF_BYTES);
+        return new ImageInspectingInputStream(in, sniffed, sniffed.length);
+    }
+
+    public Optional<String> mimeType() {
+        return Optional.ofNullable(parser).map(ImageFormatParser::mimeType);
+    }
+
+    /**
+     * The image's format and displayed size, once its headers have been read.
+     */
+    public Optional<ImageInfo> imageInfo() {
+        if (parser == null || parser.width <= 0 || parser.height <= 0) {
+            return Optional.empty();
+        }
+        boolean rotated = parser instanceof JpegParser jpeg && jpeg.rotated();
+        return Optional.of(rotated
+                ? new ImageInfo(parser.mimeType(), parser.height, parser.width)
+                : new ImageInfo(parser.mimeType(), parser.width, parser.height));
+    }
+
+    /**
+     * The EXIF orientation of a JPEG once its headers have been read, otherwise 1.
+     */
+    int orientation() {
+        return parser instanceof JpegParser jpeg ? jpeg.orientation() : 1;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (output.available() == 0) {
+            if (eof) {
+                return -1;
+            }
+            fill();
+        }
+        return output.read(bytes, offset, length);
+    }
+
+    @Override
+    public int available() {
+        return output.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void fill() throws IOException {
+        int read = in.read(chunk);
+        if (read < 0) {
+            eof = true;
+            if (parser != null) {
+                parser.finish(output);
+            }
+        } else if (parser != null) {
+            parser.accept(chunk, 0, read, output);
+        } else {
+            output.write(chunk, 0, read);
+        }
+    }
+
+    private static ImageFormatParser detect(byte[] b, int length) {
+        if (length >= 3 && (b[0] & 0xff) == 0xFF && (b[1] & 0xff) == 0xD8 && (b[2] & 0xff) == 0xFF) {
+            return new JpegParser();
+        }
+        if (length >= 8 && (b[0] & 0xff) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[4] == '\r' && b[5] == '\n' && b[6] == 0x1a && b[7] == '\n') {
+            return new PngParser();
+        }
+        if (length >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8'
+                && (b[4] == '7' || b[4] == '9') && b[5] == 'a') {
+            return new GifParser();
+        }
+        if (length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return new WebpParser();
+        }
+        return null;
+    }
+
+    /**
+     * Bytes the parser has produced and the reader has not taken yet.
+     */
+    private static final class Buffer implements ImageFormatParser.Output {
+
+        private byte[] data = new byte[32 * 1024];
+        private int start;
+        private int end;
+
+        int available() {
+            return end - start;
+        }
+
+        int read(byte[] bytes, int offset, int length) {
+            int n = Math.min(length, end - start);
+            System.arraycopy(data, start, bytes, offset, n);
+            start += n;
+            if (start == end) {
+                start = 0;
+                end = 0;
+            }
+            return n;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, data, end, length);
+            end += length;
+        }
+
+        @Override
+        public void writeZeros(int length) {
+            ensureCapacity(length);
+            Arrays.fill(data, end, end + length, (byte) 0);
+            end += length;
+        }
+
+        private void ensureCapacity(int length) {
+            if (end + length <= data.length) {
+                return;
+            }
+            if (start > 0) {
+                System.arraycopy(data, start, data, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, end + length));
+            }
+        }
+    }
+}
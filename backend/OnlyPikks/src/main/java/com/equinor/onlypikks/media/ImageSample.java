@@ -0,0 +1,87 @@
+package com.equinor.onlypikks.media;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * An uploaded image decoded subsampled to at most {@value #MAX_SAMPLE} pixels on its longer
+ * side, upright according to its EXIF orientation. Placeholders and perceptual hashes only
+ * look at coarse structure, so they are computed from the sample and cost the same for any
+ * upload size; decoding is the expensive part and happens once for both.
+ *
+ * @param pixels packed RGB, row by row
+ */
+public record ImageSample(int[] pixels, int width, int height) {
+
+    static final int MAX_SAMPLE = 64;
+
+    /**
+     * Empty when the format cannot be decoded, such as WebP.
+     */
+    public static Optional<ImageSample> decode(InputStream content) throws IOException {
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(content);
+        try (ImageInputStream input = new MemoryCacheImageInputStream(inspected)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / MAX_SAMPLE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                int width = image.getWidth();
+                int height = image.getHeight();
+                int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+                int orientation = inspected.orientation();
+                int[] upright = orient(pixels, width, height, orientation);
+                return Optional.of(orientation >= 5
+                        ? new ImageSample(upright, height, width)
+                        : new ImageSample(upright, width, height));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Turns the pixels as stored into the pixels as displayed; orientations 5 to 8 swap the
+     * width and height.
+     */
+    static int[] orient(int[] pixels, int width, int height, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return pixels;
+        }
+        boolean swap = orientation >= 5;
+        int outWidth = swap ? height : width;
+        int outHeight = swap ? width : height;
+        int[] out = new int[pixels.length];
+        for (int y = 0; y < outHeight; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                int sx;
+                int sy;
+                switch (orientation) {
+                    case 2 -> { sx = width - 1 - x; sy = y; }
+                    case 3 -> { sx = width - 1 - x; sy = height - 1 - y; }
+                    case 4 -> { sx = x; sy = height - 1 - y; }
+                    case 5 -> { sx = y; sy = x; }
+                    case 6 -> { sx = y; sy = height - 1 - x; }
+                    case 7 -> { sx = width - 1 - y; sy = height - 1 - x; }
+                    default -> { sx = width - 1 - y; sy = x; }
+                }
+                out[y * outWidth + x] = pixels[sy * width + sx];
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,203 @@
+package com.equinor.onlypikks.media;
+
+/**
+ * Reads the frame size from the SOF segment and strips metadata up to the first scan: EXIF
+ * and XMP (APP1), comments and the other application segments. JFIF (APP0), ICC profiles
+ * (APP2) and Adobe colour information (APP14) stay, since decoders need them to show the
+ * right colours. EXIF orientation is kept by writing a minimal EXIF segment in place of the
+ * original, so photos still display the right way up.
+ */
+final class JpegParser extends ImageFormatParser {
+
+    private static final int SOI = 0xD8;
+    private static final int EOI = 0xD9;
+    private static final int SOS = 0xDA;
+    private static final int APP0 = 0xE0;
+    private static final int APP1 = 0xE1;
+    private static final int APP2 = 0xE2;
+    private static final int APP14 = 0xEE;
+    private static final int APP15 = 0xEF;
+    private static final int COM = 0xFE;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private enum Step { MARKER, MARKER_CODE, LENGTH, FRAME }
+
+    private Step step = Step.MARKER;
+    private int marker;
+    private long segmentLength;
+    private int orientation = 1;
+
+    JpegParser() {
+        super(2);
+    }
+
+    @Override
+    String mimeType() {
+        return "image/jpeg";
+    }
+
+    @Override
+    void onHeader(byte[] header, int length, Output out) {
+        switch (step) {
+            case MARKER -> {
+                if ((header[0] & 0xff) != 0xFF) {
+                    out.write(header, 0, 2);
+                    passthrough();
+                } else if ((header[1] & 0xff) == 0xFF) {
+                    // Fill bytes may pad a marker.
+                    step = Step.MARKER_CODE;
+                    next(1);
+                } else {
+                    marker(header[1] & 0xff, out);
+                }
+            }
+            case MARKER_CODE -> {
+                if ((header[0] & 0xff) != 0xFF) {
+                    marker(header[0] & 0xff, out);
+                }
+            }
+            case LENGTH -> segment(header, out);
+            case FRAME -> {
+                out.write(header, 0, 5);
+                height = u16be(header, 1);
+                width = u16be(header, 3);
+                step = Step.MARKER;
+                body(Body.COPY, segmentLength - 5, 2);
+            }
+        }
+    }
+
+    private void marker(int code, Output out) {
+        if (code == SOS || code == EOI) {
+            // Entropy-coded data follows; metadata segments do not appear inside it.
+            writeMarker(out, code);
+            passthrough();
+        } else if (code == SOI || code == 0x01 || (code >= 0xD0 && code <= 0xD7)) {
+            writeMarker(out, code);
+            step = Step.MARKER;
+            next(2);
+        } else {
+            marker = code;
+            step = Step.LENGTH;
+            next(2);
+        }
+    }
+
+    private void segment(byte[] header, Output out) {
+        int length = u16be(header, 0);
+        if (length < 2) {
+            writeMarker(out, marker);
+            out.write(header, 0, 2);
+            passthrough();
+            return;
+        }
+        segmentLength = length - 2;
+        step = Step.MARKER;
+        if (marker == APP1 && segmentLength > 0) {
+            body(Body.CAPTURE, segmentLength, 2);
+        } else if (isDroppedMetadata(marker)) {
+            body(Body.DROP, segmentLength, 2);
+        } else if (isFrameHeader(marker) && segmentLength >= 5) {
+            writeMarker(out, marker);
+            out.write(header, 0, 2);
+            step = Step.FRAME;
+            next(5);
+        } else {
+            writeMarker(out, marker);
+            out.write(header, 0, 2);
+            body(Body.COPY, segmentLength, 2);
+        }
+    }
+
+    @Override
+    void onCaptured(byte[] app1, Output out) {
+        int found = exifOrientation(app1);
+        if (found < 1 || found > 8 || orientation != 1) {
+            return;
+        }
+        orientation = found;
+        if (orientation != 1) {
+            out.write(minimalExif(orientation), 0, 36);
+        }
+    }
+
+    /**
+     * The EXIF orientation, 1 when the image has none.
+     */
+    int orientation() {
+        return orientation;
+    }
+
+    /**
+     * Orientations 5 to 8 turn the image on its side, so it displays with width and height
+     * swapped.
+     */
+    boolean rotated() {
+        return orientation >= 5;
+    }
+
+    private static boolean isDroppedMetadata(int code) {
+        return code == COM || (code > APP0 && code <= APP15 && code != APP2 && code != APP14);
+    }
+
+    private static boolean isFrameHeader(int code) {
+        return code >= 0xC0 && code <= 0xCF && code != 0xC4 && code != 0xC8 && code != 0xCC;
+    }
+
+    private static void writeMarker(Output out, int code) {
+        out.write(new byte[]{(byte) 0xFF, (byte) code}, 0, 2);
+    }
+
+    /**
+     * The orientation tag from IFD0 of an APP1 EXIF payload, or 0 when there is none.
+     */
+    static int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f'
+                || app1[4] != 0 || app1[5] != 0) {
+            return 0;
+        }
+        int tiff = 6;
+        boolean littleEndian = app1[tiff] == 'I' && app1[tiff + 1] == 'I';
+        if (!littleEndian && !(app1[tiff] == 'M' && app1[tiff + 1] == 'M')) {
+            return 0;
+        }
+        long ifd = tiff + read32(app1, tiff + 4, littleEndian);
+        if (ifd + 2 > app1.length) {
+            return 0;
+        }
+        int entries = read16(app1, (int) ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > app1.length) {
+                return 0;
+            }
+            if (read16(app1, entry, littleEndian) == ORIENTATION_TAG) {
+                return read16(app1, entry + 8, littleEndian);
+            }
+        }
+        return 0;
+    }
+
+    private static int read16(byte[] b, int i, boolean littleEndian) {
+        return littleEndian ? u16le(b, i) : u16be(b, i);
+    }
+
+    private static long read32(byte[] b, int i, boolean littleEndian) {
+        return littleEndian ? u32le(b, i) : u32be(b, i);
+    }
+
+    /**
+     * An APP1 segment holding nothing but the orientation: a big-endian TIFF header and an
+     * IFD0 with one SHORT entry.
+     */
+    static byte[] minimalExif(int orientation) {
+        return new byte[]{
+                (byte) 0xFF, (byte) APP1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+    }
+}
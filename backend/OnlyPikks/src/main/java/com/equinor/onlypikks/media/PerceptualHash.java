@@ -0,0 +1,53 @@
+package com.equinor.onlypikks.media;
+
+/**
+ * 64-bit difference hash (dHash): the image is shrunk to 9x8 grey cells and each bit says
+ * whether a cell is brighter than its right-hand neighbour. Resizing, recompression and small
+ * colour shifts flip few bits, so near-duplicates are a small Hamming distance apart.
+ */
+public final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(ImageSample sample) {
+        return dHash(sample.pixels(), sample.width(), sample.height());
+    }
+
+    static long dHash(int[] pixels, int width, int height) {
+        long[] cells = new long[COLUMNS * ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            int top = row * height / ROWS;
+            int bottom = Math.max(top + 1, (row + 1) * height / ROWS);
+            for (int column = 0; column < COLUMNS; column++) {
+                int left = column * width / COLUMNS;
+                int right = Math.max(left + 1, (column + 1) * width / COLUMNS);
+                long sum = 0;
+                for (int y = top; y < bottom; y++) {
+                    for (int x = left; x < right; x++) {
+                        int rgb = pixels[y * width + x];
+                        sum += 299L * ((rgb >> 16) & 0xff) + 587L * ((rgb >> 8) & 0xff) + 114L * (rgb & 0xff);
+                    }
+                }
+                cells[row * COLUMNS + column] = sum / ((long) (bottom - top) * (right - left));
+            }
+        }
+        long hash = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                hash <<= 1;
+                if (cells[row * COLUMNS + column] < cells[row * COLUMNS + column + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
@@ -0,0 +1,67 @@
+package com.equinor.onlypikks.media;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Reads the size from IHDR and drops the metadata chunks: EXIF, text and the modification
+ * time. Each chunk carries its own CRC, so removing whole chunks leaves the rest valid.
+ */
+final class PngParser extends ImageFormatParser {
+
+    private static final Set<String> DROPPED = Set.of("eXIf", "tEXt", "zTXt", "iTXt", "tIME");
+
+    private enum Step { SIGNATURE, CHUNK, IHDR }
+
+    private Step step = Step.SIGNATURE;
+    private long chunkLength;
+
+    PngParser() {
+        super(8);
+    }
+
+    @Override
+    String mimeType() {
+        return "image/png";
+    }
+
+    @Override
+    void onHeader(byte[] header, int length, Output out) {
+        switch (step) {
+            case SIGNATURE -> {
+                out.write(header, 0, 8);
+                step = Step.CHUNK;
+                next(8);
+            }
+            case CHUNK -> chunk(header, out);
+            case IHDR -> {
+                out.write(header, 0, 8);
+                width = (int) Math.min(u32be(header, 0), Integer.MAX_VALUE);
+                height = (int) Math.min(u32be(header, 4), Integer.MAX_VALUE);
+                step = Step.CHUNK;
+                body(Body.COPY, chunkLength - 8 + 4, 8);
+            }
+        }
+    }
+
+    private void chunk(byte[] header, Output out) {
+        chunkLength = u32be(header, 0);
+        String type = new String(header, 4, 4, StandardCharsets.ISO_8859_1);
+        if (chunkLength > Integer.MAX_VALUE) {
+            out.write(header, 0, 8);
+            passthrough();
+        } else if (DROPPED.contains(type)) {
+            body(Body.DROP, chunkLength + 4, 8);
+        } else if ("IHDR".equals(type) && chunkLength >= 8) {
+            out.write(header, 0, 8);
+            step = Step.IHDR;
+            next(8);
+        } else if ("IEND".equals(type)) {
+            out.write(header, 0, 8);
+            passthrough();
+        } else {
+            out.write(header, 0, 8);
+            body(Body.COPY, chunkLength + 4, 8);
+        }
+    }
+}
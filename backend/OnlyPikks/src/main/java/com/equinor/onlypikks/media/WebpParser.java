@@ -0,0 +1,103 @@
+package com.equinor.onlypikks.media;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the canvas size from VP8X, or the frame size from a simple lossy or lossless file.
+ * The RIFF header states the file size before any chunk arrives, so rather than removing
+ * EXIF and XMP chunks this renames them to {@code JUNK}, which readers skip, blanks their
+ * payload and clears their flags in VP8X. The file keeps its size and stays valid.
+ */
+final class WebpParser extends ImageFormatParser {
+
+    private static final byte[] JUNK = "JUNK".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int EXIF_FLAG = 0x08;
+    private static final int XMP_FLAG = 0x04;
+
+    private enum Step { RIFF, CHUNK, VP8X, VP8, VP8L }
+
+    private Step step = Step.RIFF;
+    private long paddedLength;
+
+    WebpParser() {
+        super(12);
+    }
+
+    @Override
+    String mimeType() {
+        return "image/webp";
+    }
+
+    @Override
+    void onHeader(byte[] header, int length, Output out) {
+        switch (step) {
+            case RIFF -> {
+                out.write(header, 0, 12);
+                step = Step.CHUNK;
+                next(8);
+            }
+            case CHUNK -> chunk(header, out);
+            case VP8X -> {
+                header[0] &= (byte) ~(EXIF_FLAG | XMP_FLAG);
+                out.write(header, 0, 10);
+                width = 1 + u24le(header, 4);
+                height = 1 + u24le(header, 7);
+                payload(10);
+            }
+            case VP8 -> {
+                out.write(header, 0, 10);
+                boolean keyFrame = (header[3] & 0xff) == 0x9d && (header[4] & 0xff) == 0x01
+                        && (header[5] & 0xff) == 0x2a;
+                if (keyFrame && width < 0) {
+                    width = u16le(header, 6) & 0x3fff;
+                    height = u16le(header, 8) & 0x3fff;
+                }
+                payload(10);
+            }
+            case VP8L -> {
+                out.write(header, 0, 5);
+                if ((header[0] & 0xff) == 0x2f && width < 0) {
+                    long bits = u32le(header, 1);
+                    width = (int) (bits & 0x3fff) + 1;
+                    height = (int) ((bits >> 14) & 0x3fff) + 1;
+                }
+                payload(5);
+            }
+        }
+    }
+
+    private void chunk(byte[] header, Output out) {
+        long size = u32le(header, 4);
+        paddedLength = size + (size & 1);
+        String type = new String(header, 0, 4, StandardCharsets.ISO_8859_1);
+        switch (type) {
+            case "VP8X" -> expect(header, out, Step.VP8X, 10);
+            case "VP8 " -> expect(header, out, Step.VP8, 10);
+            case "VP8L" -> expect(header, out, Step.VP8L, 5);
+            case "EXIF", "XMP " -> {
+                out.write(JUNK, 0, 4);
+                out.write(header, 4, 4);
+                body(Body.ZERO, paddedLength, 8);
+            }
+            default -> {
+                out.write(header, 0, 8);
+                body(Body.COPY, paddedLength, 8);
+            }
+        }
+    }
+
+    private void expect(byte[] header, Output out, Step payloadStep, int bytes) {
+        out.write(header, 0, 8);
+        if (paddedLength >= bytes) {
+            step = payloadStep;
+            next(bytes);
+        } else {
+            body(Body.COPY, paddedLength, 8);
+        }
+    }
+
+    private void payload(int consumed) {
+        step = Step.CHUNK;
+        body(Body.COPY, paddedLength - consumed, 8);
+    }
+}
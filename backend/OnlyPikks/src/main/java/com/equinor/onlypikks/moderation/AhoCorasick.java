@@ -0,0 +1,278 @@
+package com.equinor.onlypikks.moderation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds any of a fixed set of terms in a text with one left-to-right pass, however many terms
+ * there are (Aho-Corasick). Matching ignores case and treats any run of whitespace as a single
+ * space; a term only matches as whole words, so "ass" does not match in "class".
+ *
+ * <p>Immutable once compiled and safe to share between threads. States are numbered breadth
+ * first with their children side by side, so the whole automaton is a handful of flat arrays
+ * of about ten bytes per state rather than a map per state.
+ */
+public final class AhoCorasick {
+
+    private static final int ASCII = 128;
+    private static final AhoCorasick EMPTY = compile(List.of());
+
+    private final String[] terms;
+    private final int[] termLengths;
+    // Per state: the term ending there or -1, the failure link and the nearest state on the
+    // failure chain that ends a term (0 for none; the root never does).
+    private final int[] output;
+    private final int[] failure;
+    private final int[] dictionaryLink;
+    // The children of state s are the states childrenStart[s] until childrenStart[s + 1],
+    // sorted by the character leading to them.
+    private final int[] childrenStart;
+    private final char[] labels;
+    // Complete ASCII rows, failures already followed, for the root and its children: the
+    // states mismatches fall back to most, so most characters take a single array read.
+    private final int denseStates;
+    private final int[] dense;
+
+    private AhoCorasick(String[] terms, int[] output, int[] failure, int[] dictionaryLink,
+                        int[] childrenStart, char[] labels) {
+        this.terms = terms;
+        this.termLengths = Arrays.stream(terms).mapToInt(String::length).toArray();
+        this.output = output;
+        this.failure = failure;
+        this.dictionaryLink = dictionaryLink;
+        this.childrenStart = childrenStart;
+        this.labels = labels;
+        this.denseStates = childrenStart[1];
+        this.dense = new int[denseStates * ASCII];
+    }
+
+    public static AhoCorasick empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the automaton; terms are folded like scanned text, and blank or duplicate terms
+     * are ignored.
+     */
+    public static AhoCorasick compile(Collection<String> terms) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String term : terms) {
+            char[] folded = new char[term.length()];
+            int length = fold(term, folded);
+            if (length > 0 && folded[length - 1] == ' ') {
+                length--;
+            }
+            if (length > 0) {
+                distinct.add(new String(folded, 0, length));
+            }
+        }
+        String[] unique = distinct.toArray(String[]::new);
+
+        // The trie, as first-child / next-sibling lists while it is being built.
+        int capacity = 1 + distinct.stream().mapToInt(String::length).sum();
+        char[] label = new char[capacity];
+        int[] firstChild = new int[capacity];
+        int[] nextSibling = new int[capacity];
+        int[] termAt = new int[capacity];
+        Arrays.fill(termAt, -1);
+        int states = 1;
+        for (int index = 0; index < unique.length; index++) {
+            String term = unique[index];
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                int child = firstChild[state];
+                while (child != 0 && label[child] != c) {
+                    child = nextSibling[child];
+                }
+                if (child == 0) {
+                    child = states++;
+                    label[child] = c;
+                    nextSibling[child] = firstChild[state];
+                    firstChild[state] = child;
+                }
+                state = child;
+            }
+            termAt[state] = index;
+        }
+
+        // Renumber breadth first with each state's children side by side, sorted by character:
+        // a transition is then a binary search in a short run of labels, and the shallow states
+        // every scan keeps returning to sit together in memory.
+        int[] order = new int[states];
+        int[] childrenStart = new int[states + 1];
+        char[] labels = new char[states];
+        int[] output = new int[states];
+        int next = 1;
+        for (int head = 0; head < states; head++) {
+            int old = order[head];
+            childrenStart[head] = next;
+            int first = next;
+            for (int child = firstChild[old]; child != 0; child = nextSibling[child]) {
+                order[next] = child;
+                next++;
+            }
+            sortByLabel(order, label, first, next);
+            for (int i = first; i < next; i++) {
+                labels[i] = label[order[i]];
+            }
+            output[head] = termAt[old];
+        }
+        childrenStart[states] = next;
+
+        int[] failure = new int[states];
+        int[] dictionaryLink = new int[states];
+        AhoCorasick automaton = new AhoCorasick(unique, output, failure, dictionaryLink, childrenStart, labels);
+        // Children of the root fall back to it; breadth-first order means every shorter suffix
+        // state already has its links by the time a deeper one needs them.
+        for (int state = 1; state < states; state++) {
+            for (int child = childrenStart[state]; child < childrenStart[state + 1]; child++) {
+                char c = labels[child];
+                int fallback = failure[state];
+                int target = automaton.transition(fallback, c);
+                while (target < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                    target = automaton.transition(fallback, c);
+                }
+                failure[child] = Math.max(target, 0);
+                int link = failure[child];
+                dictionaryLink[child] = output[link] >= 0 ? link : dictionaryLink[link];
+            }
+        }
+        for (int state = 0; state < automaton.denseStates; state++) {
+            for (char c = 0; c < ASCII; c++) {
+                int target = automaton.transition(state, c);
+                if (target < 0) {
+                    // The root's row is complete by now, and every child fails back to it.
+                    target = state == 0 ? 0 : automaton.dense[c];
+                }
+                automaton.dense[state * ASCII + c] = target;
+            }
+        }
+        return automaton;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * The first term, by where it ends, found as whole words in {@code text}.
+     */
+    public Optional<String> findFirst(CharSequence text) {
+        return Optional.ofNullable(scan(text, null));
+    }
+
+    /**
+     * Every term found as whole words in {@code text}, in the order they end.
+     */
+    public List<String> findAll(CharSequence text) {
+        List<String> found = new ArrayList<>();
+        scan(text, found);
+        return found;
+    }
+
+    /**
+     * Runs the automaton over the folded text, stopping at the first match unless every
+     * match is to be collected into {@code found}.
+     */
+    private String scan(CharSequence text, List<String> found) {
+        if (terms.length == 0 || text == null) {
+            return null;
+        }
+        char[] folded = new char[text.length()];
+        int length = fold(text, folded);
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = folded[i];
+            while (true) {
+                if (state < denseStates && c < ASCII) {
+                    state = dense[state * ASCII + c];
+                    break;
+                }
+                int next = transition(state, c);
+                if (next >= 0) {
+                    state = next;
+                    break;
+                }
+                if (state == 0) {
+                    break;
+                }
+                state = failure[state];
+            }
+            for (int match = output[state] >= 0 ? state : dictionaryLink[state]; match != 0;
+                 match = dictionaryLink[match]) {
+                int term = output[match];
+                int start = i - termLengths[term] + 1;
+                if (isBoundary(folded, length, start - 1) && isBoundary(folded, length, i + 1)) {
+                    if (found == null) {
+                        return terms[term];
+                    }
+                    found.add(terms[term]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lower-cases {@code text} into {@code target}, collapsing whitespace runs into one space
+     * and dropping leading whitespace, and returns the folded length.
+     */
+    static int fold(CharSequence text, char[] target) {
+        int length = 0;
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    target[length++] = ' ';
+                    space = true;
+                }
+            } else {
+                target[length++] = Character.toLowerCase(c);
+                space = false;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isBoundary(char[] text, int length, int position) {
+        return position < 0 || position >= length || !Character.isLetterOrDigit(text[position]);
+    }
+
+    private int transition(int state, char c) {
+        int low = childrenStart[state];
+        int high = childrenStart[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = labels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static void sortByLabel(int[] states, char[] label, int from, int to) {
+        // Insertion sort: runs are at most one alphabet long and mostly short.
+        for (int i = from + 1; i < to; i++) {
+            int state = states[i];
+            int j = i - 1;
+            while (j >= from && label[states[j]] > label[state]) {
+                states[j + 1] = states[j];
+                j--;
+            }
+            states[j + 1] = state;
+        }
+    }
+}
@@ -1,20 +1,71 @@
 package com.equinor.onlypikks.repository;
 
 import com.equinor.onlypikks.repository.entity.CommentEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<CommentEntity, String> {
 
-    List<CommentEntity> findByPostIdOrderByCreatedAtAsc(String postId);
+    @Query("select c from CommentEntity c where c.postId = :postId order by c.createdAt asc, c.id asc")
+    List<CommentEntity> findPageByPostId(@Param("postId") String postId, Pageable pageable);
+
+    @Query("select c from CommentEntity c where c.postId = :postId "
+            + "and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id)) "
+            + "order by c.createdAt asc, c.id asc")
+    List<CommentEntity> findPageByPostIdAfter(
+            @Param("postId") String postId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") String id,
+            Pageable pageable
+    );
+
+    @Query("select c from CommentEntity c where c.parentId = :parentId order by c.createdAt asc, c.id asc")
+    List<CommentEntity> findPageByParentId(@Param("parentId") String parentId, Pageable pageable);
+
+    @Query("select c from CommentEntity c where c.parentId = :parentId "
+            + "and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id)) "
+            + "order by c.createdAt asc, c.id asc")
+    List<CommentEntity> findPageByParentIdAfter(
+            @Param("parentId") String parentId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") String id,
+            Pageable pageable
+    );
 
     List<CommentEntity> findTop3ByPostIdOrderByCreatedAtDesc(String postId);
 
+    /**
+     * The newest {@code limit} comments of each post, for many posts in one statement.
+     */
+    @Query(value = "select r.id, r.post_id, r.parent_id, r.author_id, r.author_display_name, r.text, "
+            + "r.created_at, r.updated_at, r.reply_count from ("
+            + "select c.*, row_number() over (partition by c.post_id order by c.created_at desc, c.id desc) as rn "
+            + "from comments c where c.post_id in (:postIds)) r "
+            + "where r.rn <= :limit order by r.post_id, r.created_at desc, r.id desc",
+            nativeQuery = true)
+    List<CommentEntity> findLatestByPostIds(@Param("postIds") Collection<String> postIds, @Param("limit") int limit);
+
     long countByPostId(String postId);
 
+    @Modifying(flushAutomatically = true)
+    @Query("update CommentEntity c set c.replyCount = c.replyCount + :delta where c.id = :id")
+    int adjustReplyCount(@Param("id") String id, @Param("delta") long delta);
+
     Optional<CommentEntity> findByIdAndPostId(String id, String postId);
 
-    void deleteByPostId(String postId);
+    @Modifying(flushAutomatically = true)
+    @Query("delete from CommentEntity c where c.postId = :postId")
+    int deleteByPostId(@Param("postId") String postId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from CommentEntity c where c.parentId = :parentId")
+    int deleteByParentId(@Param("parentId") String parentId);
 }
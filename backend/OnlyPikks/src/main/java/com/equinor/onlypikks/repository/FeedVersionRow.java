@@ -0,0 +1,8 @@
+package com.equinor.onlypikks.repository;
+
+public interface FeedVersionRow {
+
+    String getId();
+
+    long getVersion();
+}
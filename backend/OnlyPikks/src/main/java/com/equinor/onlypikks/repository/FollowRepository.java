@@ -0,0 +1,60 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.repository.entity.FollowEntity;
+import com.equinor.onlypikks.repository.entity.FollowId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface FollowRepository extends JpaRepository<FollowEntity, FollowId> {
+
+    /**
+     * Adds the follow unless it exists. Two concurrent calls may both insert, and the one that
+     * commits second then fails on the primary key.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into follows (follower_id, followee_id, created_at) "
+            + "select :followerId, :followeeId, :createdAt where not exists ("
+            + "select 1 from follows where follower_id = :followerId and followee_id = :followeeId)",
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("followerId") String followerId,
+            @Param("followeeId") String followeeId,
+            @Param("createdAt") Instant createdAt
+    );
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from FollowEntity f where f.id.followerId = :followerId and f.id.followeeId = :followeeId")
+    int deleteFollow(@Param("followerId") String followerId, @Param("followeeId") String followeeId);
+
+    /**
+     * Creates the owner's follower count row if it does not exist yet, for
+     * {@link #adjustFollowerCount} to update.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into follower_counts (user_id, follower_count) select :userId, 0 "
+            + "where not exists (select 1 from follower_counts where user_id = :userId)", nativeQuery = true)
+    int createFollowerCount(@Param("userId") String userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update follower_counts set follower_count = follower_count + :delta where user_id = :userId",
+            nativeQuery = true)
+    int adjustFollowerCount(@Param("userId") String userId, @Param("delta") long delta);
+
+    @Query(value = "select follower_count from follower_counts where user_id = :userId", nativeQuery = true)
+    Optional<Long> findFollowerCount(@Param("userId") String userId);
+
+    default boolean hasMoreFollowersThan(String ownerId, int limit) {
+        return findFollowerCount(ownerId).orElse(0L) > limit;
+    }
+
+    @Query(value = "select f.followee_id from follows f "
+            + "join follower_counts c on c.user_id = f.followee_id "
+            + "where f.follower_id = :followerId and c.follower_count > :limit", nativeQuery = true)
+    List<String> findFolloweesWithMoreFollowersThan(@Param("followerId") String followerId, @Param("limit") int limit);
+}
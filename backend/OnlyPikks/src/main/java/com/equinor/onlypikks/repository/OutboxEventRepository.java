@@ -0,0 +1,67 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Plain insert; outbox rows are never read back in the transaction that writes them.
+     */
+    @Modifying
+    @Query(value = "insert into outbox_events (id, event_type, aggregate_id, payload, created_at, available_at, attempts) "
+            + "values (:id, :eventType, :aggregateId, :payload, :createdAt, :createdAt, 0)",
+            nativeQuery = true)
+    int enqueue(
+            @Param("id") long id,
+            @Param("eventType") String eventType,
+            @Param("aggregateId") String aggregateId,
+            @Param("payload") String payload,
+            @Param("createdAt") Instant createdAt
+    );
+
+    /**
+     * Locks the oldest due events. Rows another dispatcher has locked are skipped rather than
+     * waited for, so concurrent dispatchers claim disjoint batches.
+     */
+    @Query(value = "select * from outbox_events "
+            + "where processed_at is null and available_at <= :now and attempts < :maxAttempts "
+            + "order by available_at, id fetch first :limit rows only for update skip locked",
+            nativeQuery = true)
+    List<OutboxEventEntity> lockDue(
+            @Param("now") Instant now,
+            @Param("maxAttempts") int maxAttempts,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Hides claimed events from other dispatchers until the lease runs out. A dispatcher that
+     * dies mid-batch leaves its events to be claimed again after the lease.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OutboxEventEntity e set e.availableAt = :leaseUntil where e.id in :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update OutboxEventEntity e set e.processedAt = :processedAt, e.lastError = null where e.id = :id")
+    int markProcessed(@Param("id") long id, @Param("processedAt") Instant processedAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update OutboxEventEntity e set e.attempts = e.attempts + 1, e.availableAt = :retryAt, "
+            + "e.lastError = :error where e.id = :id")
+    int markFailed(@Param("id") long id, @Param("retryAt") Instant retryAt, @Param("error") String error);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from OutboxEventEntity e where e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+
+    @Query("select count(e) from OutboxEventEntity e where e.processedAt is null and e.attempts < :maxAttempts")
+    long countPending(@Param("maxAttempts") int maxAttempts);
+}
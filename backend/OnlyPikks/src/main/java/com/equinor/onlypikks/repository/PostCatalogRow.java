@@ -0,0 +1,20 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+
+import java.time.Instant;
+
+public interface PostCatalogRow {
+
+    String getId();
+
+    Instant getCreatedAt();
+
+    String getOwnerId();
+
+    PostVisibility getVisibility();
+
+    long getLikeCount();
+
+    long getCommentCount();
+}
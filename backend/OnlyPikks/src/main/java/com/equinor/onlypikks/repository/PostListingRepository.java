@@ -0,0 +1,27 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Listing queries that select only the requested post columns, for sparse field sets.
+ */
+public interface PostListingRepository {
+
+    /**
+     * Newest-first page of posts as attribute-to-value maps holding just {@code attributes}.
+     */
+    List<Map<String, Object>> findListingColumns(
+            Collection<String> attributes,
+            Optional<String> ownerId,
+            Collection<PostVisibility> visibilities,
+            int offset,
+            int limit
+    );
+
+    long countListing(Optional<String> ownerId, Collection<PostVisibility> visibilities);
+}
@@ -0,0 +1,80 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class PostListingRepositoryImpl implements PostListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findListingColumns(
+            Collection<String> attributes,
+            Optional<String> ownerId,
+            Collection<PostVisibility> visibilities,
+            int offset,
+            int limit
+    ) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<PostEntity> post = query.from(PostEntity.class);
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        for (String attribute : attributes) {
+            selections.add(post.get(attribute).alias(attribute));
+        }
+        query.multiselect(selections)
+                .where(filters(builder, post, ownerId, visibilities))
+                .orderBy(builder.desc(post.get("createdAt")), builder.asc(post.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new HashMap<>(attributes.size() * 2);
+            for (String attribute : attributes) {
+                values.put(attribute, row.get(attribute));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    @Override
+    public long countListing(Optional<String> ownerId, Collection<PostVisibility> visibilities) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<PostEntity> post = query.from(PostEntity.class);
+        query.select(builder.count(post)).where(filters(builder, post, ownerId, visibilities));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] filters(
+            CriteriaBuilder builder,
+            Root<PostEntity> post,
+            Optional<String> ownerId,
+            Collection<PostVisibility> visibilities
+    ) {
+        List<Predicate> predicates = new ArrayList<>(2);
+        predicates.add(post.get("visibility").in(visibilities));
+        ownerId.ifPresent(owner -> predicates.add(builder.equal(post.get("ownerId"), owner)));
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -1,7 +1,87 @@
 package com.equinor.onlypikks.repository;
 
+import com.equinor.onlypikks.api.model.PostVisibility;
 import com.equinor.onlypikks.repository.entity.PostEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface PostRepository extends JpaRepository<PostEntity, String> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PostRepository extends JpaRepository<PostEntity, String>, PostListingRepository {
+
+    List<PostEntity> findByVisibility(PostVisibility visibility, Pageable pageable);
+
+    long countByVisibility(PostVisibility visibility);
+
+    List<PostEntity> findByOwnerIdInAndVisibility(Collection<String> ownerIds, PostVisibility visibility, Pageable pageable);
+
+    long countByOwnerIdInAndVisibility(Collection<String> ownerIds, PostVisibility visibility);
+
+    @Query("select t as tag, count(p) as count from PostEntity p join p.tags t "
+            + "where p.visibility = :visibility group by t")
+    List<TagCount> countTagsByVisibility(@Param("visibility") PostVisibility visibility);
+
+    @Query("select p.visibility as visibility, p.ownerId as ownerId, p.updatedAt as updatedAt, "
+            + "p.commentCount as commentCount "
+            + "from PostEntity p where p.id = :id")
+    Optional<PostVersion> findVersionById(@Param("id") String id);
+
+    @Query("select p.id as postId, t as tag from PostEntity p join p.tags t where p.id in :postIds")
+    List<PostTag> findTagsByPostIds(@Param("postIds") Collection<String> postIds);
+
+    /**
+     * One keyset page, in id order, of the text the in-memory search indexes are built from.
+     */
+    @Query("select p.id as id, p.title as title, p.ownerDisplayName as ownerDisplayName from PostEntity p "
+            + "where p.visibility = :visibility and p.id > :after order by p.id")
+    List<PostText> findTextsAfter(
+            @Param("visibility") PostVisibility visibility,
+            @Param("after") String after,
+            Pageable pageable
+    );
+
+    @Query("select p.id as id, p.title as title, p.ownerDisplayName as ownerDisplayName from PostEntity p "
+            + "where p.visibility = :visibility and p.id in :ids")
+    List<PostText> findTextsByIds(@Param("visibility") PostVisibility visibility, @Param("ids") Collection<String> ids);
+
+    @Query("select p.id as postId, p.perceptualHash as perceptualHash from PostEntity p "
+            + "where p.perceptualHash is not null")
+    List<PostImageHash> findImageHashes();
+
+    @Query("select p.id as id, p.createdAt as createdAt, p.ownerId as ownerId, p.visibility as visibility, "
+            + "p.likeCount as likeCount, p.commentCount as commentCount from PostEntity p")
+    List<PostCatalogRow> findCatalogRows();
+
+    @Query("select p.id from PostEntity p")
+    List<String> findAllIds();
+
+    /**
+     * Adds {@code delta} in place, so concurrent comments on a post neither count the table
+     * nor overwrite each other's count.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update PostEntity p set p.commentCount = p.commentCount + :delta where p.id = :id")
+    int adjustCommentCount(@Param("id") String id, @Param("delta") long delta);
+
+    @Query("select p.commentCount from PostEntity p where p.id = :id")
+    long findCommentCount(@Param("id") String id);
+
+    /**
+     * Bumps the version of the feed of one visibility. Runs as the last statements of a
+     * write, so every write locks its rows before the counter rows.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update feed_versions set version = version + 1 where id = :feed", nativeQuery = true)
+    void incrementFeedVersion(@Param("feed") String feed);
+
+    @Query(value = "select version from feed_versions where id = :feed", nativeQuery = true)
+    long findFeedVersion(@Param("feed") String feed);
+
+    @Query(value = "select id, version from feed_versions", nativeQuery = true)
+    List<FeedVersionRow> findFeedVersions();
 }
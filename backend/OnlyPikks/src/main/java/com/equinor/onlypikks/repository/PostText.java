@@ -0,0 +1,10 @@
+package com.equinor.onlypikks.repository;
+
+public interface PostText {
+
+    String getId();
+
+    String getTitle();
+
+    String getOwnerDisplayName();
+}
@@ -0,0 +1,16 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+
+import java.time.Instant;
+
+public interface PostVersion {
+
+    PostVisibility getVisibility();
+
+    String getOwnerId();
+
+    Instant getUpdatedAt();
+
+    long getCommentCount();
+}
@@ -0,0 +1,8 @@
+package com.equinor.onlypikks.repository;
+
+public interface TagCount {
+
+    String getTag();
+
+    long getCount();
+}
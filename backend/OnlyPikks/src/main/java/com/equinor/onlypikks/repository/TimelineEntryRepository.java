@@ -0,0 +1,106 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.repository.entity.TimelineEntryEntity;
+import com.equinor.onlypikks.repository.entity.TimelineEntryId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntryEntity, TimelineEntryId> {
+
+    /**
+     * Copies a post into the timeline of every follower of its owner in one statement, so
+     * the database does the fan-out without streaming follower ids through the application.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into timeline_entries (user_id, post_id, owner_id, created_at) "
+            + "select f.follower_id, :postId, :ownerId, :createdAt from follows f "
+            + "where f.followee_id = :ownerId and not exists ("
+            + "select 1 from timeline_entries t where t.user_id = f.follower_id and t.post_id = :postId)",
+            nativeQuery = true)
+    int fanOut(@Param("postId") String postId, @Param("ownerId") String ownerId, @Param("createdAt") Instant createdAt);
+
+    /**
+     * Seeds a new follower's timeline with the owner's most recent public posts.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into timeline_entries (user_id, post_id, owner_id, created_at) "
+            + "select :userId, p.id, p.owner_id, p.created_at from posts p "
+            + "where p.owner_id = :ownerId and p.visibility = 'PUBLIC' and not exists ("
+            + "select 1 from timeline_entries t where t.user_id = :userId and t.post_id = p.id) "
+            + "order by p.created_at desc fetch first :limit rows only",
+            nativeQuery = true)
+    int backfill(@Param("userId") String userId, @Param("ownerId") String ownerId, @Param("limit") int limit);
+
+    @Query("select e from TimelineEntryEntity e where e.id.userId = :userId "
+            + "order by e.createdAt desc, e.id.postId desc")
+    List<TimelineEntryEntity> findNewest(@Param("userId") String userId, Pageable pageable);
+
+    @Query("select count(e) from TimelineEntryEntity e where e.id.userId = :userId")
+    long countByUserId(@Param("userId") String userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from TimelineEntryEntity e where e.id.userId = :userId and e.ownerId = :ownerId")
+    int deleteByUserIdAndOwnerId(@Param("userId") String userId, @Param("ownerId") String ownerId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from TimelineEntryEntity e where e.id.postId = :postId")
+    int deleteByPostId(@Param("postId") String postId);
+
+    /**
+     * Trims one timeline to its newest {@code capacity} entries.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "delete from timeline_entries where user_id = :userId and post_id in ("
+            + "select ranked.post_id from ("
+            + "select t.post_id, row_number() over (order by t.created_at desc, t.post_id desc) as position "
+            + "from timeline_entries t where t.user_id = :userId) ranked "
+            + "where ranked.position > :capacity)",
+            nativeQuery = true)
+    int trim(@Param("userId") String userId, @Param("capacity") int capacity);
+
+    /**
+     * Creates the user's timeline size row if it does not exist yet.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into timeline_sizes (user_id, entry_count) select :userId, 0 "
+            + "where not exists (select 1 from timeline_sizes where user_id = :userId)", nativeQuery = true)
+    int createSize(@Param("userId") String userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update timeline_sizes set entry_count = entry_count + :delta where user_id = :userId",
+            nativeQuery = true)
+    int adjustSize(@Param("userId") String userId, @Param("delta") long delta);
+
+    /**
+     * Counts a fan-out's entry for every follower of the owner. A redelivered fan-out that
+     * added to only some of them overcounts the rest, which just trims them a little early.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update timeline_sizes set entry_count = entry_count + 1 "
+            + "where user_id in (select follower_id from follows where followee_id = :ownerId)",
+            nativeQuery = true)
+    int growFollowersOf(@Param("ownerId") String ownerId);
+
+    @Query(value = "select s.user_id from timeline_sizes s join follows f on f.follower_id = s.user_id "
+            + "where f.followee_id = :ownerId and s.entry_count > :threshold", nativeQuery = true)
+    List<String> findFollowersOfWithMoreEntriesThan(@Param("ownerId") String ownerId, @Param("threshold") int threshold);
+
+    @Query(value = "select entry_count from timeline_sizes where user_id = :userId", nativeQuery = true)
+    Optional<Long> findSize(@Param("userId") String userId);
+
+    /**
+     * Sets the stored size to the number of entries, after a trim.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update timeline_sizes set entry_count = ("
+            + "select count(*) from timeline_entries t where t.user_id = :userId) where user_id = :userId",
+            nativeQuery = true)
+    int recountSize(@Param("userId") String userId);
+}
@@ -3,13 +3,21 @@ package com.equinor.onlypikks.repository.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
 @Entity
-@Table(name = "comments")
-public class CommentEntity {
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_created_at_id", columnList = "post_id, created_at, id"),
+        @Index(name = "idx_comments_parent_created_at_id", columnList = "parent_id, created_at, id")
+})
+public class CommentEntity implements Persistable<String> {
 
     @Id
     @Column(name = "id", nullable = false, updatable = false)
@@ -18,6 +26,9 @@ public class CommentEntity {
     @Column(name = "post_id", nullable = false)
     private String postId;
 
+    @Column(name = "parent_id")
+    private String parentId;
+
     @Column(name = "author_id", nullable = false)
     private String authorId;
 
@@ -33,12 +44,19 @@ public class CommentEntity {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Column(name = "reply_count", nullable = false)
+    private long replyCount;
+
+    @Transient
+    private boolean isNew = true;
+
     public CommentEntity() {
     }
 
     public CommentEntity(
             String id,
             String postId,
+            String parentId,
             String authorId,
             String authorDisplayName,
             String text,
@@ -47,6 +65,7 @@ public class CommentEntity {
     ) {
         this.id = id;
         this.postId = postId;
+        this.parentId = parentId;
         this.authorId = authorId;
         this.authorDisplayName = authorDisplayName;
         this.text = text;
@@ -70,6 +89,14 @@ public class CommentEntity {
         this.postId = postId;
     }
 
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
     public String getAuthorId() {
         return authorId;
     }
@@ -109,4 +136,23 @@ public class CommentEntity {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public long getReplyCount() {
+        return replyCount;
+    }
+
+    public void setReplyCount(long replyCount) {
+        this.replyCount = replyCount;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
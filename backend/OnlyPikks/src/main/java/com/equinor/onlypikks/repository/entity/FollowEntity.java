@@ -0,0 +1,57 @@
+package com.equinor.onlypikks.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "follows", indexes = {
+        @Index(name = "idx_follows_followee", columnList = "followee_id, follower_id")
+})
+public class FollowEntity implements Persistable<FollowId> {
+
+    @EmbeddedId
+    private FollowId id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public FollowEntity() {
+    }
+
+    public FollowEntity(FollowId id, Instant createdAt) {
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public FollowId getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
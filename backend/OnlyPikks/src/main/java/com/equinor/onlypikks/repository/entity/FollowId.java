@@ -0,0 +1,49 @@
+package com.equinor.onlypikks.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class FollowId implements Serializable {
+
+    @Column(name = "follower_id", nullable = false, updatable = false)
+    private String followerId;
+
+    @Column(name = "followee_id", nullable = false, updatable = false)
+    private String followeeId;
+
+    public FollowId() {
+    }
+
+    public FollowId(String followerId, String followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public String getFollowerId() {
+        return followerId;
+    }
+
+    public String getFolloweeId() {
+        return followeeId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FollowId that)) {
+            return false;
+        }
+        return Objects.equals(followerId, that.followerId) && Objects.equals(followeeId, that.followeeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followerId, followeeId);
+    }
+}
@@ -9,16 +9,25 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
-public class PostEntity {
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_at", columnList = "created_at"),
+        @Index(name = "idx_posts_owner_created_at", columnList = "owner_id, created_at"),
+        @Index(name = "idx_posts_visibility_created_at", columnList = "visibility, created_at")
+})
+public class PostEntity implements Persistable<String> {
 
     @Id
     @Column(name = "id", nullable = false, updatable = false)
@@ -31,7 +40,14 @@ public class PostEntity {
     private String description;
 
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "post_tags", joinColumns = @JoinColumn(name = "post_id"))
+    @CollectionTable(
+            name = "post_tags",
+            joinColumns = @JoinColumn(name = "post_id"),
+            indexes = {
+                    @Index(name = "idx_post_tags_post_id", columnList = "post_id"),
+                    @Index(name = "idx_post_tags_tag_post_id", columnList = "tag, post_id")
+            }
+    )
     @Column(name = "tag", nullable = false)
     private List<String> tags = new ArrayList<>();
 
@@ -60,6 +76,21 @@ public class PostEntity {
     @Column(name = "file_size_bytes", nullable = false)
     private long fileSizeBytes;
 
+    @Column(name = "mime_type")
+    private String mimeType;
+
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "placeholder")
+    private String placeholder;
+
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -72,6 +103,9 @@ public class PostEntity {
     @Column(name = "like_count", nullable = false)
     private long likeCount;
 
+    @Transient
+    private boolean isNew = true;
+
     public PostEntity() {
     }
 
@@ -207,6 +241,46 @@ public class PostEntity {
         this.fileSizeBytes = fileSizeBytes;
     }
 
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    public Long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    public void setPerceptualHash(Long perceptualHash) {
+        this.perceptualHash = perceptualHash;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -238,4 +312,15 @@ public class PostEntity {
     public void setLikeCount(long likeCount) {
         this.likeCount = likeCount;
     }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
@@ -0,0 +1,48 @@
+package com.equinor.onlypikks.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "timeline_entries", indexes = {
+        @Index(name = "idx_timeline_user_created_at", columnList = "user_id, created_at"),
+        @Index(name = "idx_timeline_user_owner", columnList = "user_id, owner_id"),
+        @Index(name = "idx_timeline_post", columnList = "post_id")
+})
+public class TimelineEntryEntity {
+
+    @EmbeddedId
+    private TimelineEntryId id;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public TimelineEntryEntity() {
+    }
+
+    public TimelineEntryEntity(TimelineEntryId id, String ownerId, Instant createdAt) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.createdAt = createdAt;
+    }
+
+    public TimelineEntryId getId() {
+        return id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.equinor.onlypikks.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class TimelineEntryId implements Serializable {
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private String userId;
+
+    @Column(name = "post_id", nullable = false, updatable = false)
+    private String postId;
+
+    public TimelineEntryId() {
+    }
+
+    public TimelineEntryId(String userId, String postId) {
+        this.userId = userId;
+        this.postId = postId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getPostId() {
+        return postId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TimelineEntryId that)) {
+            return false;
+        }
+        return Objects.equals(userId, that.userId) && Objects.equals(postId, that.postId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, postId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The feed versions an in-memory copy holding posts of every visibility reflects: one
+ * {@link AppliedVersions} per visibility, as each has its own counter.
+ */
+final class AppliedFeedVersions {
+
+    private final Map<PostVisibility, AppliedVersions> feeds = new EnumMap<>(PostVisibility.class);
+
+    AppliedFeedVersions() {
+        for (PostVisibility feed : PostVisibility.values()) {
+            feeds.put(feed, new AppliedVersions());
+        }
+    }
+
+    Map<PostVisibility, Long> current() {
+        Map<PostVisibility, Long> versions = new EnumMap<>(PostVisibility.class);
+        feeds.forEach((feed, applied) -> versions.put(feed, applied.current()));
+        return versions;
+    }
+
+    long current(PostVisibility feed) {
+        return feeds.get(feed).current();
+    }
+
+    void reset(Map<PostVisibility, Long> versions) {
+        feeds.forEach((feed, applied) -> applied.reset(versions.getOrDefault(feed, -1L)));
+    }
+
+    void advance(PostVisibility feed, long version) {
+        feeds.get(feed).advance(version);
+    }
+}
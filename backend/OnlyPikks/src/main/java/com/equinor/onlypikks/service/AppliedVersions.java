@@ -0,0 +1,47 @@
+package com.equinor.onlypikks.service;
+
+import java.util.TreeSet;
+
+/**
+ * The database feed version an in-memory copy reflects. Set when the copy is rebuilt, then
+ * advanced by each local write once it has been applied, so that a staleness check only
+ * finds a difference, and rebuilds, when some write did not pass through this node.
+ *
+ * <p>Local writes commit, and so arrive here, in any order. A version more than one ahead is
+ * parked until the versions before it arrive; one that never does, because another replica
+ * wrote it, leaves the copy behind until the next rebuild.
+ */
+final class AppliedVersions {
+
+    // Beyond this, versions are parked in vain: a rebuild is due anyway.
+    private static final int MAX_PARKED = 64;
+
+    private final TreeSet<Long> parked = new TreeSet<>();
+    private volatile long current = -1;
+
+    long current() {
+        return current;
+    }
+
+    synchronized void reset(long version) {
+        parked.clear();
+        current = version;
+    }
+
+    synchronized void advance(long version) {
+        if (current < 0 || version <= current) {
+            return;
+        }
+        if (version != current + 1) {
+            if (parked.size() < MAX_PARKED) {
+                parked.add(version);
+            }
+            return;
+        }
+        long next = version;
+        while (parked.remove(next + 1)) {
+            next++;
+        }
+        current = next;
+    }
+}
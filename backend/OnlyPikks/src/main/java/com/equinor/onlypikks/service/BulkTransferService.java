@@ -0,0 +1,339 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.ExportRecord;
+import com.equinor.onlypikks.api.model.ExportedComment;
+import com.equinor.onlypikks.api.model.ExportedPost;
+import com.equinor.onlypikks.api.model.ImportProgressResponse;
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.PostRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export and import of posts and comments as NDJSON, one {@link ExportRecord} per line.
+ *
+ * <p>Both directions bypass the persistence context and keep memory constant: the export
+ * reads through forward-only JDBC cursors with a fetch size, and the import parses line by
+ * line, writing JDBC batches that are committed every {@link #IMPORT_CHUNK_SIZE} records.
+ */
+@Service
+public class BulkTransferService {
+
+    static final int FETCH_SIZE = 500;
+    static final int IMPORT_CHUNK_SIZE = 1_000;
+
+    private static final String SELECT_POSTS = "select id, title, description, visibility, owner_id, "
+            + "owner_display_name, file_id, file_url, thumbnail_url, original_file_name, file_size_bytes, "
+            + "mime_type, width, height, placeholder, perceptual_hash, created_at, updated_at, comment_count, "
+            + "like_count from posts order by id";
+    private static final String SELECT_TAGS = "select post_id, tag from post_tags where post_id in (:postIds)";
+    private static final String SELECT_COMMENTS = "select id, post_id, parent_id, author_id, author_display_name, "
+            + "text, created_at, updated_at, reply_count from comments order by post_id, created_at, id";
+    private static final String INSERT_POST = "insert into posts (id, title, description, visibility, owner_id, "
+            + "owner_display_name, file_id, file_url, thumbnail_url, original_file_name, file_size_bytes, "
+            + "mime_type, width, height, placeholder, perceptual_hash, created_at, updated_at, comment_count, "
+            + "like_count) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TAG = "insert into post_tags (post_id, tag) values (?, ?)";
+    private static final String INSERT_COMMENT = "insert into comments (id, post_id, parent_id, author_id, "
+            + "author_display_name, text, created_at, updated_at, reply_count) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String BUMP_FEED_VERSIONS = "update feed_versions set version = version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final PostRepository postRepository;
+    private final TagStatistics tagStatistics;
+    private final SimilarImageIndex similarImages;
+    private final TextIndexBuilder textIndexes;
+    private final PostCatalog catalog;
+    private final PostIdFilter postIdFilter;
+
+    public BulkTransferService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            PostRepository postRepository,
+            TagStatistics tagStatistics,
+            SimilarImageIndex similarImages,
+            TextIndexBuilder textIndexes,
+            PostCatalog catalog,
+            PostIdFilter postIdFilter
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // Cursor-based fetching needs an open transaction on PostgreSQL.
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writer = objectMapper.writerFor(ExportRecord.class);
+        this.reader = objectMapper.readerFor(ExportRecord.class);
+        this.postRepository = postRepository;
+        this.tagStatistics = tagStatistics;
+        this.similarImages = similarImages;
+        this.textIndexes = textIndexes;
+        this.catalog = catalog;
+        this.postIdFilter = postIdFilter;
+    }
+
+    /**
+     * Writes every post, followed by every comment. Tags are looked up per chunk of posts
+     * while the post cursor stays open.
+     */
+    public void export(OutputStream out) {
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<ExportedPost> posts = jdbcTemplate.queryForStream(SELECT_POSTS, BulkTransferService::mapPost)) {
+                Iterator<ExportedPost> iterator = posts.iterator();
+                List<ExportedPost> chunk = new ArrayList<>(FETCH_SIZE);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == FETCH_SIZE || !iterator.hasNext()) {
+                        writePostsWithTags(chunk, out);
+                        chunk.clear();
+                    }
+                }
+            }
+            try (Stream<ExportedComment> comments = jdbcTemplate.queryForStream(SELECT_COMMENTS, BulkTransferService::mapComment)) {
+                comments.forEach(comment -> writeLine(comment, out));
+            }
+        });
+    }
+
+    /**
+     * Reads NDJSON records and inserts them in JDBC batches, committing each chunk on its
+     * own. Stops at the first malformed line or conflicting chunk and reports it in the final
+     * progress entry; chunks committed before that are kept.
+     */
+    public ImportProgressResponse importNdjson(InputStream in, Consumer<ImportProgressResponse> progress) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ExportedPost> posts = new ArrayList<>();
+        List<ExportedComment> comments = new ArrayList<>();
+        long lineNumber = 0;
+        long chunkStart = 1;
+        long importedPosts = 0;
+        long importedComments = 0;
+        String error = null;
+        try {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                switch (parse(line, lineNumber)) {
+                    case ExportedPost post -> posts.add(post);
+                    case ExportedComment comment -> comments.add(comment);
+                }
+                if (posts.size() + comments.size() >= IMPORT_CHUNK_SIZE) {
+                    insertChunk(posts, comments, chunkStart, lineNumber);
+                    importedPosts += posts.size();
+                    importedComments += comments.size();
+                    posts.clear();
+                    comments.clear();
+                    chunkStart = lineNumber + 1;
+                    progress.accept(new ImportProgressResponse(lineNumber, importedPosts, importedComments, false, null));
+                }
+            }
+            if (!posts.isEmpty() || !comments.isEmpty()) {
+                insertChunk(posts, comments, chunkStart, lineNumber);
+                importedPosts += posts.size();
+                importedComments += comments.size();
+            }
+        } catch (IllegalArgumentException ex) {
+            error = ex.getMessage();
+        }
+        if (importedPosts > 0) {
+            tagStatistics.reset(postRepository.countTagsByVisibility(PostVisibility.PUBLIC));
+            similarImages.reset(postRepository.findImageHashes());
+            textIndexes.rebuild();
+        }
+        if (importedPosts > 0 || importedComments > 0) {
+            // Imported comments move the counters too; the next listing rebuilds it.
+            catalog.invalidate();
+        }
+        return new ImportProgressResponse(lineNumber, importedPosts, importedComments, error == null, error);
+    }
+
+    private ExportRecord parse(String line, long lineNumber) {
+        try {
+            ExportRecord record = reader.readValue(line);
+            if (record == null || !StringUtils.hasText(record.id())) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has no id");
+            }
+            return record;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not a valid post or comment record", ex);
+        }
+    }
+
+    private void insertChunk(List<ExportedPost> posts, List<ExportedComment> comments, long firstLine, long lastLine) {
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                if (!posts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_POST, posts.stream().map(BulkTransferService::postRow).toList());
+                    List<Object[]> tagRows = new ArrayList<>();
+                    for (ExportedPost post : posts) {
+                        if (post.tags() != null) {
+                            post.tags().forEach(tag -> tagRows.add(new Object[]{post.id(), tag}));
+                        }
+                    }
+                    if (!tagRows.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_TAG, tagRows);
+                    }
+                }
+                if (!comments.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_COMMENT, comments.stream().map(BulkTransferService::commentRow).toList());
+                }
+                jdbcTemplate.update(BUMP_FEED_VERSIONS);
+            });
+            posts.forEach(post -> postIdFilter.add(post.id()));
+        } catch (DataIntegrityViolationException ex) {
+            throw new IllegalArgumentException("Lines " + firstLine + "-" + lastLine
+                    + " could not be imported: " + ex.getMostSpecificCause().getMessage(), ex);
+        }
+    }
+
+    private void writePostsWithTags(List<ExportedPost> posts, OutputStream out) {
+        Map<String, List<String>> tags = new HashMap<>();
+        namedJdbcTemplate.query(
+                SELECT_TAGS,
+                Map.of("postIds", posts.stream().map(ExportedPost::id).toList()),
+                (ResultSet rs) -> {
+                    tags.computeIfAbsent(rs.getString("post_id"), key -> new ArrayList<>()).add(rs.getString("tag"));
+                }
+        );
+        for (ExportedPost post : posts) {
+            writeLine(post.withTags(tags.getOrDefault(post.id(), List.of())), out);
+        }
+    }
+
+    private void writeLine(ExportRecord record, OutputStream out) {
+        try {
+            out.write(writer.writeValueAsBytes(record));
+            out.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static ExportedPost mapPost(ResultSet rs, int rowNum) throws SQLException {
+        return new ExportedPost(
+                rs.getString("id"),
+                rs.getString("title"),
+                rs.getString("description"),
+                List.of(),
+                PostVisibility.valueOf(rs.getString("visibility")),
+                rs.getString("owner_id"),
+                rs.getString("owner_display_name"),
+                rs.getString("file_id"),
+                rs.getString("file_url"),
+                rs.getString("thumbnail_url"),
+                rs.getString("original_file_name"),
+                rs.getLong("file_size_bytes"),
+                rs.getString("mime_type"),
+                rs.getObject("width", Integer.class),
+                rs.getObject("height", Integer.class),
+                rs.getString("placeholder"),
+                rs.getObject("perceptual_hash", Long.class),
+                instant(rs, "created_at"),
+                instant(rs, "updated_at"),
+                rs.getLong("comment_count"),
+                rs.getLong("like_count")
+        );
+    }
+
+    private static ExportedComment mapComment(ResultSet rs, int rowNum) throws SQLException {
+        return new ExportedComment(
+                rs.getString("id"),
+                rs.getString("post_id"),
+                rs.getString("parent_id"),
+                rs.getString("author_id"),
+                rs.getString("author_display_name"),
+                rs.getString("text"),
+                instant(rs, "created_at"),
+                instant(rs, "updated_at"),
+                rs.getLong("reply_count")
+        );
+    }
+
+    private static Object[] postRow(ExportedPost post) {
+        return new Object[]{
+                post.id(),
+                post.title(),
+                post.description(),
+                post.visibility() != null ? post.visibility().name() : null,
+                post.ownerId(),
+                post.ownerDisplayName(),
+                post.fileId(),
+                post.fileUrl(),
+                post.thumbnailUrl(),
+                post.originalFileName(),
+                post.fileSizeBytes(),
+                post.mimeType(),
+                post.width(),
+                post.height(),
+                post.placeholder(),
+                post.perceptualHash(),
+                timestamp(post.createdAt()),
+                timestamp(post.updatedAt()),
+                post.commentCount(),
+                post.likeCount()
+        };
+    }
+
+    private static Object[] commentRow(ExportedComment comment) {
+        return new Object[]{
+                comment.id(),
+                comment.postId(),
+                comment.parentId(),
+                comment.authorId(),
+                comment.authorDisplayName(),
+                comment.text(),
+                timestamp(comment.createdAt()),
+                timestamp(comment.updatedAt()),
+                comment.replyCount()
+        };
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
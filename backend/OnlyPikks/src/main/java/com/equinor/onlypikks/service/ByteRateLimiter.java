@@ -0,0 +1,40 @@
+package com.equinor.onlypikks.service;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+/**
+ * Paces a byte stream to a fixed rate, allowing up to one second's worth of bytes as a burst
+ * after a pause. Callers are served in the order they arrive; each waits for the bytes
+ * reserved before it.
+ */
+final class ByteRateLimiter {
+
+    private static final long BURST_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final double nanosPerByte;
+    private long nextFreeNanos;
+
+    ByteRateLimiter(long bytesPerSecond) {
+        this.nanosPerByte = 1_000_000_000.0 / bytesPerSecond;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    void acquire(int bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            nextFreeNanos = Math.max(nextFreeNanos, now - BURST_NANOS);
+            nextFreeNanos += (long) (bytes * nanosPerByte);
+            waitNanos = nextFreeNanos - now - BURST_NANOS;
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling an upload");
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.equinor.onlypikks.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The posts written while an index is rebuilt in the background. The rebuild reads the
+ * table page by page, so it re-reads these before swapping in what it loaded; a write is
+ * recorded before it touches the index, so none falls between the last re-read and the swap.
+ *
+ * <p>For indexes that apply a write as a difference, which must not be counted both in what
+ * the rebuild read and on top of it, writes instead bracket their commit with
+ * {@link #begin} and {@link #end}. The swap waits for writes in flight, so each is either
+ * re-read after it committed or applied to the swapped-in contents, never both.
+ */
+final class ChangesDuringRebuild {
+
+    // Null while no rebuild runs.
+    private Set<String> changed;
+    private int inFlight;
+
+    synchronized void start() {
+        changed = new HashSet<>();
+    }
+
+    synchronized void record(String postId) {
+        if (changed != null) {
+            changed.add(postId);
+        }
+    }
+
+    synchronized void begin(String postId) {
+        record(postId);
+        inFlight++;
+    }
+
+    synchronized void end(String postId) {
+        record(postId);
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * The posts recorded since the rebuild started or since the last call.
+     */
+    synchronized Set<String> drain() {
+        Set<String> drained = changed != null ? changed : Set.of();
+        changed = changed != null ? new HashSet<>() : null;
+        return drained;
+    }
+
+    /**
+     * Runs {@code swap} and ends the rebuild, unless posts were written since the last
+     * {@link #drain()}; the caller then re-reads those and tries again.
+     */
+    synchronized boolean finish(Runnable swap) {
+        while (inFlight > 0) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Rebuild interrupted");
+            }
+        }
+        if (changed != null && !changed.isEmpty()) {
+            return false;
+        }
+        swap.run();
+        changed = null;
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.entity.CommentEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in a comment list: the {@code (created_at, id)} of the last comment
+ * a client has seen. Unlike an offset, resuming from a cursor costs the same on any page.
+ */
+public record CommentCursor(Instant createdAt, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static CommentCursor of(CommentEntity comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    public static CommentCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == decoded.length() - 1) {
+                throw new IllegalArgumentException("Invalid comment cursor");
+            }
+            return new CommentCursor(Instant.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid comment cursor", ex);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
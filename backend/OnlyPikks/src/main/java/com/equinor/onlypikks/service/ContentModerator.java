@@ -0,0 +1,130 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.ModerationStatsResponse;
+import com.equinor.onlypikks.exception.ContentRejectedException;
+import com.equinor.onlypikks.moderation.AhoCorasick;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects user text that contains a blocked word or phrase. The blocklist is compiled into an
+ * {@link AhoCorasick} automaton, so a check is one pass over the text whatever the size of the
+ * list. A changed file is compiled on a background thread and swapped in whole; checks keep
+ * using the previous automaton until then, and a file that fails to load leaves it in place.
+ */
+@Component
+public class ContentModerator implements DisposableBean {
+
+    private final Path blocklist;
+    private final ScheduledExecutorService watcher;
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong scannedChars = new AtomicLong();
+    private final AtomicLong totalScanNanos = new AtomicLong();
+    private final AtomicLong maxScanNanos = new AtomicLong();
+    private volatile Loaded loaded = new Loaded(AhoCorasick.empty(), null, Instant.now());
+    private volatile String lastError;
+
+    private record Loaded(AhoCorasick automaton, FileTime modified, Instant at) {
+    }
+
+    public ContentModerator(ModerationProperties properties) {
+        this.blocklist = StringUtils.hasText(properties.blocklist()) ? Path.of(properties.blocklist()) : null;
+        long interval = properties.reloadIntervalOrDefault().toMillis();
+        if (blocklist != null) {
+            reload();
+        }
+        if (blocklist != null && interval > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("moderation-reload").daemon().factory());
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            watcher = null;
+        }
+    }
+
+    /**
+     * @throws ContentRejectedException naming the field when the text contains a blocked term
+     */
+    public void check(String field, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Optional<String> match = loaded.automaton().findFirst(text);
+        long elapsed = System.nanoTime() - start;
+        scanned.incrementAndGet();
+        scannedChars.addAndGet(text.length());
+        totalScanNanos.addAndGet(elapsed);
+        maxScanNanos.accumulateAndGet(elapsed, Math::max);
+        if (match.isPresent()) {
+            rejected.incrementAndGet();
+            throw new ContentRejectedException(field + " contains a blocked word or phrase");
+        }
+    }
+
+    /**
+     * Loads the blocklist file now, whether or not it changed.
+     */
+    public synchronized ModerationStatsResponse reload() {
+        if (blocklist != null) {
+            try {
+                FileTime modified = Files.getLastModifiedTime(blocklist);
+                List<String> terms = Files.readAllLines(blocklist, StandardCharsets.UTF_8).stream()
+                        .filter(line -> !line.stripLeading().startsWith("#"))
+                        .toList();
+                loaded = new Loaded(AhoCorasick.compile(terms), modified, Instant.now());
+                lastError = null;
+            } catch (IOException | RuntimeException ex) {
+                lastError = "Failed to load " + blocklist + ": " + ex;
+            }
+        }
+        return stats();
+    }
+
+    public ModerationStatsResponse stats() {
+        long count = scanned.get();
+        Loaded current = loaded;
+        return new ModerationStatsResponse(
+                current.automaton().size(),
+                current.at(),
+                lastError,
+                count,
+                rejected.get(),
+                scannedChars.get(),
+                count == 0 ? 0 : totalScanNanos.get() / 1e3 / count,
+                maxScanNanos.get() / 1e3
+        );
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    private void reloadIfChanged() {
+        try {
+            if (!Files.getLastModifiedTime(blocklist).equals(loaded.modified())) {
+                reload();
+            }
+        } catch (IOException | RuntimeException ex) {
+            lastError = "Failed to check " + blocklist + ": " + ex;
+        }
+    }
+}
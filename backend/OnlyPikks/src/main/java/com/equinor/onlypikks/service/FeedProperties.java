@@ -0,0 +1,22 @@
+package com.equinor.onlypikks.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "onlypikks.feed")
+public record FeedProperties(
+        Integer fanOutFollowerLimit,
+        Integer timelineCapacity,
+        Boolean inMemoryCatalog
+) {
+    public int fanOutFollowerLimitOrDefault() {
+        return fanOutFollowerLimit != null ? fanOutFollowerLimit : 5_000;
+    }
+
+    public int timelineCapacityOrDefault() {
+        return timelineCapacity != null ? timelineCapacity : 800;
+    }
+
+    public boolean inMemoryCatalogOrDefault() {
+        return inMemoryCatalog == null || inMemoryCatalog;
+    }
+}
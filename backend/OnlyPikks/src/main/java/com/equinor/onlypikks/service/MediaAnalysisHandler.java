@@ -0,0 +1,101 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.media.BlurHash;
+import com.equinor.onlypikks.media.ImageSample;
+import com.equinor.onlypikks.media.PerceptualHash;
+import com.equinor.onlypikks.repository.PostRepository;
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import com.equinor.onlypikks.storage.ObjectContent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Decodes a post's image once after upload, off the request path, and stores what is derived
+ * from it: the BlurHash placeholder and the perceptual hash for the similar-image index. The
+ * event names the file it was raised for, so results for media that has since been replaced
+ * are discarded, and an already analysed post is skipped on redelivery. Storing the results
+ * moves the feed version, so cached feeds are rebuilt with the placeholder.
+ */
+@Component
+public class MediaAnalysisHandler implements OutboxHandler {
+
+    public static final String EVENT_TYPE = "media.analyze";
+
+    private final PostRepository postRepository;
+    private final MediaService mediaService;
+    private final SimilarImageIndex similarImages;
+    private final PostCatalog catalog;
+    private final PostIdFilter postIdFilter;
+
+    public MediaAnalysisHandler(
+            PostRepository postRepository,
+            MediaService mediaService,
+            SimilarImageIndex similarImages,
+            PostCatalog catalog,
+            PostIdFilter postIdFilter
+    ) {
+        this.postRepository = postRepository;
+        this.mediaService = mediaService;
+        this.similarImages = similarImages;
+        this.catalog = catalog;
+        this.postIdFilter = postIdFilter;
+    }
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEventEntity event) {
+        String fileId = event.getPayload();
+        Optional<PostEntity> post = postRepository.findById(event.getAggregateId())
+                .filter(candidate -> candidate.getFileId().equals(fileId) && candidate.getPerceptualHash() == null);
+        if (post.isEmpty()) {
+            return;
+        }
+        Optional<ObjectContent> content = mediaService.open(fileId);
+        if (content.isEmpty()) {
+            return;
+        }
+        Optional<ImageSample> sample;
+        try (InputStream stream = content.get().stream()) {
+            sample = ImageSample.decode(stream);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (sample.isEmpty()) {
+            return;
+        }
+        PostEntity entity = post.get();
+        long hash = PerceptualHash.dHash(sample.get());
+        entity.setPlaceholder(BlurHash.encode(sample.get()));
+        entity.setPerceptualHash(hash);
+        entity.setUpdatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        postRepository.save(entity);
+        PostVisibility feed = entity.getVisibility();
+        postRepository.incrementFeedVersion(feed.name());
+        // Neither the catalog nor the id filter holds what changed, so neither need rebuild.
+        long version = postRepository.findFeedVersion(feed.name());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalog.advance(feed, version);
+                postIdFilter.advance(feed, version);
+            }
+        });
+        // Ahead of the commit: a rolled back write is redelivered and puts the same hash, and
+        // queries only return posts that still exist.
+        similarImages.put(entity.getId(), hash);
+    }
+}
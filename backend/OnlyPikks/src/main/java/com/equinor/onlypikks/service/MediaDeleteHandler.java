@@ -0,0 +1,30 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes a file from object storage once no post references it. Deleting a missing object
+ * succeeds, so redelivery is harmless.
+ */
+@Component
+public class MediaDeleteHandler implements OutboxHandler {
+
+    public static final String EVENT_TYPE = "media.delete";
+
+    private final MediaService mediaService;
+
+    public MediaDeleteHandler(MediaService mediaService) {
+        this.mediaService = mediaService;
+    }
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEventEntity event) {
+        mediaService.delete(event.getAggregateId());
+    }
+}
@@ -0,0 +1,77 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.media.ImageInspectingInputStream;
+import com.equinor.onlypikks.storage.ObjectContent;
+import com.equinor.onlypikks.storage.ObjectStorage;
+import com.equinor.onlypikks.storage.SignedUrl;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Uploaded media in object storage, keyed by file id. Bytes are written before the post that
+ * references them is committed and removed through the outbox after it stops referencing
+ * them, so a committed post never points at a missing object.
+ */
+@Service
+public class MediaService {
+
+    private final ObjectStorage storage;
+
+    public MediaService(ObjectStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Stores an upload with its metadata stripped. Recognized images are stored with the
+     * type read from their headers rather than the one the client claimed.
+     *
+     * @param contentLength the number of bytes, or -1 when unknown
+     */
+    public StoredMedia store(InputStream content, long contentLength, String contentType) {
+        String fileId = UUID.randomUUID().toString();
+        ImageInspectingInputStream inspected;
+        try {
+            inspected = ImageInspectingInputStream.inspect(content);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        Optional<String> detectedType = inspected.mimeType();
+        // Stripping metadata can shorten a recognized image, so its length is no longer known.
+        long size = storage.put(
+                fileId,
+                inspected,
+                detectedType.isPresent() ? -1 : contentLength,
+                detectedType.orElse(contentType)
+        );
+        return new StoredMedia(fileId, size, inspected.imageInfo().orElse(null));
+    }
+
+    public Optional<ObjectContent> open(String fileId) {
+        return storage.open(fileId);
+    }
+
+    public SignedUrl downloadUrl(String fileId, String disposition) {
+        return storage.presignGet(fileId, disposition);
+    }
+
+    public void delete(String fileId) {
+        storage.delete(fileId);
+    }
+
+    /**
+     * Removes media that no committed post references, after a failed or refused write.
+     * Best effort: a leftover object only costs storage.
+     */
+    public void discard(StoredMedia media) {
+        try {
+            storage.delete(media.fileId());
+        } catch (RuntimeException ignored) {
+            // The original failure is the one worth reporting.
+        }
+    }
+}
@@ -1,42 +1,120 @@
 package com.equinor.onlypikks.service;
 
+import com.equinor.onlypikks.api.model.BatchGetPostsResponse;
 import com.equinor.onlypikks.api.model.CommentResponse;
 import com.equinor.onlypikks.api.model.PagedResponse;
+import com.equinor.onlypikks.api.model.PostEventResponse;
 import com.equinor.onlypikks.api.model.PostResponse;
 import com.equinor.onlypikks.api.model.PostSummaryResponse;
 import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.api.model.RelatedPostResponse;
+import com.equinor.onlypikks.api.model.RelatedPostsResponse;
+import com.equinor.onlypikks.api.model.SimilarPostResponse;
+import com.equinor.onlypikks.api.model.SimilarPostsResponse;
+import com.equinor.onlypikks.api.model.SuggestionResponse;
+import com.equinor.onlypikks.api.model.TagCountResponse;
 import com.equinor.onlypikks.api.model.UpdatePostMetadataRequest;
 import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.exception.ForbiddenException;
+import com.equinor.onlypikks.exception.NotFoundException;
+import com.equinor.onlypikks.id.SnowflakeIdGenerator;
+import com.equinor.onlypikks.media.ImageInfo;
 import com.equinor.onlypikks.repository.CommentRepository;
 import com.equinor.onlypikks.repository.PostRepository;
+import com.equinor.onlypikks.repository.PostTag;
 import com.equinor.onlypikks.repository.entity.CommentEntity;
 import com.equinor.onlypikks.repository.entity.PostEntity;
+import com.equinor.onlypikks.storage.MediaProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class MockPostService {
 
+    private static final int FACET_LIMIT = 10;
+    private static final int LATEST_COMMENT_LIMIT = 3;
+    public static final int MAX_BATCH_GET = 100;
+    private static final String REPLACE_MEDIA_FORBIDDEN = "You are not allowed to replace this media";
+
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
-    private final AtomicLong postSequence;
-    private final AtomicLong commentSequence;
+    private final TagStatistics tagStatistics;
+    private final SnowflakeIdGenerator idGenerator;
+    private final PostEventBus eventBus;
+    private final PublicFeedSnapshot publicFeed;
+    private final TimelineService timelines;
+    private final OutboxService outbox;
+    private final SimilarImageIndex similarImages;
+    private final RelatedPostsIndex relatedPosts;
+    private final SuggestionIndex suggestions;
+    private final PostCatalog catalog;
+    private final PostIdFilter postIdFilter;
+    private final TextIndexBuilder textIndexes;
+    private final String mediaBaseUrl;
+    private final boolean catalogEnabled;
 
-    public MockPostService(PostRepository postRepository, CommentRepository commentRepository) {
+    public MockPostService(
+            PostRepository postRepository,
+            CommentRepository commentRepository,
+            TagStatistics tagStatistics,
+            SnowflakeIdGenerator idGenerator,
+            PostEventBus eventBus,
+            PublicFeedSnapshot publicFeed,
+            TimelineService timelines,
+            OutboxService outbox,
+            SimilarImageIndex similarImages,
+            RelatedPostsIndex relatedPosts,
+            SuggestionIndex suggestions,
+            PostCatalog catalog,
+            PostIdFilter postIdFilter,
+            TextIndexBuilder textIndexes,
+            MediaProperties mediaProperties,
+            FeedProperties feedProperties
+    ) {
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
+        this.tagStatistics = tagStatistics;
+        this.idGenerator = idGenerator;
+        this.eventBus = eventBus;
+        this.publicFeed = publicFeed;
+        this.timelines = timelines;
+        this.outbox = outbox;
+        this.similarImages = similarImages;
+        this.relatedPosts = relatedPosts;
+        this.suggestions = suggestions;
+        this.catalog = catalog;
+        this.postIdFilter = postIdFilter;
+        this.textIndexes = textIndexes;
+        this.mediaBaseUrl = mediaProperties.baseUrlOrDefault();
+        this.catalogEnabled = feedProperties.inMemoryCatalogOrDefault();
         seedDataIfNecessary();
-        this.postSequence = new AtomicLong(resolveHighestPostSequence());
-        this.commentSequence = new AtomicLong(resolveHighestCommentSequence());
+        rebuildPostIds();
+        tagStatistics.reset(postRepository.countTagsByVisibility(PostVisibility.PUBLIC));
+        similarImages.reset(postRepository.findImageHashes());
+        textIndexes.rebuild();
     }
 
     public PagedResponse<PostSummaryResponse> listPosts(
@@ -46,33 +124,340 @@ public class MockPostService {
             boolean includePrivate,
             boolean includeUnlisted,
             Optional<String> query,
-            Optional<PostVisibility> visibilityFilter
+            Optional<PostVisibility> visibilityFilter,
+            boolean includeFacets,
+            PostOrder order
     ) {
-        List<PostSummaryResponse> filtered = postRepository.findAll().stream()
-                .sorted(Comparator.comparing(PostEntity::getCreatedAt).reversed())
+        int safePage = Math.max(page, 1);
+        int safePerPage = Math.max(Math.min(perPage, 100), 1);
+        boolean publicOnly = ownerFilter.isEmpty() && query.isEmpty() && !includePrivate && !includeUnlisted
+                && visibilityFilter.map(v -> v == PostVisibility.PUBLIC).orElse(true);
+        if (catalogEnabled && query.isEmpty() && (!includeFacets || publicOnly)) {
+            // Nothing outside the catalog columns is filtered on, so only the page is loaded.
+            PostCatalog.Page matches = catalogPage(
+                    (safePage - 1) * safePerPage,
+                    safePerPage,
+                    ownerFilter,
+                    visibleTo(includePrivate, includeUnlisted, visibilityFilter),
+                    order
+            );
+            Map<String, PostEntity> loaded = postRepository.findAllById(matches.postIds()).stream()
+                    .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+            List<PostSummaryResponse> pageItems = matches.postIds().stream()
+                    .map(loaded::get)
+                    .filter(Objects::nonNull)
+                    .map(this::toSummary)
+                    .toList();
+            List<TagCountResponse> facets = includeFacets ? tagStatistics.topTags(FACET_LIMIT) : null;
+            return new PagedResponse<>(pageItems, safePage, safePerPage, matches.total(), facets);
+        }
+
+        Set<PostVisibility> visible = visibleTo(includePrivate, includeUnlisted, visibilityFilter);
+        List<PostEntity> filtered = postRepository.findAll().stream()
                 .filter(post -> ownerFilter.map(owner -> post.getOwnerId().equals(owner)).orElse(true))
-                .filter(post -> includePrivate || post.getVisibility() != PostVisibility.PRIVATE)
-                .filter(post -> includeUnlisted || post.getVisibility() != PostVisibility.UNLISTED)
-                .filter(post -> visibilityFilter.map(v -> post.getVisibility() == v).orElse(true))
+                .filter(post -> visible.contains(post.getVisibility()))
                 .filter(post -> query.map(q -> matchesQuery(post, q)).orElse(true))
+                .sorted(order.comparator())
+                .toList();
+
+        int fromIndex = Math.min((safePage - 1) * safePerPage, filtered.size());
+        int toIndex = Math.min(fromIndex + safePerPage, filtered.size());
+        List<PostSummaryResponse> pageItems = filtered.subList(fromIndex, toIndex).stream()
                 .map(this::toSummary)
                 .toList();
 
+        List<TagCountResponse> facets = null;
+        if (includeFacets) {
+            if (publicOnly) {
+                facets = tagStatistics.topTags(FACET_LIMIT);
+            } else {
+                Map<String, Long> counts = TagStatistics.countTags(filtered.stream()
+                        .map(PostEntity::getTags)
+                        .toList());
+                facets = TagStatistics.topK(counts, FACET_LIMIT);
+            }
+        }
+
+        return new PagedResponse<>(pageItems, safePage, safePerPage, filtered.size(), facets);
+    }
+
+    /**
+     * Newest-first page holding only the requested summary fields, keyed by their JSON names.
+     * Filtering and paging run in SQL and only the selected columns are read; tags are
+     * fetched for the page in one query, and only when requested.
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<Map<String, Object>> listPostFields(
+            int page,
+            int perPage,
+            Optional<String> ownerFilter,
+            boolean includePrivate,
+            boolean includeUnlisted,
+            Optional<PostVisibility> visibilityFilter,
+            Set<PostSummaryField> fields
+    ) {
         int safePage = Math.max(page, 1);
         int safePerPage = Math.max(Math.min(perPage, 100), 1);
-        int fromIndex = Math.min((safePage - 1) * safePerPage, filtered.size());
-        int toIndex = Math.min(fromIndex + safePerPage, filtered.size());
-        List<PostSummaryResponse> pageItems = filtered.subList(fromIndex, toIndex);
+        Set<PostVisibility> visibilities = visibleTo(includePrivate, includeUnlisted, visibilityFilter);
+        if (visibilities.isEmpty()) {
+            return new PagedResponse<>(List.of(), safePage, safePerPage, 0);
+        }
 
-        return new PagedResponse<>(pageItems, safePage, safePerPage, filtered.size());
+        List<String> attributes = fields.stream()
+                .map(PostSummaryField::attribute)
+                .filter(Objects::nonNull)
+                .toList();
+        List<Map<String, Object>> rows = postRepository.findListingColumns(
+                attributes,
+                ownerFilter,
+                visibilities,
+                (safePage - 1) * safePerPage,
+                safePerPage
+        );
+        Map<String, List<String>> tagsByPost = Map.of();
+        if (fields.contains(PostSummaryField.TAGS) && !rows.isEmpty()) {
+            tagsByPost = postRepository.findTagsByPostIds(rows.stream().map(row -> (String) row.get("id")).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(
+                            PostTag::getPostId,
+                            Collectors.mapping(PostTag::getTag, Collectors.toList())
+                    ));
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (PostSummaryField field : fields) {
+                Object value = switch (field) {
+                    case TAGS -> tagsByPost.getOrDefault((String) row.get("id"), List.of());
+                    case THUMBNAIL_URL -> buildThumbnailUrl((String) row.get(field.attribute()));
+                    default -> row.get(field.attribute());
+                };
+                item.put(field.jsonName(), value);
+            }
+            items.add(item);
+        }
+        long total = postRepository.countListing(ownerFilter, visibilities);
+        return new PagedResponse<>(items, safePage, safePerPage, total);
+    }
+
+    /**
+     * Narrows full summaries to the requested fields, for listings that need every column to
+     * filter on anyway.
+     */
+    public static PagedResponse<Map<String, Object>> selectFields(
+            PagedResponse<PostSummaryResponse> response,
+            Set<PostSummaryField> fields
+    ) {
+        List<Map<String, Object>> items = response.items().stream()
+                .map(summary -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    fields.forEach(field -> item.put(field.jsonName(), field.read(summary)));
+                    return item;
+                })
+                .toList();
+        return new PagedResponse<>(
+                items,
+                response.page(),
+                response.perPage(),
+                response.total(),
+                response.facets(),
+                response.nextCursor()
+        );
+    }
+
+    /**
+     * Pre-serialized page of the anonymous newest-first feed, or empty when the page is
+     * outside the materialized window. Rebuilds from the database on first use and when
+     * another replica has changed the feed since the snapshot was taken.
+     */
+    public Optional<PublicFeedSnapshot.Page> publicFeedPage(int page) {
+        if (page < 1 || page > PublicFeedSnapshot.MAX_PAGES) {
+            return Optional.empty();
+        }
+        if (!publicFeed.isInitialized()
+                || (publicFeed.claimStalenessCheck()
+                        && postRepository.findFeedVersion(PostVisibility.PUBLIC.name()) != publicFeed.sourceVersion())) {
+            rebuildPublicFeed();
+        }
+        return publicFeed.page(page);
+    }
+
+    /**
+     * Page of the posts from owners the user follows, newest first. Post ids come from the
+     * precomputed timeline; only the posts on the requested page are loaded.
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<PostSummaryResponse> followingFeed(AuthContext auth, int page, int perPage) {
+        int safePage = Math.max(page, 1);
+        int safePerPage = Math.max(Math.min(perPage, 100), 1);
+        TimelineService.Window window = timelines.newest(auth.userId(), safePage * safePerPage);
+        List<String> postIds = window.postIds();
+        int fromIndex = Math.min((safePage - 1) * safePerPage, postIds.size());
+        int toIndex = Math.min(fromIndex + safePerPage, postIds.size());
+        List<String> pageIds = postIds.subList(fromIndex, toIndex);
+        Map<String, PostEntity> posts = postRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+        List<PostSummaryResponse> pageItems = pageIds.stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .filter(this::isPublic)
+                .map(this::toSummary)
+                .toList();
+        return new PagedResponse<>(pageItems, safePage, safePerPage, window.total());
+    }
+
+    public List<TagCountResponse> popularTags(int limit) {
+        return tagStatistics.topTags(Math.max(Math.min(limit, 100), 1));
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        return suggestions.suggest(prefix, Math.max(Math.min(limit, SuggestionIndex.TOP_K), 1));
+    }
+
+    /**
+     * Version token for a post listing: changes whenever a post of one of the listed
+     * visibilities is created, updated, commented on or deleted. A few primary-key reads, so
+     * conditional requests skip the feed query. The counters only grow, so neither does a
+     * sum of the same ones go back to an earlier value.
+     */
+    public long feedVersion(boolean includePrivate, boolean includeUnlisted, Optional<PostVisibility> visibilityFilter) {
+        Set<PostVisibility> visible = visibleTo(includePrivate, includeUnlisted, visibilityFilter);
+        return feedVersions().entrySet().stream()
+                .filter(feed -> visible.contains(feed.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    /**
+     * Version token for a post and its comments, empty when the post does not exist or the
+     * caller may not see it.
+     */
+    public Optional<String> postVersion(String postId, Optional<AuthContext> auth) {
+        if (definitelyAbsent(postId)) {
+            return Optional.empty();
+        }
+        return postRepository.findVersionById(postId)
+                .filter(version -> canAccessPost(version.getVisibility(), version.getOwnerId(), auth))
+                .map(version -> postId + "@" + version.getUpdatedAt());
+    }
+
+    /**
+     * Version token and comment count for a post's comments, empty when the post does not
+     * exist. Resolved once per request and handed to {@link #listComments}.
+     */
+    public Optional<CommentThread> commentThread(String postId) {
+        if (definitelyAbsent(postId)) {
+            return Optional.empty();
+        }
+        return postRepository.findVersionById(postId)
+                .map(version -> new CommentThread(postId, postId + "@" + version.getUpdatedAt(), version.getCommentCount()));
     }
 
     public Optional<PostResponse> findPost(String postId, Optional<AuthContext> auth) {
-        return postRepository.findById(postId)
+        return findPostById(postId)
                 .filter(post -> canAccessPost(post, auth))
                 .map(this::toResponse);
     }
 
+    /**
+     * Public posts, and the caller's own, whose image is a near-duplicate of the post's,
+     * closest first. Empty when the post does not exist or the caller may not see it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SimilarPostsResponse> findSimilarPosts(String postId, Optional<AuthContext> auth, int limit) {
+        int safeLimit = Math.max(Math.min(limit, 50), 1);
+        return findPostById(postId)
+                .filter(post -> canAccessPost(post, auth))
+                .map(post -> {
+                    if (post.getPerceptualHash() == null) {
+                        return new SimilarPostsResponse(List.of());
+                    }
+                    // Some matches may be hidden from the caller; look a little further.
+                    List<SimilarImageIndex.Match> matches = similarImages.similar(
+                            post.getPerceptualHash(), SimilarImageIndex.MAX_DISTANCE, safeLimit * 4, postId);
+                    Map<String, PostEntity> candidates = postRepository.findAllById(
+                                    matches.stream().map(SimilarImageIndex.Match::postId).toList())
+                            .stream()
+                            .filter(candidate -> candidate.getVisibility() == PostVisibility.PUBLIC
+                                    || isOwner(candidate, auth))
+                            .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+                    List<SimilarPostResponse> items = new ArrayList<>();
+                    for (SimilarImageIndex.Match match : matches) {
+                        PostEntity candidate = candidates.get(match.postId());
+                        if (candidate != null && items.size() < safeLimit) {
+                            items.add(new SimilarPostResponse(toSummary(candidate), match.distance()));
+                        }
+                    }
+                    return new SimilarPostsResponse(items);
+                });
+    }
+
+    /**
+     * Public posts with similar tags and titles, most similar first. Empty when the post does
+     * not exist or the caller may not see it; only public posts have related posts.
+     */
+    @Transactional(readOnly = true)
+    public Optional<RelatedPostsResponse> findRelatedPosts(String postId, Optional<AuthContext> auth, int limit) {
+        int safeLimit = Math.max(Math.min(limit, RelatedPostsIndex.TOP_K), 1);
+        return findPostById(postId)
+                .filter(post -> canAccessPost(post, auth))
+                .map(post -> {
+                    List<RelatedPostsIndex.Related> related = relatedPosts.related(postId, safeLimit);
+                    Map<String, PostEntity> posts = postRepository.findAllById(
+                                    related.stream().map(RelatedPostsIndex.Related::postId).toList())
+                            .stream()
+                            .filter(this::isPublic)
+                            .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+                    List<RelatedPostResponse> items = new ArrayList<>(related.size());
+                    for (RelatedPostsIndex.Related entry : related) {
+                        PostEntity relatedPost = posts.get(entry.postId());
+                        if (relatedPost != null) {
+                            items.add(new RelatedPostResponse(toSummary(relatedPost), entry.score()));
+                        }
+                    }
+                    return new RelatedPostsResponse(items);
+                });
+    }
+
+    /**
+     * Resolves several posts in one round trip: one query for the posts, batched tag loading
+     * and a single windowed query for the latest comments of all of them.
+     */
+    @Transactional(readOnly = true)
+    public BatchGetPostsResponse findPosts(List<String> postIds, Optional<AuthContext> auth) {
+        List<String> requested = postIds.stream()
+                .filter(StringUtils::hasText)
+                .map(String::trim)
+                .distinct()
+                .toList();
+        if (requested.size() > MAX_BATCH_GET) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_GET + " ids can be requested at once");
+        }
+        Map<String, PostEntity> posts = postRepository.findAllById(requested.stream()
+                        .filter(postId -> !definitelyAbsent(postId))
+                        .toList())
+                .stream()
+                .filter(post -> canAccessPost(post, auth))
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+        Map<String, List<CommentEntity>> latestComments = posts.isEmpty()
+                ? Map.of()
+                : commentRepository.findLatestByPostIds(posts.keySet(), LATEST_COMMENT_LIMIT).stream()
+                        .collect(Collectors.groupingBy(CommentEntity::getPostId));
+
+        List<PostResponse> items = new ArrayList<>(posts.size());
+        List<String> missing = new ArrayList<>();
+        for (String postId : requested) {
+            PostEntity post = posts.get(postId);
+            if (post == null) {
+                missing.add(postId);
+            } else {
+                items.add(toResponse(post, latestComments.getOrDefault(postId, List.of())));
+            }
+        }
+        return new BatchGetPostsResponse(items, missing);
+    }
+
     @Transactional
     public PostResponse createPost(
             AuthContext auth,
@@ -81,11 +466,11 @@ public class MockPostService {
             List<String> tags,
             PostVisibility visibility,
             String originalFileName,
-            long fileSizeBytes
+            StoredMedia media
     ) {
-        String postId = "post-" + postSequence.incrementAndGet();
-        Instant now = Instant.now();
-        String fileId = UUID.randomUUID().toString();
+        String postId = idGenerator.nextId("post-");
+        Instant now = now();
+        String fileId = media.fileId();
         PostEntity entity = new PostEntity(
                 postId,
                 title,
@@ -98,108 +483,204 @@ public class MockPostService {
                 buildFileUrl(fileId),
                 buildThumbnailUrl(fileId),
                 originalFileName,
-                fileSizeBytes,
+                media.sizeBytes(),
                 now,
                 now,
                 0,
                 0
         );
+        applyImageInfo(entity, media);
         postRepository.save(entity);
+        requestAnalysis(entity);
+        List<String> addedTags = publicTags(entity);
+        afterCommit(() -> tagStatistics.applyChange(List.of(), addedTags));
+        List<SuggestionIndex.Term> addedTerms = publicTerms(entity);
+        updateSuggestionsOnCommit(postId, List.of(), addedTerms);
+        afterCommit(() -> postIdFilter.add(postId));
+        updatePublicFeedAfterCommit(entity, false);
+        updateCatalogAfterCommit(entity);
+        updateRelatedPostsAfterCommit(entity);
+        if (isPublic(entity)) {
+            outbox.enqueue(TimelineSyncHandler.EVENT_TYPE, postId);
+        }
+        bumpFeedVersions(entity.getVisibility());
         return toResponse(entity);
     }
 
+    /**
+     * Fails as {@link #replaceMedia} would for a missing post or one the caller does not own,
+     * so an upload can be refused before its bytes are stored.
+     */
+    @Transactional(readOnly = true)
+    public void checkCanReplaceMedia(String postId, AuthContext auth) {
+        findOwnedPost(postId, auth, REPLACE_MEDIA_FORBIDDEN);
+    }
+
     @Transactional
-    public Optional<PostResponse> replaceMedia(
+    public PostResponse replaceMedia(
             String postId,
             AuthContext auth,
             String originalFileName,
-            long fileSizeBytes
+            StoredMedia media
     ) {
-        return postRepository.findById(postId)
-                .filter(post -> post.getOwnerId().equals(auth.userId()))
-                .map(post -> {
-                    String newFileId = UUID.randomUUID().toString();
-                    post.setFileId(newFileId);
-                    post.setFileUrl(buildFileUrl(newFileId));
-                    post.setThumbnailUrl(buildThumbnailUrl(newFileId));
-                    post.setOriginalFileName(originalFileName);
-                    post.setFileSizeBytes(fileSizeBytes);
-                    post.setUpdatedAt(Instant.now());
-                    return toResponse(postRepository.save(post));
-                });
+        PostEntity post = findOwnedPost(postId, auth, REPLACE_MEDIA_FORBIDDEN);
+        String newFileId = media.fileId();
+        outbox.enqueue(MediaDeleteHandler.EVENT_TYPE, post.getFileId());
+        post.setFileId(newFileId);
+        post.setFileUrl(buildFileUrl(newFileId));
+        post.setThumbnailUrl(buildThumbnailUrl(newFileId));
+        post.setOriginalFileName(originalFileName);
+        post.setFileSizeBytes(media.sizeBytes());
+        applyImageInfo(post, media);
+        requestAnalysis(post);
+        afterCommit(() -> similarImages.remove(postId));
+        post.setUpdatedAt(now());
+        publishAfterCommit(postUpdated(post));
+        updatePublicFeedAfterCommit(post, isPublic(post));
+        PostResponse response = toResponse(postRepository.save(post));
+        bumpFeedVersions(post.getVisibility());
+        return response;
     }
 
     @Transactional
-    public Optional<PostResponse> updateMetadata(
+    public PostResponse updateMetadata(
             String postId,
             AuthContext auth,
             UpdatePostMetadataRequest request
     ) {
-        return postRepository.findById(postId)
-                .filter(post -> post.getOwnerId().equals(auth.userId()))
-                .map(post -> {
-                    if (StringUtils.hasText(request.title())) {
-                        post.setTitle(request.title());
-                    }
-                    if (request.description() != null) {
-                        post.setDescription(request.description());
-                    }
-                    if (request.tags() != null) {
-                        post.setTags(sanitizeTags(request.tags()));
-                    }
-                    if (request.visibility() != null) {
-                        post.setVisibility(request.visibility());
-                    }
-                    post.setUpdatedAt(Instant.now());
-                    return toResponse(postRepository.save(post));
-                });
+        PostEntity post = findOwnedPost(postId, auth, "You are not allowed to update this post");
+        List<String> tagsBefore = publicTags(post);
+        List<SuggestionIndex.Term> termsBefore = publicTerms(post);
+        boolean wasPublic = isPublic(post);
+        PostVisibility visibilityBefore = post.getVisibility();
+        if (StringUtils.hasText(request.title())) {
+            post.setTitle(request.title());
+        }
+        if (request.description() != null) {
+            post.setDescription(request.description());
+        }
+        if (request.tags() != null) {
+            post.setTags(sanitizeTags(request.tags()));
+        }
+        if (request.visibility() != null) {
+            post.setVisibility(request.visibility());
+        }
+        post.setUpdatedAt(now());
+        List<String> tagsAfter = publicTags(post);
+        if (wasPublic != isPublic(post)) {
+            outbox.enqueue(TimelineSyncHandler.EVENT_TYPE, post.getId());
+        }
+        afterCommit(() -> tagStatistics.applyChange(tagsBefore, tagsAfter));
+        List<SuggestionIndex.Term> termsAfter = publicTerms(post);
+        updateSuggestionsOnCommit(postId, termsBefore, termsAfter);
+        if (post.getVisibility() != visibilityBefore) {
+            // Subscribers were admitted under the old visibility. Their clients reconnect and
+            // are checked again, so those who may no longer read the post get no more events.
+            PostEventResponse updated = postUpdated(post);
+            afterCommit(() -> eventBus.publishAndClose(updated));
+        } else {
+            publishAfterCommit(postUpdated(post));
+        }
+        updatePublicFeedAfterCommit(post, wasPublic);
+        updateCatalogAfterCommit(post);
+        updateRelatedPostsAfterCommit(post);
+        PostResponse response = toResponse(postRepository.save(post));
+        bumpFeedVersions(visibilityBefore, post.getVisibility());
+        return response;
     }
 
     @Transactional
-    public boolean deletePost(String postId, AuthContext auth) {
-        return postRepository.findById(postId)
-                .filter(post -> post.getOwnerId().equals(auth.userId()))
-                .map(post -> {
-                    commentRepository.deleteByPostId(postId);
-                    postRepository.deleteById(postId);
-                    return true;
-                })
-                .orElse(false);
-    }
-
-    public boolean postExists(String postId) {
-        return postRepository.existsById(postId);
+    public void deletePost(String postId, AuthContext auth) {
+        PostEntity post = findOwnedPost(postId, auth, "You are not allowed to delete this post");
+        List<String> removedTags = publicTags(post);
+        List<SuggestionIndex.Term> removedTerms = publicTerms(post);
+        commentRepository.deleteByPostId(postId);
+        if (isPublic(post)) {
+            outbox.enqueue(TimelineSyncHandler.EVENT_TYPE, postId);
+        }
+        outbox.enqueue(MediaDeleteHandler.EVENT_TYPE, post.getFileId());
+        postRepository.deleteById(postId);
+        PostVisibility feed = post.getVisibility();
+        removeFromPostIdsOnCommit(postId, feed, bumpFeedVersions(feed).get(feed));
+        afterCommit(() -> tagStatistics.applyChange(removedTags, List.of()));
+        updateSuggestionsOnCommit(postId, removedTerms, List.of());
+        afterCommit(() -> similarImages.remove(postId));
+        afterCommit(() -> relatedPosts.remove(postId));
+        Instant createdAt = post.getCreatedAt();
+        afterCommit(() -> catalog.remove(postId, createdAt));
+        PostEventResponse deleted = new PostEventResponse(
+                PostEventResponse.POST_DELETED, postId, null, now(), null);
+        afterCommit(() -> eventBus.publishAndClose(deleted));
+        boolean wasPublic = isPublic(post);
+        afterCommit(() -> applyToPublicFeed(postId, null, wasPublic));
     }
 
+    /**
+     * One page of a post's comments in {@code (created_at, id)} order, or of the replies to
+     * {@code parentId}. Paging happens in SQL: by offset, or from a keyset {@code after}
+     * cursor, which costs the same however deep the client has scrolled. Totals come from
+     * the denormalized counters rather than a count query.
+     *
+     * @return empty when {@code parentId} is not a comment on this post
+     */
     public Optional<PagedResponse<CommentResponse>> listComments(
-            String postId,
+            CommentThread thread,
             int page,
-            int perPage
+            int perPage,
+            Optional<String> parentId,
+            Optional<CommentCursor> after
     ) {
-        if (!postRepository.existsById(postId)) {
-            return Optional.empty();
+        int safePage = Math.max(page, 1);
+        int safePerPage = Math.max(Math.min(perPage, 100), 1);
+        long total = thread.commentCount();
+        if (parentId.isPresent()) {
+            Optional<CommentEntity> parent = commentRepository.findByIdAndPostId(parentId.get(), thread.postId());
+            if (parent.isEmpty()) {
+                return Optional.empty();
+            }
+            total = parent.get().getReplyCount();
+        }
+
+        List<CommentEntity> comments;
+        if (after.isPresent()) {
+            CommentCursor cursor = after.get();
+            PageRequest limit = PageRequest.of(0, safePerPage);
+            comments = parentId.isPresent()
+                    ? commentRepository.findPageByParentIdAfter(parentId.get(), cursor.createdAt(), cursor.id(), limit)
+                    : commentRepository.findPageByPostIdAfter(thread.postId(), cursor.createdAt(), cursor.id(), limit);
+        } else {
+            PageRequest window = PageRequest.of(safePage - 1, safePerPage);
+            comments = parentId.isPresent()
+                    ? commentRepository.findPageByParentId(parentId.get(), window)
+                    : commentRepository.findPageByPostId(thread.postId(), window);
         }
-        List<CommentResponse> all = commentRepository.findByPostIdOrderByCreatedAtAsc(postId).stream()
+
+        List<CommentResponse> pageItems = comments.stream()
                 .map(this::toCommentResponse)
                 .toList();
-
-        int safePage = Math.max(page, 1);
-        int safePerPage = Math.max(Math.min(perPage, 100), 1);
-        int fromIndex = Math.min((safePage - 1) * safePerPage, all.size());
-        int toIndex = Math.min(fromIndex + safePerPage, all.size());
-        List<CommentResponse> pageItems = all.subList(fromIndex, toIndex);
-        return Optional.of(new PagedResponse<>(pageItems, safePage, safePerPage, all.size()));
+        String nextCursor = comments.size() == safePerPage ? CommentCursor.of(comments.getLast()).encode() : null;
+        return Optional.of(new PagedResponse<>(pageItems, safePage, safePerPage, total, null, nextCursor));
     }
 
     @Transactional
-    public Optional<CommentResponse> addComment(String postId, AuthContext auth, String text) {
-        return postRepository.findById(postId)
+    public Optional<CommentResponse> addComment(String postId, AuthContext auth, String text, String parentId) {
+        return findPostById(postId)
                 .map(post -> {
-                    String commentId = "comment-" + commentSequence.incrementAndGet();
-                    Instant now = Instant.now();
+                    // Threads are one level deep: a reply to a reply joins the root comment's thread.
+                    CommentEntity root = null;
+                    if (StringUtils.hasText(parentId)) {
+                        CommentEntity parent = commentRepository.findByIdAndPostId(parentId, postId)
+                                .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
+                        root = parent.getParentId() == null
+                                ? parent
+                                : commentRepository.findById(parent.getParentId()).orElse(parent);
+                    }
+                    String commentId = idGenerator.nextId("comment-");
+                    Instant now = now();
                     CommentEntity entity = new CommentEntity(
                             commentId,
                             postId,
+                            root != null ? root.getId() : null,
                             auth.userId(),
                             auth.displayName(),
                             text,
@@ -207,16 +688,26 @@ public class MockPostService {
                             now
                     );
                     commentRepository.save(entity);
-                    post.setCommentCount(commentRepository.countByPostId(postId));
+                    if (root != null) {
+                        commentRepository.adjustReplyCount(root.getId(), 1);
+                    }
+                    adjustCommentCount(post, 1);
                     post.setUpdatedAt(now);
                     postRepository.save(post);
-                    return toCommentResponse(entity);
+                    bumpFeedVersions(post.getVisibility());
+                    updatePublicFeedAfterCommit(post, isPublic(post));
+                    updateCatalogAfterCommit(post);
+                    CommentResponse response = toCommentResponse(entity);
+                    publishAfterCommit(new PostEventResponse(
+                            PostEventResponse.COMMENT_CREATED, postId, commentId, now, response));
+                    return response;
                 });
     }
 
     @Transactional
     public DeleteCommentResult deleteComment(String postId, String commentId, AuthContext auth) {
-        if (!postRepository.existsById(postId)) {
+        Optional<PostEntity> post = findPostById(postId);
+        if (post.isEmpty()) {
             return DeleteCommentResult.POST_NOT_FOUND;
         }
         Optional<CommentEntity> target = commentRepository.findByIdAndPostId(commentId, postId);
@@ -224,19 +715,27 @@ public class MockPostService {
             return DeleteCommentResult.COMMENT_NOT_FOUND;
         }
         CommentEntity comment = target.get();
-        Optional<PostEntity> post = postRepository.findById(postId);
-        if (post.isEmpty()) {
-            return DeleteCommentResult.POST_NOT_FOUND;
-        }
         PostEntity postEntity = post.get();
         boolean canDelete = comment.getAuthorId().equals(auth.userId()) || postEntity.getOwnerId().equals(auth.userId());
         if (!canDelete) {
             return DeleteCommentResult.FORBIDDEN;
         }
-        commentRepository.deleteById(commentId);
-        postEntity.setCommentCount(commentRepository.countByPostId(postId));
-        postEntity.setUpdatedAt(Instant.now());
+        int removed = 1;
+        if (comment.getParentId() == null) {
+            removed += commentRepository.deleteByParentId(commentId);
+        }
+        commentRepository.delete(comment);
+        if (comment.getParentId() != null) {
+            commentRepository.adjustReplyCount(comment.getParentId(), -1);
+        }
+        adjustCommentCount(postEntity, -removed);
+        postEntity.setUpdatedAt(now());
         postRepository.save(postEntity);
+        bumpFeedVersions(postEntity.getVisibility());
+        updatePublicFeedAfterCommit(postEntity, isPublic(postEntity));
+        updateCatalogAfterCommit(postEntity);
+        publishAfterCommit(new PostEventResponse(
+                PostEventResponse.COMMENT_DELETED, postId, commentId, postEntity.getUpdatedAt(), null));
         return DeleteCommentResult.SUCCESS;
     }
 
@@ -244,7 +743,7 @@ public class MockPostService {
         if (postRepository.count() > 0) {
             return;
         }
-        Instant now = Instant.now();
+        Instant now = now();
 
         PostEntity post1 = createSeedPost(
                 "post-1001",
@@ -294,23 +793,27 @@ public class MockPostService {
 
         postRepository.saveAll(List.of(post1, post2, post3));
 
-        commentRepository.save(new CommentEntity(
-                "comment-5001",
-                post1.getId(),
-                "bob",
-                "Bob Smith",
-                "Fantastic shot!",
-                now.minusSeconds(60_000),
-                now.minusSeconds(60_000)
-        ));
-        commentRepository.save(new CommentEntity(
-                "comment-5002",
-                post1.getId(),
-                "carol",
-                "Carol Nguyen",
-                "Looking forward to the next update.",
-                now.minusSeconds(30_000),
-                now.minusSeconds(30_000)
+        commentRepository.saveAll(List.of(
+                new CommentEntity(
+                        "comment-5001",
+                        post1.getId(),
+                        null,
+                        "bob",
+                        "Bob Smith",
+                        "Fantastic shot!",
+                        now.minusSeconds(60_000),
+                        now.minusSeconds(60_000)
+                ),
+                new CommentEntity(
+                        "comment-5002",
+                        post1.getId(),
+                        null,
+                        "carol",
+                        "Carol Nguyen",
+                        "Looking forward to the next update.",
+                        now.minusSeconds(30_000),
+                        now.minusSeconds(30_000)
+                )
         ));
 
         post1.setCommentCount(commentRepository.countByPostId(post1.getId()));
@@ -353,6 +856,21 @@ public class MockPostService {
         );
     }
 
+    private static void applyImageInfo(PostEntity post, StoredMedia media) {
+        ImageInfo image = media.image();
+        post.setMimeType(image != null ? image.mimeType() : null);
+        post.setWidth(image != null ? image.width() : null);
+        post.setHeight(image != null ? image.height() : null);
+        post.setPlaceholder(null);
+        post.setPerceptualHash(null);
+    }
+
+    private void requestAnalysis(PostEntity post) {
+        if (post.getMimeType() != null) {
+            outbox.enqueue(MediaAnalysisHandler.EVENT_TYPE, post.getId(), post.getFileId());
+        }
+    }
+
     private boolean matchesQuery(PostEntity post, String query) {
         String q = query.toLowerCase();
         return (post.getTitle() != null && post.getTitle().toLowerCase().contains(q))
@@ -360,11 +878,272 @@ public class MockPostService {
                 || post.getTags().stream().anyMatch(tag -> tag.contains(q));
     }
 
+    /**
+     * Current time at the precision of the timestamp columns, so entities kept in memory
+     * after a write serialize exactly like the same rows read back from the database.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private boolean isPublic(PostEntity post) {
+        return post.getVisibility() == PostVisibility.PUBLIC;
+    }
+
+    private List<String> publicTags(PostEntity post) {
+        return isPublic(post) ? List.copyOf(post.getTags()) : List.of();
+    }
+
+    private List<SuggestionIndex.Term> publicTerms(PostEntity post) {
+        return isPublic(post) ? SuggestionIndex.terms(post) : List.of();
+    }
+
+    /**
+     * Moves the versions of the feeds of the post's visibilities on as the last statements of
+     * a write, and once the write has committed tells the in-memory feeds holding them that it
+     * was applied, so they do not rebuild for it. The rows are locked in visibility order, so
+     * writes moving posts between the same two visibilities cannot deadlock.
+     *
+     * @return the new version of each feed
+     */
+    private Map<PostVisibility, Long> bumpFeedVersions(PostVisibility... feeds) {
+        EnumSet<PostVisibility> touched = EnumSet.noneOf(PostVisibility.class);
+        Collections.addAll(touched, feeds);
+        Map<PostVisibility, Long> versions = new EnumMap<>(PostVisibility.class);
+        for (PostVisibility feed : touched) {
+            postRepository.incrementFeedVersion(feed.name());
+            long version = postRepository.findFeedVersion(feed.name());
+            versions.put(feed, version);
+            afterCommit(() -> {
+                if (feed == PostVisibility.PUBLIC) {
+                    publicFeed.advance(version);
+                }
+                catalog.advance(feed, version);
+                postIdFilter.advance(feed, version);
+            });
+        }
+        return versions;
+    }
+
+    private Map<PostVisibility, Long> feedVersions() {
+        Map<PostVisibility, Long> versions = new EnumMap<>(PostVisibility.class);
+        postRepository.findFeedVersions()
+                .forEach(row -> versions.put(PostVisibility.valueOf(row.getId()), row.getVersion()));
+        return versions;
+    }
+
+    private void updatePublicFeedAfterCommit(PostEntity post, boolean wasPublic) {
+        PostSummaryResponse after = isPublic(post) ? toSummary(post) : null;
+        if (after == null && !wasPublic) {
+            return;
+        }
+        String postId = post.getId();
+        afterCommit(() -> applyToPublicFeed(postId, after, wasPublic));
+    }
+
+    private void updateRelatedPostsAfterCommit(PostEntity post) {
+        RelatedPostsIndex.Document document = RelatedPostsIndex.Document.of(post);
+        afterCommit(() -> relatedPosts.put(document));
+    }
+
+    private void applyToPublicFeed(String postId, PostSummaryResponse after, boolean wasPublic) {
+        if (!publicFeed.apply(postId, after, wasPublic)) {
+            rebuildPublicFeed();
+        }
+    }
+
+    private void rebuildPublicFeed() {
+        // Read the version first: a write racing with the rebuild then shows up as stale.
+        long version = postRepository.findFeedVersion(PostVisibility.PUBLIC.name());
+        PageRequest window = PageRequest.of(0, PublicFeedSnapshot.CAPACITY, Sort.by(Sort.Direction.DESC, "createdAt"));
+        List<PostSummaryResponse> newest = postRepository.findByVisibility(PostVisibility.PUBLIC, window).stream()
+                .map(this::toSummary)
+                .toList();
+        publicFeed.replace(newest, postRepository.countByVisibility(PostVisibility.PUBLIC), version);
+    }
+
+    private PostCatalog.Page catalogPage(
+            int offset,
+            int limit,
+            Optional<String> ownerFilter,
+            Set<PostVisibility> visible,
+            PostOrder order
+    ) {
+        if (!catalog.isInitialized()
+                || (catalog.claimStalenessCheck() && !feedVersions().equals(catalog.sourceVersions()))) {
+            rebuildCatalog();
+        }
+        return catalog.query(ownerFilter, visible, order, offset, limit);
+    }
+
+    private void rebuildCatalog() {
+        // Read the versions first, as for the public feed.
+        Map<PostVisibility, Long> versions = feedVersions();
+        catalog.reset(postRepository.findCatalogRows().stream().map(PostCatalog.Row::of).toList(), versions);
+    }
+
+    private void updateCatalogAfterCommit(PostEntity post) {
+        PostCatalog.Row row = PostCatalog.Row.of(post);
+        afterCommit(() -> catalog.put(row));
+    }
+
+    private static Set<PostVisibility> visibleTo(
+            boolean includePrivate,
+            boolean includeUnlisted,
+            Optional<PostVisibility> visibilityFilter
+    ) {
+        Set<PostVisibility> visible = EnumSet.of(PostVisibility.PUBLIC);
+        if (includePrivate) {
+            visible.add(PostVisibility.PRIVATE);
+        }
+        if (includeUnlisted) {
+            visible.add(PostVisibility.UNLISTED);
+        }
+        visibilityFilter.ifPresent(filter -> visible.retainAll(EnumSet.of(filter)));
+        return visible;
+    }
+
+    /**
+     * The post, skipping the database for ids the filter knows are not there.
+     */
+    private Optional<PostEntity> findPostById(String postId) {
+        return definitelyAbsent(postId) ? Optional.empty() : postRepository.findById(postId);
+    }
+
+    /**
+     * Whether the id filter rules the post out, after rebuilding it when some write, such as
+     * an import on another replica, has moved the feed versions past what it reflects.
+     */
+    private boolean definitelyAbsent(String postId) {
+        if (postIdFilter.claimStalenessCheck() && !feedVersions().equals(postIdFilter.sourceVersions())) {
+            rebuildPostIds();
+        }
+        return postIdFilter.definitelyAbsent(postId);
+    }
+
+    private void rebuildPostIds() {
+        // Read the versions first, as for the public feed.
+        Map<PostVisibility, Long> versions = feedVersions();
+        postIdFilter.rebuild(versions, postRepository::findAllIds);
+    }
+
+    /**
+     * The post for a write by its owner; the one lookup tells a missing post from someone else's.
+     */
+    private PostEntity findOwnedPost(String postId, AuthContext auth, String forbiddenMessage) {
+        PostEntity post = findPostById(postId).orElseThrow(() -> new NotFoundException("Post not found"));
+        if (!post.getOwnerId().equals(auth.userId())) {
+            throw new ForbiddenException(forbiddenMessage);
+        }
+        return post;
+    }
+
+    /**
+     * Adjusts the stored count in place, then reads back the result: the update holds the
+     * row until commit, so the value put on the entity, and saved with it, is exact.
+     */
+    private void adjustCommentCount(PostEntity post, long delta) {
+        postRepository.adjustCommentCount(post.getId(), delta);
+        post.setCommentCount(postRepository.findCommentCount(post.getId()));
+    }
+
+    /**
+     * Takes a deleted post out of the id filter just before the commit rather than after it:
+     * a rebuild reading the ids in between would otherwise no longer see the post, and the
+     * later removal would decrement counters it never added. Put back if the commit fails.
+     */
+    private void removeFromPostIdsOnCommit(String postId, PostVisibility feed, long feedVersion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            postIdFilter.remove(postId, feed, feedVersion);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean removed;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                removed = postIdFilter.remove(postId, feed, feedVersion);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (removed && status != STATUS_COMMITTED) {
+                    postIdFilter.add(postId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a write's suggestion terms once it commits. The commit is bracketed so that a
+     * background rebuild either re-reads the post after it or sees the change applied on top.
+     */
+    private void updateSuggestionsOnCommit(
+            String postId,
+            List<SuggestionIndex.Term> before,
+            List<SuggestionIndex.Term> after
+    ) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            suggestions.applyChange(before, after);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean begun;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                suggestions.beginChange(postId);
+                begun = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (begun) {
+                    boolean committed = status == STATUS_COMMITTED;
+                    suggestions.endChange(postId, committed ? before : List.of(), committed ? after : List.of());
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs in-memory bookkeeping only once the surrounding transaction has committed, so a
+     * rolled back write never leaks into the derived state.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private PostEventResponse postUpdated(PostEntity post) {
+        return new PostEventResponse(PostEventResponse.POST_UPDATED, post.getId(), null, post.getUpdatedAt(), null);
+    }
+
+    private void publishAfterCommit(PostEventResponse event) {
+        afterCommit(() -> eventBus.publish(event));
+    }
+
+    private static boolean isOwner(PostEntity post, Optional<AuthContext> auth) {
+        return auth.map(context -> context.userId().equals(post.getOwnerId())).orElse(false);
+    }
+
     private boolean canAccessPost(PostEntity post, Optional<AuthContext> auth) {
-        if (post.getVisibility() != PostVisibility.PRIVATE) {
+        return canAccessPost(post.getVisibility(), post.getOwnerId(), auth);
+    }
+
+    private boolean canAccessPost(PostVisibility visibility, String ownerId, Optional<AuthContext> auth) {
+        if (visibility != PostVisibility.PRIVATE) {
             return true;
         }
-        return auth.map(context -> context.userId().equals(post.getOwnerId())).orElse(false);
+        return auth.map(context -> context.userId().equals(ownerId)).orElse(false);
     }
 
     private PostSummaryResponse toSummary(PostEntity post) {
@@ -376,7 +1155,10 @@ public class MockPostService {
                 post.getVisibility(),
                 post.getOwnerId(),
                 post.getOwnerDisplayName(),
-                post.getThumbnailUrl(),
+                buildThumbnailUrl(post.getFileId()),
+                post.getWidth(),
+                post.getHeight(),
+                post.getPlaceholder(),
                 post.getCreatedAt(),
                 post.getUpdatedAt(),
                 post.getCommentCount(),
@@ -385,7 +1167,11 @@ public class MockPostService {
     }
 
     private PostResponse toResponse(PostEntity post) {
-        List<CommentResponse> latest = commentRepository.findTop3ByPostIdOrderByCreatedAtDesc(post.getId()).stream()
+        return toResponse(post, commentRepository.findTop3ByPostIdOrderByCreatedAtDesc(post.getId()));
+    }
+
+    private PostResponse toResponse(PostEntity post, List<CommentEntity> latestComments) {
+        List<CommentResponse> latest = latestComments.stream()
                 .map(this::toCommentResponse)
                 .toList();
         return new PostResponse(
@@ -397,10 +1183,14 @@ public class MockPostService {
                 post.getOwnerId(),
                 post.getOwnerDisplayName(),
                 post.getFileId(),
-                post.getFileUrl(),
-                post.getThumbnailUrl(),
+                buildFileUrl(post.getFileId()),
+                buildThumbnailUrl(post.getFileId()),
                 post.getOriginalFileName(),
                 post.getFileSizeBytes(),
+                post.getMimeType(),
+                post.getWidth(),
+                post.getHeight(),
+                post.getPlaceholder(),
                 post.getCreatedAt(),
                 post.getUpdatedAt(),
                 post.getCommentCount(),
@@ -413,11 +1203,13 @@ public class MockPostService {
         return new CommentResponse(
                 comment.getId(),
                 comment.getPostId(),
+                comment.getParentId(),
                 comment.getAuthorId(),
                 comment.getAuthorDisplayName(),
                 comment.getText(),
                 comment.getCreatedAt(),
-                comment.getUpdatedAt()
+                comment.getUpdatedAt(),
+                comment.getReplyCount()
         );
     }
 
@@ -433,53 +1225,25 @@ public class MockPostService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The media redirect endpoint, which sends clients on to a signed local URL or a
+     * presigned bucket URL. Derived from the file id when responding, so posts stored or
+     * imported with other URLs still point at the configured storage.
+     */
     private String buildFileUrl(String fileId) {
-        return "https://cdn.example.com/files/" + fileId;
+        return UriComponentsBuilder.fromUriString(mediaBaseUrl)
+                .path("/files/{fileId}")
+                .buildAndExpand(fileId)
+                .encode()
+                .toUriString();
     }
 
+    // No scaled-down rendition is stored, so thumbnails are the original.
     private String buildThumbnailUrl(String fileId) {
-        return "https://cdn.example.com/thumbnails/" + fileId + ".jpg";
-    }
-
-    private long resolveHighestPostSequence() {
-        return postRepository.findAll().stream()
-                .map(PostEntity::getId)
-                .mapToLong(MockPostService::extractPostNumeric)
-                .max()
-                .orElse(1000L);
-    }
-
-    private long resolveHighestCommentSequence() {
-        return commentRepository.findAll().stream()
-                .map(CommentEntity::getId)
-                .mapToLong(MockPostService::extractCommentNumeric)
-                .max()
-                .orElse(5000L);
-    }
-
-    private static long extractPostNumeric(String id) {
-        if (id == null) {
-            return 0L;
-        }
-        return extractNumericSuffix(id, "post-");
+        return buildFileUrl(fileId);
     }
 
-    private static long extractCommentNumeric(String id) {
-        if (id == null) {
-            return 0L;
-        }
-        return extractNumericSuffix(id, "comment-");
-    }
-
-    private static long extractNumericSuffix(String id, String prefix) {
-        if (!id.startsWith(prefix)) {
-            return 0L;
-        }
-        try {
-            return Long.parseLong(id.substring(prefix.length()));
-        } catch (NumberFormatException ex) {
-            return 0L;
-        }
+    public record CommentThread(String postId, String version, long commentCount) {
     }
 
     public enum DeleteCommentResult {
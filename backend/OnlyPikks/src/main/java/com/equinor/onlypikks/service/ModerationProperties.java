@@ -0,0 +1,21 @@
+package com.equinor.onlypikks.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param blocklist      a text file with one blocked word or phrase per line; {@code #} starts a
+ *                       comment line. Nothing is blocked when unset.
+ * @param reloadInterval how often the file is checked for changes; zero or negative only
+ *                       reloads on request
+ */
+@ConfigurationProperties(prefix = "onlypikks.moderation")
+public record ModerationProperties(
+        String blocklist,
+        Duration reloadInterval
+) {
+    public Duration reloadIntervalOrDefault() {
+        return reloadInterval != null ? reloadInterval : Duration.ofSeconds(10);
+    }
+}
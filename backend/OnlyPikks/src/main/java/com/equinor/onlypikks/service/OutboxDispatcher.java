@@ -0,0 +1,168 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.OutboxEventRepository;
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Works through the outbox in the background. Each round claims a batch of due events with
+ * {@code SKIP LOCKED} and leases them, so any number of replicas can dispatch side by side
+ * without handing out an event twice. Every event is then handled in its own transaction;
+ * a failure pushes the event back with exponential backoff until it runs out of attempts
+ * and stays in the table, unprocessed, for inspection.
+ */
+@Component
+public class OutboxDispatcher implements DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(10);
+
+    private final OutboxEventRepository repository;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final TransactionTemplate transactions;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private volatile Instant nextCleanup = Instant.EPOCH;
+
+    public OutboxDispatcher(
+            OutboxEventRepository repository,
+            List<OutboxHandler> handlers,
+            PlatformTransactionManager transactionManager,
+            OutboxProperties properties
+    ) {
+        this.repository = repository;
+        for (OutboxHandler handler : handlers) {
+            if (this.handlers.putIfAbsent(handler.eventType(), handler) != null) {
+                throw new IllegalStateException("Duplicate outbox handler for " + handler.eventType());
+            }
+        }
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.batchSizeOrDefault();
+        this.maxAttempts = properties.maxAttemptsOrDefault();
+        this.initialBackoff = properties.initialBackoffOrDefault();
+        this.maxBackoff = properties.maxBackoffOrDefault();
+        this.lease = properties.leaseOrDefault();
+        this.retention = properties.retentionOrDefault();
+        if (properties.dispatcherEnabledOrDefault()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("outbox-dispatcher").daemon().factory());
+            long interval = properties.pollIntervalOrDefault().toMillis();
+            scheduler.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Schedules an immediate round; calls made while one is already queued are coalesced.
+     */
+    public void wakeUp() {
+        if (scheduler != null && wakeUpPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeUpPending.set(false);
+                poll();
+            });
+        }
+    }
+
+    /**
+     * Dispatches until no due events are left.
+     *
+     * @return the number of events handled or rescheduled
+     */
+    public int dispatchPending() {
+        int total = 0;
+        int claimed;
+        do {
+            claimed = dispatchBatch();
+            total += claimed;
+        } while (claimed == batchSize);
+        return total;
+    }
+
+    int dispatchBatch() {
+        List<OutboxEventEntity> batch = transactions.execute(status -> {
+            Instant now = now();
+            List<OutboxEventEntity> due = repository.lockDue(now, maxAttempts, batchSize);
+            if (!due.isEmpty()) {
+                repository.lease(due.stream().map(OutboxEventEntity::getId).toList(), now.plus(lease));
+            }
+            return due;
+        });
+        for (OutboxEventEntity event : batch) {
+            process(event);
+        }
+        return batch.size();
+    }
+
+    private void process(OutboxEventEntity event) {
+        OutboxHandler handler = handlers.get(event.getEventType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for " + event.getEventType());
+            }
+            transactions.executeWithoutResult(status -> {
+                handler.handle(event);
+                repository.markProcessed(event.getId(), now());
+            });
+        } catch (RuntimeException ex) {
+            Instant retryAt = now().plus(backoff(event.getAttempts() + 1));
+            String error = String.valueOf(ex.getMessage());
+            String truncated = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+            transactions.executeWithoutResult(status -> repository.markFailed(event.getId(), retryAt, truncated));
+        }
+    }
+
+    /**
+     * Exponential backoff: the initial delay after the first failure, doubling up to the cap.
+     */
+    Duration backoff(int attempt) {
+        int doublings = Math.min(Math.max(attempt - 1, 0), 30);
+        Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void poll() {
+        try {
+            dispatchPending();
+            Instant now = Instant.now();
+            if (now.isAfter(nextCleanup)) {
+                nextCleanup = now.plus(CLEANUP_INTERVAL);
+                transactions.executeWithoutResult(status -> repository.deleteProcessedBefore(now.minus(retention)));
+            }
+        } catch (RuntimeException ex) {
+            // Leave the events where they are; the next round claims them again.
+        }
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
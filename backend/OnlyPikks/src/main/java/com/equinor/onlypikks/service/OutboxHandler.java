@@ -0,0 +1,18 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+
+/**
+ * Carries out the side effect recorded by one type of outbox event.
+ *
+ * <p>Delivery is at least once: an event whose lease expires while its handler is still
+ * running is handed out again, so handlers must be idempotent. They run in a transaction
+ * together with marking the event processed, and a thrown exception rolls both back and
+ * schedules a retry.
+ */
+public interface OutboxHandler {
+
+    String eventType();
+
+    void handle(OutboxEventEntity event);
+}
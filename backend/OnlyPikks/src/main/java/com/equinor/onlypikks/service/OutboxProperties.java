@@ -0,0 +1,49 @@
+package com.equinor.onlypikks.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "onlypikks.outbox")
+public record OutboxProperties(
+        Boolean dispatcherEnabled,
+        Duration pollInterval,
+        Integer batchSize,
+        Integer maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        Duration lease,
+        Duration retention
+) {
+    public boolean dispatcherEnabledOrDefault() {
+        return dispatcherEnabled == null || dispatcherEnabled;
+    }
+
+    public Duration pollIntervalOrDefault() {
+        return pollInterval != null ? pollInterval : Duration.ofSeconds(1);
+    }
+
+    public int batchSizeOrDefault() {
+        return batchSize != null ? batchSize : 100;
+    }
+
+    public int maxAttemptsOrDefault() {
+        return maxAttempts != null ? maxAttempts : 10;
+    }
+
+    public Duration initialBackoffOrDefault() {
+        return initialBackoff != null ? initialBackoff : Duration.ofSeconds(1);
+    }
+
+    public Duration maxBackoffOrDefault() {
+        return maxBackoff != null ? maxBackoff : Duration.ofMinutes(10);
+    }
+
+    public Duration leaseOrDefault() {
+        return lease != null ? lease : Duration.ofMinutes(1);
+    }
+
+    public Duration retentionOrDefault() {
+        return retention != null ? retention : Duration.ofDays(1);
+    }
+}
@@ -0,0 +1,58 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.id.SnowflakeIdGenerator;
+import com.equinor.onlypikks.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Records side effects of a write in the write's own transaction. The events become visible
+ * to the {@link OutboxDispatcher} exactly when the write commits, and vanish with it on
+ * rollback.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository repository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final OutboxDispatcher dispatcher;
+
+    public OutboxService(
+            OutboxEventRepository repository,
+            SnowflakeIdGenerator idGenerator,
+            OutboxDispatcher dispatcher
+    ) {
+        this.repository = repository;
+        this.idGenerator = idGenerator;
+        this.dispatcher = dispatcher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, String aggregateId) {
+        enqueue(eventType, aggregateId, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, String aggregateId, String payload) {
+        repository.enqueue(
+                idGenerator.nextId(),
+                eventType,
+                aggregateId,
+                payload,
+                Instant.now().truncatedTo(ChronoUnit.MICROS)
+        );
+        // Start dispatching right after commit instead of waiting for the next poll.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+}
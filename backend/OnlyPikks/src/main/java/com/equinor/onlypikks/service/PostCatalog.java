@@ -0,0 +1,395 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.PostCatalogRow;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The listing columns of every post, held as parallel primitive arrays: creation time in epoch
+ * microseconds, owner as an int code, visibility as a byte and the two counters. Filtering a
+ * listing is then a loop over a few arrays with no entities, rows or boxing, and only the
+ * posts on the requested page are loaded afterwards.
+ *
+ * <p>Slots are kept in creation order, so newest or oldest first is a scan from one end that
+ * stops collecting once the page is full, and the slot number breaks ties for the other
+ * orders. Kept current from the post write paths; like {@link PublicFeedSnapshot} it
+ * remembers the feed versions it reflects, one per visibility since it holds posts of all of
+ * them, so only writes by other replicas trigger a rebuild.
+ */
+@Component
+public class PostCatalog {
+
+    private static final Duration STALENESS_CHECK_INTERVAL = Duration.ofSeconds(1);
+    private static final Comparator<Row> CREATION_ORDER = Comparator.comparingLong((Row row) -> micros(row.createdAt()))
+            .thenComparing(Row::id, Comparator.reverseOrder());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong lastStalenessCheck = new AtomicLong();
+    private final Map<String, Integer> ownerCodes = new HashMap<>();
+    private final AppliedFeedVersions sourceVersions = new AppliedFeedVersions();
+    private volatile boolean initialized;
+    private int size;
+    // Slot i holds one post; slots are sorted by creation time, then by id descending, so that
+    // walking them backwards lists newest first with ties in id order.
+    private String[] ids = new String[0];
+    private long[] createdAt = new long[0];
+    private int[] owners = new int[0];
+    private byte[] visibilities = new byte[0];
+    private long[] likeCounts = new long[0];
+    private long[] commentCounts = new long[0];
+
+    public record Row(
+            String id,
+            Instant createdAt,
+            String ownerId,
+            PostVisibility visibility,
+            long likeCount,
+            long commentCount
+    ) {
+        public static Row of(PostEntity post) {
+            return new Row(post.getId(), post.getCreatedAt(), post.getOwnerId(), post.getVisibility(),
+                    post.getLikeCount(), post.getCommentCount());
+        }
+
+        public static Row of(PostCatalogRow row) {
+            return new Row(row.getId(), row.getCreatedAt(), row.getOwnerId(), row.getVisibility(),
+                    row.getLikeCount(), row.getCommentCount());
+        }
+    }
+
+    /**
+     * @param postIds the ids on the requested page, in order
+     * @param total   how many posts matched the filters
+     */
+    public record Page(List<String> postIds, long total) {
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public Map<PostVisibility, Long> sourceVersions() {
+        return sourceVersions.current();
+    }
+
+    /**
+     * Rate-limits comparisons against the database version, like
+     * {@link PublicFeedSnapshot#claimStalenessCheck()}.
+     */
+    public boolean claimStalenessCheck() {
+        long now = System.currentTimeMillis();
+        long last = lastStalenessCheck.get();
+        return now - last >= STALENESS_CHECK_INTERVAL.toMillis() && lastStalenessCheck.compareAndSet(last, now);
+    }
+
+    public void reset(Collection<Row> rows, Map<PostVisibility, Long> versions) {
+        Row[] sorted = rows.toArray(Row[]::new);
+        Arrays.sort(sorted, CREATION_ORDER);
+        lock.writeLock().lock();
+        try {
+            ownerCodes.clear();
+            size = 0;
+            int capacity = Math.max(16, sorted.length + sorted.length / 8);
+            ids = new String[capacity];
+            createdAt = new long[capacity];
+            owners = new int[capacity];
+            visibilities = new byte[capacity];
+            likeCounts = new long[capacity];
+            commentCounts = new long[capacity];
+            for (Row row : sorted) {
+                write(size++, row);
+            }
+            sourceVersions.reset(versions);
+            initialized = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the contents after writes that bypassed the write paths; the next query rebuilds.
+     */
+    public void invalidate() {
+        initialized = false;
+    }
+
+    /**
+     * Adds or updates a post. Ignored until the catalog is first built, which reads it anyway.
+     */
+    public void put(Row row) {
+        lock.writeLock().lock();
+        try {
+            if (!initialized) {
+                return;
+            }
+            int existing = find(row.id(), micros(row.createdAt()));
+            if (existing >= 0) {
+                // The creation time never changes, so the post keeps its slot.
+                write(existing, row);
+                return;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            int slot = insertionPoint(row);
+            shift(slot, slot + 1, size - slot);
+            size++;
+            write(slot, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that the write which produced this version of the feed of one visibility has
+     * been applied, like {@link PublicFeedSnapshot#advance(long)}.
+     */
+    public void advance(PostVisibility feed, long feedVersion) {
+        sourceVersions.advance(feed, feedVersion);
+    }
+
+    public void remove(String postId, Instant postCreatedAt) {
+        lock.writeLock().lock();
+        try {
+            int slot = initialized ? find(postId, micros(postCreatedAt)) : -1;
+            if (slot >= 0) {
+                shift(slot + 1, slot, size - slot - 1);
+                size--;
+                ids[size] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The posts matching the filters, in the given order, from {@code offset}. Every slot is
+     * visited once to count the matches; the page itself is collected along the way.
+     */
+    public Page query(
+            Optional<String> ownerId,
+            Set<PostVisibility> allowed,
+            PostOrder order,
+            int offset,
+            int limit
+    ) {
+        int mask = 0;
+        for (PostVisibility visibility : allowed) {
+            mask |= 1 << visibility.ordinal();
+        }
+        lock.readLock().lock();
+        try {
+            int owner = ownerId.map(id -> ownerCodes.getOrDefault(id, -2)).orElse(-1);
+            if (owner == -2 || mask == 0) {
+                return new Page(List.of(), 0);
+            }
+            return switch (order) {
+                case NEWEST, TRENDING -> scan(owner, mask, offset, limit, true);
+                case OLDEST -> scan(owner, mask, offset, limit, false);
+                case MOST_LIKED -> mostLiked(owner, mask, offset, limit);
+            };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page scan(int owner, int mask, int offset, int limit, boolean newestFirst) {
+        List<String> page = new ArrayList<>(Math.max(Math.min(limit, size), 0));
+        long end = (long) offset + limit;
+        long total = 0;
+        int step = newestFirst ? -1 : 1;
+        int slot = newestFirst ? size - 1 : 0;
+        int remaining = size;
+        for (; remaining > 0 && total < end; slot += step, remaining--) {
+            if (matches(slot, owner, mask)) {
+                if (total >= offset) {
+                    page.add(ids[slot]);
+                }
+                total++;
+            }
+        }
+        // The page is full; the rest only adds to the total, which needs no branch per slot.
+        int from = newestFirst ? 0 : slot;
+        int to = from + remaining;
+        if (owner < 0) {
+            for (int i = from; i < to; i++) {
+                total += mask >>> visibilities[i] & 1;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                total += mask >>> visibilities[i] & (owners[i] == owner ? 1 : 0);
+            }
+        }
+        return new Page(page, total);
+    }
+
+    /**
+     * Most liked, then most commented, then newest: the best {@code offset + limit} matches
+     * are kept in a min-heap of slot numbers, so the cost is one pass plus a heap operation per
+     * match that makes the cut.
+     */
+    private Page mostLiked(int owner, int mask, int offset, int limit) {
+        int keep = (int) Math.min((long) offset + limit, size);
+        int[] heap = new int[Math.max(keep, 0)];
+        int heapSize = 0;
+        // The like count of the lowest ranked post kept, once the heap is full: most posts
+        // fall below it and are rejected with one comparison.
+        long cutoff = Long.MIN_VALUE;
+        long total = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (!matches(slot, owner, mask)) {
+                continue;
+            }
+            total++;
+            if (heapSize < keep) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+                cutoff = heapSize == keep ? likeCounts[heap[0]] : Long.MIN_VALUE;
+            } else if (likeCounts[slot] >= cutoff && keep > 0 && ranksAbove(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+                cutoff = likeCounts[heap[0]];
+            }
+        }
+        int[] best = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            best[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        List<String> page = new ArrayList<>(Math.max(heapSize - offset, 0));
+        for (int i = offset; i < heapSize; i++) {
+            page.add(ids[best[i]]);
+        }
+        return new Page(page, total);
+    }
+
+    private boolean matches(int slot, int owner, int mask) {
+        return (mask >>> visibilities[slot] & 1) != 0 && (owner < 0 || owners[slot] == owner);
+    }
+
+    private boolean ranksAbove(int a, int b) {
+        if (likeCounts[a] != likeCounts[b]) {
+            return likeCounts[a] > likeCounts[b];
+        }
+        if (commentCounts[a] != commentCounts[b]) {
+            return commentCounts[a] > commentCounts[b];
+        }
+        return a > b;
+    }
+
+    // The heap root is the lowest ranked slot kept so far.
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], slot)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        int slot = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksAbove(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksAbove(slot, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    private int find(String postId, long micros) {
+        int slot = lowerBound(micros);
+        for (; slot < size && createdAt[slot] == micros; slot++) {
+            if (ids[slot].equals(postId)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insertionPoint(Row row) {
+        long micros = micros(row.createdAt());
+        int slot = lowerBound(micros);
+        while (slot < size && createdAt[slot] == micros && ids[slot].compareTo(row.id()) > 0) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private int lowerBound(long micros) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (createdAt[middle] < micros) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void write(int slot, Row row) {
+        ids[slot] = row.id();
+        createdAt[slot] = micros(row.createdAt());
+        owners[slot] = ownerCodes.computeIfAbsent(row.ownerId(), ignored -> ownerCodes.size());
+        visibilities[slot] = (byte) row.visibility().ordinal();
+        likeCounts[slot] = row.likeCount();
+        commentCounts[slot] = row.commentCount();
+    }
+
+    private void shift(int from, int to, int length) {
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(createdAt, from, createdAt, to, length);
+        System.arraycopy(owners, from, owners, to, length);
+        System.arraycopy(visibilities, from, visibilities, to, length);
+        System.arraycopy(likeCounts, from, likeCounts, to, length);
+        System.arraycopy(commentCounts, from, commentCounts, to, length);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        visibilities = Arrays.copyOf(visibilities, capacity);
+        likeCounts = Arrays.copyOf(likeCounts, capacity);
+        commentCounts = Arrays.copyOf(commentCounts, capacity);
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+}
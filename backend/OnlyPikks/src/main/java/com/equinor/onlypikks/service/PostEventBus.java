@@ -0,0 +1,192 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostEventResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process fan-out of post events to Server-Sent Events subscribers.
+ *
+ * <p>Idle subscribers hold no thread: the emitter lives on an async servlet request, and a
+ * sender task is only started while a subscriber has queued events. Each subscriber has a
+ * bounded buffer; a client that cannot keep up is disconnected instead of slowing down
+ * the publisher or growing memory, and its {@code EventSource} reconnects and refetches.
+ */
+@Component
+public class PostEventBus implements DisposableBean {
+
+    static final int BUFFER_CAPACITY = 64;
+    private static final Duration EMITTER_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(25);
+
+    private final ConcurrentHashMap<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("post-events-heartbeat").daemon().factory());
+
+    public PostEventBus() {
+        long interval = HEARTBEAT_INTERVAL.toMillis();
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(String postId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT.toMillis());
+        Subscription subscription = new Subscription(postId, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        subscriptions.compute(postId, (key, current) -> {
+            Set<Subscription> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        return emitter;
+    }
+
+    public void publish(PostEventResponse event) {
+        Set<Subscription> targets = subscriptions.get(event.postId());
+        if (targets == null) {
+            return;
+        }
+        Set<DataWithMediaType> message = build(SseEmitter.event()
+                .name(event.type())
+                .data(event, MediaType.APPLICATION_JSON));
+        for (Subscription subscription : targets) {
+            subscription.offer(message);
+        }
+    }
+
+    /**
+     * Publishes a final event and then ends every stream for the post.
+     */
+    public void publishAndClose(PostEventResponse event) {
+        publish(event);
+        Set<Subscription> targets = subscriptions.get(event.postId());
+        if (targets != null) {
+            targets.forEach(Subscription::completeWhenDrained);
+        }
+    }
+
+    public int subscriberCount(String postId) {
+        Set<Subscription> targets = subscriptions.get(postId);
+        return targets != null ? targets.size() : 0;
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscriptions.values().forEach(set -> set.forEach(Subscription::close));
+        senders.shutdownNow();
+    }
+
+    private void sendHeartbeats() {
+        Set<DataWithMediaType> heartbeat = build(SseEmitter.event().comment("keep-alive"));
+        subscriptions.values().forEach(set -> set.forEach(subscription -> subscription.offer(heartbeat)));
+    }
+
+    /**
+     * Builds an event once for all its subscribers. A builder changes each time it is built,
+     * so it cannot be shared; the built parts can, being read-only.
+     */
+    private static Set<DataWithMediaType> build(SseEmitter.SseEventBuilder builder) {
+        return Collections.unmodifiableSet(builder.build());
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.postId, (key, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscription {
+
+        private final String postId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean completeWhenDrained;
+
+        private Subscription(String postId, SseEmitter emitter) {
+            this.postId = postId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> message) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(message)) {
+                // Slow consumer: drop the connection rather than buffer without bound.
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void completeWhenDrained() {
+            completeWhenDrained = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (!closed.get()) {
+                Set<DataWithMediaType> next = buffer.poll();
+                if (next == null) {
+                    if (completeWhenDrained) {
+                        close();
+                        return;
+                    }
+                    draining.set(false);
+                    // Re-check in case an event was queued after the poll but before the flag was cleared.
+                    if (buffer.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | RuntimeException ex) {
+                    // Any failed send ends the stream, so the subscriber is never left draining.
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            remove(this);
+            buffer.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // Already completed by the container.
+            }
+        }
+    }
+}
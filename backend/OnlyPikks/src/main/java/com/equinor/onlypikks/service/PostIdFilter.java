@@ -0,0 +1,287 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.id.SnowflakeIdGenerator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Tells, without a database round trip, that a post id certainly does not exist, so that
+ * requests for made-up ids cost a few array reads. A counting Bloom filter over the ids of
+ * live posts, with four-bit counters so deleted posts can be taken out again.
+ *
+ * <p>Grows by adding stages, each with twice the capacity of the last at half its
+ * false-positive rate, which bounds the overall rate at twice {@link #FALSE_POSITIVE_RATE}
+ * however many posts are created after the last rebuild.
+ *
+ * <p>A miss is only trusted for ids the filter is sure to have seen: those issued by this
+ * node, which are added as their post commits, and those minted before the last rebuild
+ * read the ids. Posts created on other replicas since are always looked up, and so are ids
+ * no generator mints. An import may add posts with any id, old or from this node's range
+ * alike, on any replica; like {@link PostCatalog} the filter remembers the feed versions it
+ * reflects, so that an import elsewhere, which moves them without a local write, is noticed
+ * by the next staleness check and rebuilt for.
+ */
+@Component
+public class PostIdFilter {
+
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1_024;
+    private static final String PREFIX = "post-";
+    // Posts minted shortly before a rebuild may commit after it read the ids.
+    private static final Duration COMMIT_ALLOWANCE = Duration.ofMinutes(1);
+    private static final Duration STALENESS_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final int nodeId;
+    private final AtomicLong lastStalenessCheck = new AtomicLong();
+    private final AppliedFeedVersions sourceVersions = new AppliedFeedVersions();
+    // Null until built; replaced as a whole when a stage is added.
+    private volatile Stage[] stages;
+    // In milliseconds since the id epoch, so ids are checked against it without decoding.
+    private volatile long watermark = Long.MIN_VALUE;
+
+    public PostIdFilter(SnowflakeIdGenerator idGenerator) {
+        this.nodeId = idGenerator.nodeId();
+    }
+
+    public Map<PostVisibility, Long> sourceVersions() {
+        return sourceVersions.current();
+    }
+
+    /**
+     * Rate-limits comparisons against the database versions, like
+     * {@link PostCatalog#claimStalenessCheck()}.
+     */
+    public boolean claimStalenessCheck() {
+        long now = System.currentTimeMillis();
+        long last = lastStalenessCheck.get();
+        return now - last >= STALENESS_CHECK_INTERVAL.toMillis() && lastStalenessCheck.compareAndSet(last, now);
+    }
+
+    /**
+     * Records that the write which produced this feed version has been applied, like
+     * {@link PostCatalog#advance(PostVisibility, long)}.
+     */
+    public void advance(PostVisibility feed, long feedVersion) {
+        sourceVersions.advance(feed, feedVersion);
+    }
+
+    /**
+     * True only when no live post has this id. Lock-free, and safe alongside writes.
+     */
+    public boolean definitelyAbsent(String postId) {
+        Stage[] current = stages;
+        if (current == null || !tracked(postId)) {
+            return false;
+        }
+        long hash = hash(postId);
+        long step = step(hash);
+        for (Stage stage : current) {
+            if (stage.mightContain(hash, step)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records a committed post. Ignored until the filter is first built, which reads it anyway.
+     */
+    public synchronized void add(String postId) {
+        if (stages == null) {
+            return;
+        }
+        Stage newest = stages[stages.length - 1];
+        if (newest.load >= newest.capacity) {
+            newest = new Stage(newest.capacity * 2, newest.falsePositiveRate / 2);
+            Stage[] grown = Arrays.copyOf(stages, stages.length + 1);
+            grown[grown.length - 1] = newest;
+            stages = grown;
+        }
+        long hash = hash(postId);
+        newest.add(hash, step(hash));
+    }
+
+    /**
+     * Takes a deleted post out. Only done when the filter is sure it added the id, which an
+     * import on another replica may not have let it: the delete must be the next write to
+     * its feed after the ones applied here. And only when exactly one stage may hold the id:
+     * that must be the one it was added to, whereas decrementing a stage that matches by
+     * chance would hide other posts. Otherwise the id stays, and costs a lookup when asked for.
+     *
+     * @param feed        the visibility of the deleted post
+     * @param feedVersion the version of that feed the delete moved it to
+     * @return whether the id was taken out
+     */
+    public synchronized boolean remove(String postId, PostVisibility feed, long feedVersion) {
+        if (stages == null || !tracked(postId) || sourceVersions.current(feed) != feedVersion - 1) {
+            return false;
+        }
+        long hash = hash(postId);
+        long step = step(hash);
+        Stage holder = null;
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash, step)) {
+                if (holder != null) {
+                    return false;
+                }
+                holder = stage;
+            }
+        }
+        if (holder == null) {
+            return false;
+        }
+        holder.remove(hash, step);
+        return true;
+    }
+
+    /**
+     * Replaces the contents with the ids {@code loader} reads. Writes wait meanwhile, so none
+     * is lost between the read and the swap; lookups keep using the old contents.
+     *
+     * @param versions the feed versions, read before the ids
+     */
+    public synchronized void rebuild(Map<PostVisibility, Long> versions, Supplier<? extends Collection<String>> loader) {
+        Instant readAt = Instant.now();
+        reset(loader.get(), readAt.minus(COMMIT_ALLOWANCE), versions);
+    }
+
+    /**
+     * @param ids      every live post id
+     * @param minted   ids minted before this instant are all among {@code ids}
+     * @param versions the feed versions {@code ids} reflect
+     */
+    synchronized void reset(Collection<String> ids, Instant minted, Map<PostVisibility, Long> versions) {
+        Stage stage = new Stage(Math.max(MIN_CAPACITY, ids.size() * 2), FALSE_POSITIVE_RATE);
+        for (String id : ids) {
+            long hash = hash(id);
+            stage.add(hash, step(hash));
+        }
+        watermark = minted.toEpochMilli() - SnowflakeIdGenerator.EPOCH.toEpochMilli();
+        sourceVersions.reset(versions);
+        stages = new Stage[]{stage};
+    }
+
+    /**
+     * Whether every post with this id was added, imports aside: ids from this node and ids
+     * minted before the watermark. Other ids only come from imports.
+     */
+    private boolean tracked(String postId) {
+        long id = snowflake(postId);
+        return id >= 0
+                && (SnowflakeIdGenerator.nodeIdOf(id) == nodeId || SnowflakeIdGenerator.millisOf(id) < watermark);
+    }
+
+    private static long snowflake(String postId) {
+        int length = postId.length();
+        if (!postId.startsWith(PREFIX) || length == PREFIX.length() || length > PREFIX.length() + 18) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < length; i++) {
+            char c = postId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    // FNV-1a over the characters, then the MurmurHash3 finalizer to spread the bits.
+    private static long hash(String postId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < postId.length(); i++) {
+            hash = (hash ^ postId.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Probe i is at hash + i * step (double hashing).
+    private static long step(long hash) {
+        return mix(hash + 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * One fixed-size filter of four-bit counters, sixteen to a long. A counter that reaches
+     * fifteen stays there, as it no longer knows how many ids share it.
+     */
+    private static final class Stage {
+
+        private static final int SATURATED = 15;
+
+        final int capacity;
+        final double falsePositiveRate;
+        final int counterCount;
+        final int probes;
+        final AtomicLongArray counters;
+        // Ids added less ids removed; guarded by the filter's lock.
+        int load;
+
+        Stage(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double countersPerId = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            this.counterCount = (int) Math.min(Integer.MAX_VALUE - 15L, (long) Math.ceil(capacity * countersPerId));
+            this.probes = Math.max(1, (int) Math.round(countersPerId * Math.log(2)));
+            this.counters = new AtomicLongArray((counterCount + 15) / 16);
+        }
+
+        boolean mightContain(long hash, long step) {
+            for (int i = 0; i < probes; i++) {
+                if (counter(index(hash, step, i)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long hash, long step) {
+            for (int i = 0; i < probes; i++) {
+                int index = index(hash, step, i);
+                if (counter(index) < SATURATED) {
+                    counters.getAndAdd(index >>> 4, 1L << shift(index));
+                }
+            }
+            load++;
+        }
+
+        void remove(long hash, long step) {
+            for (int i = 0; i < probes; i++) {
+                int index = index(hash, step, i);
+                int counter = counter(index);
+                if (counter > 0 && counter < SATURATED) {
+                    counters.getAndAdd(index >>> 4, -(1L << shift(index)));
+                }
+            }
+            load--;
+        }
+
+        // Maps the top 32 bits onto the counters with a multiply instead of a division.
+        private int index(long hash, long step, int probe) {
+            return (int) (((hash + probe * step) >>> 32) * counterCount >>> 32);
+        }
+
+        private int counter(int index) {
+            return (int) (counters.get(index >>> 4) >>> shift(index)) & 0xF;
+        }
+
+        private static int shift(int index) {
+            return (index & 15) << 2;
+        }
+    }
+}
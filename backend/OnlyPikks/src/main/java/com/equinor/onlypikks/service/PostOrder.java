@@ -0,0 +1,47 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.entity.PostEntity;
+
+import java.util.Comparator;
+
+/**
+ * Orderings of the post listing, by their {@code sort} parameter values. Ties on creation
+ * time go to the smaller id, as in the public feed snapshot.
+ */
+public enum PostOrder {
+    NEWEST("created_desc"),
+    OLDEST("created_asc"),
+    MOST_LIKED("popular"),
+    // No engagement-over-time score yet; listed newest first like before.
+    TRENDING("trending");
+
+    private static final Comparator<PostEntity> NEWEST_FIRST = Comparator.comparing(PostEntity::getCreatedAt)
+            .reversed()
+            .thenComparing(PostEntity::getId);
+
+    private final String parameter;
+
+    PostOrder(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public static PostOrder parse(String parameter) {
+        for (PostOrder order : values()) {
+            if (order.parameter.equals(parameter)) {
+                return order;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort value: " + parameter);
+    }
+
+    public Comparator<PostEntity> comparator() {
+        return switch (this) {
+            case NEWEST, TRENDING -> NEWEST_FIRST;
+            case OLDEST -> NEWEST_FIRST.reversed();
+            case MOST_LIKED -> Comparator.comparingLong(PostEntity::getLikeCount)
+                    .thenComparingLong(PostEntity::getCommentCount)
+                    .reversed()
+                    .thenComparing(NEWEST_FIRST);
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Fields of a post summary that can be selected with {@code fields=}, mapped to the JSON name
+ * clients use and the entity attribute that backs them.
+ */
+public enum PostSummaryField {
+    ID("id", "id", PostSummaryResponse::id),
+    TITLE("title", "title", PostSummaryResponse::title),
+    DESCRIPTION("description", "description", PostSummaryResponse::description),
+    TAGS("tags", null, PostSummaryResponse::tags),
+    VISIBILITY("visibility", "visibility", PostSummaryResponse::visibility),
+    OWNER_ID("owner_id", "ownerId", PostSummaryResponse::ownerId),
+    OWNER_DISPLAY_NAME("owner_display_name", "ownerDisplayName", PostSummaryResponse::ownerDisplayName),
+    THUMBNAIL_URL("thumbnail_url", "fileId", PostSummaryResponse::thumbnailUrl),
+    WIDTH("width", "width", PostSummaryResponse::width),
+    HEIGHT("height", "height", PostSummaryResponse::height),
+    PLACEHOLDER("placeholder", "placeholder", PostSummaryResponse::placeholder),
+    CREATED_AT("created_at", "createdAt", PostSummaryResponse::createdAt),
+    UPDATED_AT("updated_at", "updatedAt", PostSummaryResponse::updatedAt),
+    COMMENT_COUNT("comment_count", "commentCount", PostSummaryResponse::commentCount),
+    LIKE_COUNT("like_count", "likeCount", PostSummaryResponse::likeCount);
+
+    private final String jsonName;
+    private final String attribute;
+    private final Function<PostSummaryResponse, Object> accessor;
+
+    PostSummaryField(String jsonName, String attribute, Function<PostSummaryResponse, Object> accessor) {
+        this.jsonName = jsonName;
+        this.attribute = attribute;
+        this.accessor = accessor;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    /**
+     * The scalar entity attribute the value is read from, or null for {@link #TAGS}, which
+     * lives in its own table. {@link #THUMBNAIL_URL} is built from the file id.
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    public Object read(PostSummaryResponse summary) {
+        return accessor.apply(summary);
+    }
+
+    /**
+     * Parses a comma-separated {@code fields} parameter. The id is always included.
+     */
+    public static Set<PostSummaryField> parse(String fields) {
+        EnumSet<PostSummaryField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            selected.add(Arrays.stream(values())
+                    .filter(field -> field.jsonName.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + trimmed)));
+        }
+        return selected;
+    }
+}
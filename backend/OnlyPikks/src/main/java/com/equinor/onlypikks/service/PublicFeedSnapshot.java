@@ -0,0 +1,198 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PagedResponse;
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Materialized first pages of the anonymous {@code created_desc} feed, kept as immutable,
+ * pre-serialized JSON, both plain and gzip-compressed. Readers only dereference a volatile
+ * field; writers apply post changes under a lock and re-serialize the affected window.
+ *
+ * <p>Each snapshot remembers the version of the public feed it reflects, advanced past every
+ * local write to a public post as it is applied, so that {@link MockPostService} can detect
+ * writes made by other replicas and rebuild.
+ */
+@Component
+public class PublicFeedSnapshot {
+
+    public static final int PAGE_SIZE = 24;
+    public static final int MAX_PAGES = 5;
+    public static final int CAPACITY = PAGE_SIZE * MAX_PAGES;
+    private static final Duration STALENESS_CHECK_INTERVAL = Duration.ofSeconds(1);
+    private static final Comparator<PostSummaryResponse> NEWEST_FIRST =
+            Comparator.comparing(PostSummaryResponse::createdAt).reversed()
+                    .thenComparing(PostSummaryResponse::id);
+
+    private final ObjectMapper objectMapper;
+    private final String instanceToken = UUID.randomUUID().toString();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong lastStalenessCheck = new AtomicLong();
+    private final AppliedVersions sourceVersion = new AppliedVersions();
+    private volatile State state;
+
+    public PublicFeedSnapshot(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isInitialized() {
+        return state != null;
+    }
+
+    public long sourceVersion() {
+        return sourceVersion.current();
+    }
+
+    public Optional<Page> page(int page) {
+        State current = state;
+        if (current == null || page < 1 || page > MAX_PAGES) {
+            return Optional.empty();
+        }
+        return Optional.of(new Page(
+                current.pages[page - 1],
+                current.gzipPages[page - 1],
+                current.total,
+                instanceToken + "-" + current.version
+        ));
+    }
+
+    /**
+     * Returns true for at most one caller per check interval; that caller should compare
+     * {@link #sourceVersion()} against the database.
+     */
+    public boolean claimStalenessCheck() {
+        long now = System.currentTimeMillis();
+        long last = lastStalenessCheck.get();
+        return now - last >= STALENESS_CHECK_INTERVAL.toMillis() && lastStalenessCheck.compareAndSet(last, now);
+    }
+
+    public void replace(List<PostSummaryResponse> newestPublic, long total, long sourceVersion) {
+        writeLock.lock();
+        try {
+            List<PostSummaryResponse> items = newestPublic.stream()
+                    .sorted(NEWEST_FIRST)
+                    .limit(CAPACITY)
+                    .toList();
+            long version = state != null ? state.version + 1 : 1;
+            state = build(items, total, version);
+            this.sourceVersion.reset(sourceVersion);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a single post change. {@code after} is the post's summary if it is public now,
+     * otherwise null (made non-public or deleted).
+     *
+     * @return false when the window lost an entry it cannot refill by itself; the caller
+     * must then {@link #replace} the snapshot from the database
+     */
+    public boolean apply(String postId, PostSummaryResponse after, boolean wasPublic) {
+        writeLock.lock();
+        try {
+            State current = state;
+            if (current == null) {
+                return true;
+            }
+            List<PostSummaryResponse> items = new ArrayList<>(current.items);
+            items.removeIf(item -> item.id().equals(postId));
+            if (after != null) {
+                int index = insertionPoint(items, after);
+                if (index < CAPACITY) {
+                    items.add(index, after);
+                }
+            }
+            long total = current.total + (after != null ? 1 : 0) - (wasPublic ? 1 : 0);
+            if (items.size() > CAPACITY) {
+                items = items.subList(0, CAPACITY);
+            }
+            if (items.size() < CAPACITY && total > items.size()) {
+                return false;
+            }
+            state = build(List.copyOf(items), total, current.version + 1);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Records that the write which produced this feed version has been applied, whether or
+     * not it changed the window.
+     */
+    public void advance(long feedVersion) {
+        sourceVersion.advance(feedVersion);
+    }
+
+    private static int insertionPoint(List<PostSummaryResponse> items, PostSummaryResponse candidate) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (NEWEST_FIRST.compare(items.get(mid), candidate) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private State build(List<PostSummaryResponse> items, long total, long version) {
+        byte[][] pages = new byte[MAX_PAGES][];
+        byte[][] gzipPages = new byte[MAX_PAGES][];
+        for (int i = 0; i < MAX_PAGES; i++) {
+            int from = Math.min(i * PAGE_SIZE, items.size());
+            int to = Math.min(from + PAGE_SIZE, items.size());
+            pages[i] = serialize(new PagedResponse<>(items.subList(from, to), i + 1, PAGE_SIZE, total));
+            gzipPages[i] = gzip(pages[i]);
+        }
+        return new State(items, total, version, pages, gzipPages);
+    }
+
+    private byte[] serialize(PagedResponse<PostSummaryResponse> page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize public feed page", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    public record Page(byte[] body, byte[] gzipBody, long total, String version) {
+    }
+
+    private record State(
+            List<PostSummaryResponse> items,
+            long total,
+            long version,
+            byte[][] pages,
+            byte[][] gzipPages
+    ) {
+    }
+}
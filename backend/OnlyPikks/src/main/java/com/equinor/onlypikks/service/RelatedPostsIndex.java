@@ -0,0 +1,421 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Related public posts by Jaccard similarity of their tags and title words. Each post's token
+ * set gets a MinHash signature whose bands are bucketed, so posts sharing a bucket are likely
+ * similar and only those are ever compared; there is no pairwise pass over all posts. Every
+ * post keeps its top {@value #TOP_K} list, maintained on each write by offering the written
+ * post to its candidates and recomputing only lists that lost it, so a read copies a list.
+ *
+ * <p>With {@value #BANDS} bands of {@value #ROWS} rows, pairs above about 0.25 similarity are
+ * very likely to share a bucket and pairs below 0.1 rarely do. Built in the background at
+ * startup and after imports by {@link TextIndexBuilder}; until the first build completes
+ * every post has no related posts.
+ */
+@Component
+public class RelatedPostsIndex {
+
+    public static final int TOP_K = 10;
+
+    static final int BANDS = 16;
+    static final int ROWS = 2;
+    /**
+     * Bounds the work per post when buckets are crowded, e.g. by posts with one popular tag
+     * and no title words in common.
+     */
+    static final int MAX_CANDIDATES = 256;
+
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final long[] SEEDS = new long[BANDS * ROWS];
+    private static final Comparator<Related> BEST_FIRST =
+            Comparator.comparingDouble(Related::score).reversed().thenComparing(Related::postId);
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < SEEDS.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(seed);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangesDuringRebuild changes = new ChangesDuringRebuild();
+    private volatile boolean ready;
+    private final Map<String, Entry> entries = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Map<Long, Bucket>[] buckets = new Map[BANDS];
+    private Entry[] byOrdinal = new Entry[1024];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int nextOrdinal;
+    // Candidate deduplication: an ordinal was seen in this pass when its stamp matches.
+    private int[] seen = new int[1024];
+    private int stamp;
+
+    public RelatedPostsIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            buckets[band] = new HashMap<>();
+        }
+    }
+
+    /**
+     * What the index needs from a post, captured when it is written.
+     */
+    public record Document(String postId, boolean isPublic, String title, List<String> tags) {
+
+        public static Document of(PostEntity post) {
+            return new Document(post.getId(), post.getVisibility() == PostVisibility.PUBLIC, post.getTitle(),
+                    List.copyOf(post.getTags()));
+        }
+    }
+
+    /**
+     * @param score the Jaccard similarity of the two posts' token sets
+     */
+    public record Related(String postId, double score) {
+    }
+
+    private static final class Entry {
+        final String postId;
+        final int ordinal;
+        final long[] tokens;
+        final long[] bandKeys;
+        List<Related> top = List.of();
+
+        Entry(String postId, int ordinal, long[] tokens, long[] bandKeys) {
+            this.postId = postId;
+            this.ordinal = ordinal;
+            this.tokens = tokens;
+            this.bandKeys = bandKeys;
+        }
+    }
+
+    private static final class Bucket {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    ordinals[i] = ordinals[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Starts recording written posts for {@link #finishRebuild}. Writes keep being applied
+     * meanwhile if the index was already built.
+     */
+    public void startRebuild() {
+        changes.start();
+    }
+
+    /**
+     * The posts written since the rebuild started or since the last call, to be re-read.
+     */
+    public Set<String> changedDuringRebuild() {
+        return changes.drain();
+    }
+
+    /**
+     * Swaps in the rebuilt contents, unless posts were written since the last
+     * {@link #changedDuringRebuild()}.
+     *
+     * @return false when those posts have to be re-read first
+     */
+    public boolean finishRebuild(Collection<Document> documents) {
+        return changes.finish(() -> reset(documents));
+    }
+
+    public void reset(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            for (Map<Long, Bucket> bucket : buckets) {
+                bucket.clear();
+            }
+            Arrays.fill(byOrdinal, null);
+            freeCount = 0;
+            nextOrdinal = 0;
+            for (Document document : documents) {
+                if (document.isPublic()) {
+                    index(document);
+                }
+            }
+            for (Entry entry : entries.values()) {
+                entry.top = best(score(entry));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds, updates or, for posts that are no longer public, removes a post.
+     */
+    public void put(Document document) {
+        changes.record(document.postId());
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Entry> lostIt = unindex(document.postId());
+            Entry entry = document.isPublic() ? index(document) : null;
+            if (entry != null) {
+                List<Related> scored = score(entry);
+                entry.top = best(scored);
+                for (Related related : scored) {
+                    offer(entries.get(related.postId()), new Related(entry.postId, related.score()));
+                }
+            }
+            for (Entry affected : lostIt) {
+                affected.top = best(score(affected));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String postId) {
+        changes.record(postId);
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Entry affected : unindex(postId)) {
+                affected.top = best(score(affected));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The post's related posts, most similar first; empty for posts that are not indexed,
+     * which before the first build is every post.
+     */
+    public List<Related> related(String postId, int limit) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(postId);
+            if (entry == null) {
+                return List.of();
+            }
+            return List.copyOf(entry.top.subList(0, Math.min(limit, entry.top.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Entry index(Document document) {
+        long[] tokens = tokens(document.title(), document.tags());
+        if (tokens.length == 0) {
+            return null;
+        }
+        int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+        if (ordinal == byOrdinal.length) {
+            byOrdinal = Arrays.copyOf(byOrdinal, ordinal * 2);
+            seen = Arrays.copyOf(seen, ordinal * 2);
+        }
+        Entry entry = new Entry(document.postId(), ordinal, tokens, bandKeys(tokens));
+        byOrdinal[ordinal] = entry;
+        entries.put(entry.postId, entry);
+        for (int band = 0; band < BANDS; band++) {
+            buckets[band].computeIfAbsent(entry.bandKeys[band], key -> new Bucket()).add(ordinal);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops a post and returns the posts whose lists held it.
+     */
+    private List<Entry> unindex(String postId) {
+        Entry entry = entries.remove(postId);
+        if (entry == null) {
+            return List.of();
+        }
+        for (int band = 0; band < BANDS; band++) {
+            Bucket bucket = buckets[band].get(entry.bandKeys[band]);
+            bucket.remove(entry.ordinal);
+            if (bucket.size == 0) {
+                buckets[band].remove(entry.bandKeys[band]);
+            }
+        }
+        byOrdinal[entry.ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = entry.ordinal;
+        List<Entry> lostIt = new ArrayList<>();
+        for (Related candidate : score(entry)) {
+            Entry other = entries.get(candidate.postId());
+            if (other.top.stream().anyMatch(related -> related.postId().equals(postId))) {
+                lostIt.add(other);
+            }
+        }
+        return lostIt;
+    }
+
+    /**
+     * Every indexed post sharing a bucket with {@code entry}, up to {@link #MAX_CANDIDATES},
+     * with its exact similarity.
+     */
+    private List<Related> score(Entry entry) {
+        List<Related> scored = new ArrayList<>();
+        int pass = ++stamp;
+        for (int band = 0; band < BANDS && scored.size() < MAX_CANDIDATES; band++) {
+            Bucket bucket = buckets[band].get(entry.bandKeys[band]);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size && scored.size() < MAX_CANDIDATES; i++) {
+                int ordinal = bucket.ordinals[i];
+                if (ordinal != entry.ordinal && seen[ordinal] != pass) {
+                    seen[ordinal] = pass;
+                    Entry candidate = byOrdinal[ordinal];
+                    scored.add(new Related(candidate.postId, jaccard(entry.tokens, candidate.tokens)));
+                }
+            }
+        }
+        return scored;
+    }
+
+    private static void offer(Entry entry, Related related) {
+        boolean listed = entry.top.stream().anyMatch(existing -> existing.postId().equals(related.postId()));
+        if (!listed && entry.top.size() == TOP_K && BEST_FIRST.compare(related, entry.top.get(TOP_K - 1)) > 0) {
+            return;
+        }
+        List<Related> top = new ArrayList<>(entry.top);
+        top.removeIf(existing -> existing.postId().equals(related.postId()));
+        top.add(related);
+        entry.top = best(top);
+    }
+
+    /**
+     * The {@link #TOP_K} best, by insertion into a short sorted list rather than sorting all.
+     */
+    private static List<Related> best(List<Related> related) {
+        List<Related> top = new ArrayList<>(TOP_K + 1);
+        for (Related candidate : related) {
+            if (top.size() == TOP_K && BEST_FIRST.compare(candidate, top.get(TOP_K - 1)) >= 0) {
+                continue;
+            }
+            int position = top.size();
+            while (position > 0 && BEST_FIRST.compare(candidate, top.get(position - 1)) < 0) {
+                position--;
+            }
+            top.add(position, candidate);
+            if (top.size() > TOP_K) {
+                top.remove(TOP_K);
+            }
+        }
+        return List.copyOf(top);
+    }
+
+    /**
+     * Sorted, distinct 64-bit hashes of the post's tags and title words; tags and words live in
+     * separate namespaces.
+     */
+    static long[] tokens(String title, Collection<String> tags) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String tag : tags) {
+            tokens.add("t:" + tag.toLowerCase(Locale.ROOT));
+        }
+        if (title != null) {
+            for (String word : title.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (word.length() >= MIN_WORD_LENGTH) {
+                    tokens.add("w:" + word);
+                }
+            }
+        }
+        return tokens.stream().mapToLong(RelatedPostsIndex::hash).distinct().sorted().toArray();
+    }
+
+    static long[] bandKeys(long[] tokens) {
+        long[] minimums = new long[SEEDS.length];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (long token : tokens) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                minimums[i] = Math.min(minimums[i], mix(token ^ SEEDS[i]));
+            }
+        }
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key ^ minimums[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    static double jaccard(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    private static long hash(String token) {
+        // FNV-1a, then mixed so similar strings spread across the whole range.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        // SplitMix64 finalizer.
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
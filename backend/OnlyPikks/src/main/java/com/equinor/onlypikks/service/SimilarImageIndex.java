@@ -0,0 +1,202 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.media.PerceptualHash;
+import com.equinor.onlypikks.repository.PostImageHash;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Perceptual hashes of post images, indexed for Hamming-distance queries. Each 64-bit hash is
+ * split into four 16-bit bands with one bucket per band value. Two hashes at most
+ * {@value #MAX_DISTANCE} bits apart differ in at most one bit in some band, so probing each
+ * band's own bucket and its 16 one-bit neighbours finds every match, and only those buckets'
+ * entries are compared. Seeded at startup and maintained from the write paths, like
+ * {@link TagStatistics}.
+ */
+@Component
+public class SimilarImageIndex {
+
+    public static final int MAX_DISTANCE = 7;
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int BAND_MASK = (1 << BAND_BITS) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final int[][][] buckets = new int[BANDS][1 << BAND_BITS][];
+    private final int[][] bucketSizes = new int[BANDS][1 << BAND_BITS];
+    private String[] postIds = new String[1024];
+    private long[] hashes = new long[1024];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int nextSlot;
+
+    public record Match(String postId, int distance) {
+    }
+
+    public void reset(Collection<PostImageHash> entries) {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            for (int band = 0; band < BANDS; band++) {
+                Arrays.fill(buckets[band], null);
+                Arrays.fill(bucketSizes[band], 0);
+            }
+            Arrays.fill(postIds, null);
+            freeCount = 0;
+            nextSlot = 0;
+            for (PostImageHash entry : entries) {
+                add(entry.getPostId(), entry.getPerceptualHash());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(String postId, long hash) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+            add(postId, hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String postId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Posts whose image hash is within {@code maxDistance} (at most {@value #MAX_DISTANCE}) of
+     * {@code hash}, closest first, leaving out {@code excludePostId}.
+     */
+    public List<Match> similar(long hash, int maxDistance, int limit, String excludePostId) {
+        int threshold = Math.min(maxDistance, MAX_DISTANCE);
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int band = 0; band < BANDS; band++) {
+                int key = band(hash, band);
+                probe(hash, band, key, threshold, excludePostId, matches);
+                for (int bit = 0; bit < BAND_BITS; bit++) {
+                    probe(hash, band, key ^ (1 << bit), threshold, excludePostId, matches);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::postId));
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    private void probe(long hash, int band, int key, int threshold, String excludePostId, List<Match> matches) {
+        int[] bucket = buckets[band][key];
+        int size = bucketSizes[band][key];
+        for (int i = 0; i < size; i++) {
+            int slot = bucket[i];
+            long candidate = hashes[slot];
+            int distance = PerceptualHash.distance(hash, candidate);
+            // A candidate is reachable from every band where it is within one bit; count it
+            // only from the first, so no result needs deduplicating.
+            if (distance <= threshold && firstNearBand(hash, candidate) == band
+                    && !postIds[slot].equals(excludePostId)) {
+                matches.add(new Match(postIds[slot], distance));
+            }
+        }
+    }
+
+    private static int firstNearBand(long a, long b) {
+        for (int band = 0; band < BANDS; band++) {
+            if (Integer.bitCount(band(a, band) ^ band(b, band)) <= 1) {
+                return band;
+            }
+        }
+        return -1;
+    }
+
+    private static int band(long hash, int band) {
+        return (int) (hash >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    private void add(String postId, long hash) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = nextSlot++;
+            if (slot == postIds.length) {
+                postIds = Arrays.copyOf(postIds, slot * 2);
+                hashes = Arrays.copyOf(hashes, slot * 2);
+            }
+        }
+        postIds[slot] = postId;
+        hashes[slot] = hash;
+        slots.put(postId, slot);
+        for (int band = 0; band < BANDS; band++) {
+            int key = band(hash, band);
+            int[] bucket = buckets[band][key];
+            int size = bucketSizes[band][key];
+            if (bucket == null) {
+                bucket = new int[2];
+            } else if (size == bucket.length) {
+                bucket = Arrays.copyOf(bucket, size * 2);
+            }
+            bucket[size] = slot;
+            buckets[band][key] = bucket;
+            bucketSizes[band][key] = size + 1;
+        }
+    }
+
+    private void removeLocked(String postId) {
+        Integer slot = slots.remove(postId);
+        if (slot == null) {
+            return;
+        }
+        long hash = hashes[slot];
+        for (int band = 0; band < BANDS; band++) {
+            int key = band(hash, band);
+            int[] bucket = buckets[band][key];
+            int size = bucketSizes[band][key];
+            for (int i = 0; i < size; i++) {
+                if (bucket[i] == slot) {
+                    bucket[i] = bucket[size - 1];
+                    bucketSizes[band][key] = size - 1;
+                    break;
+                }
+            }
+            if (size == 1) {
+                buckets[band][key] = null;
+            }
+        }
+        postIds[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
@@ -0,0 +1,14 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.media.ImageInfo;
+
+/**
+ * Media bytes that have been written to object storage under {@code fileId}, with the format
+ * and size read from the image headers, or a null {@code image} when it was not recognized.
+ */
+public record StoredMedia(String fileId, long sizeBytes, ImageInfo image) {
+
+    public StoredMedia(String fileId, long sizeBytes) {
+        this(fileId, sizeBytes, null);
+    }
+}
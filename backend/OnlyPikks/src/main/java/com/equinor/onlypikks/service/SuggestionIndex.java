@@ -0,0 +1,445 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.SuggestionKind;
+import com.equinor.onlypikks.api.model.SuggestionResponse;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Search-as-you-type completions over the tags, title words and owner names of public posts,
+ * weighted by how many posts use them. Terms live in a radix trie keyed by their folded form
+ * (lower case, accents removed), and every node keeps the {@value #TOP_K} heaviest terms below
+ * it, so a lookup walks at most the prefix and copies one list.
+ *
+ * <p>A write adjusts the weights of the terms it adds or removes and re-ranks the nodes on
+ * their paths, stopping early once a node's list comes out unchanged. Built in the background
+ * at startup and after imports by {@link TextIndexBuilder}, and empty until then.
+ */
+@Component
+public class SuggestionIndex {
+
+    public static final int TOP_K = 10;
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Terminal[] NO_TERMINALS = new Terminal[0];
+    private static final Comparator<Terminal> BEST_FIRST = Comparator.comparingLong((Terminal terminal) -> -terminal.weight)
+            .thenComparing(terminal -> terminal.text)
+            .thenComparing(terminal -> terminal.kind);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChangesDuringRebuild changes = new ChangesDuringRebuild();
+    private volatile boolean ready;
+    private Node root = new Node("");
+
+    /**
+     * A completion one post contributes; {@code key} is the folded form lookups match against
+     * and {@code text} what is shown.
+     */
+    public record Term(SuggestionKind kind, String key, String text) {
+    }
+
+    private static final class Terminal {
+        final SuggestionKind kind;
+        final String text;
+        long weight;
+
+        Terminal(SuggestionKind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    private static final class Node {
+        // Label of the edge from the parent; children are kept sorted by its first character.
+        String edge;
+        Node[] children = NO_CHILDREN;
+        // At most one per kind, for keys that are e.g. both a tag and a title word.
+        Terminal[] terminals = NO_TERMINALS;
+        Terminal[] top = NO_TERMINALS;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    /**
+     * The distinct terms of a post, regardless of its visibility.
+     */
+    public static List<Term> terms(PostEntity post) {
+        return terms(post.getTitle(), post.getTags(), post.getOwnerDisplayName());
+    }
+
+    static List<Term> terms(String title, Collection<String> tags, String ownerDisplayName) {
+        Map<String, Term> terms = new LinkedHashMap<>();
+        for (String tag : tags) {
+            addTerm(terms, SuggestionKind.TAG, tag);
+        }
+        if (title != null) {
+            for (String word : NON_WORD.split(title.toLowerCase(Locale.ROOT))) {
+                if (word.length() >= MIN_WORD_LENGTH) {
+                    addTerm(terms, SuggestionKind.TITLE, word);
+                }
+            }
+        }
+        if (ownerDisplayName != null) {
+            addTerm(terms, SuggestionKind.OWNER, SPACES.matcher(ownerDisplayName.strip()).replaceAll(" "));
+        }
+        return List.copyOf(terms.values());
+    }
+
+    /**
+     * Lower case without accents or repeated whitespace, so "Café  Crème" matches "cafe cr".
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SPACES.matcher(folded).replaceAll(" ").strip();
+    }
+
+    /**
+     * Rebuilds the trie from the terms of every public post, ranking each node once.
+     */
+    public void reset(Collection<? extends Collection<Term>> postTerms) {
+        Map<Term, Long> weights = new HashMap<>();
+        Map<String, Term> first = new HashMap<>();
+        for (Collection<Term> terms : postTerms) {
+            for (Term term : terms) {
+                Term canonical = first.computeIfAbsent(term.kind() + ":" + term.key(), ignored -> term);
+                weights.merge(canonical, 1L, Long::sum);
+            }
+        }
+        Node fresh = new Node("");
+        weights.forEach((term, weight) -> {
+            List<Node> path = locate(fresh, term.key(), true);
+            Node node = path.getLast();
+            Terminal terminal = new Terminal(term.kind(), term.text());
+            terminal.weight = weight;
+            node.terminals = append(node.terminals, terminal);
+        });
+        rankAll(fresh);
+        lock.writeLock().lock();
+        try {
+            root = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the difference between the terms a post contributed before and after a write.
+     * Either side may be empty, which covers creation and deletion.
+     */
+    public void applyChange(Collection<Term> before, Collection<Term> after) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Term term : before) {
+                if (!after.contains(term)) {
+                    adjust(term, -1);
+                }
+            }
+            for (Term term : after) {
+                if (!before.contains(term)) {
+                    adjust(term, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called before a write to the post commits; {@link #endChange} must follow.
+     */
+    public void beginChange(String postId) {
+        changes.begin(postId);
+    }
+
+    /**
+     * Applies a committed write's difference, or nothing for one that rolled back.
+     */
+    public void endChange(String postId, Collection<Term> before, Collection<Term> after) {
+        try {
+            applyChange(before, after);
+        } finally {
+            changes.end(postId);
+        }
+    }
+
+    public void startRebuild() {
+        changes.start();
+    }
+
+    /**
+     * The posts written since the rebuild started or since the last call, to be re-read.
+     */
+    public Set<String> changedDuringRebuild() {
+        return changes.drain();
+    }
+
+    /**
+     * Swaps in the rebuilt terms once no write is in flight, unless posts were written since
+     * the last {@link #changedDuringRebuild()}.
+     *
+     * @return false when those posts have to be re-read first
+     */
+    public boolean finishRebuild(Collection<? extends Collection<Term>> postTerms) {
+        return changes.finish(() -> reset(postTerms));
+    }
+
+    /**
+     * The heaviest terms starting with {@code prefix}, matched on its folded form.
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = fold(prefix);
+        if (key.length() > MAX_TERM_LENGTH) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int depth = 0;
+            while (depth < key.length()) {
+                int index = childIndex(node, key.charAt(depth));
+                if (index < 0) {
+                    return List.of();
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.edge, key, depth);
+                if (depth + common < key.length() && common < child.edge.length()) {
+                    return List.of();
+                }
+                node = child;
+                depth += common;
+            }
+            Terminal[] top = node.top;
+            List<SuggestionResponse> result = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                result.add(new SuggestionResponse(top[i].text, top[i].kind, top[i].weight));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void adjust(Term term, long delta) {
+        List<Node> path = locate(root, term.key(), delta > 0);
+        if (path == null) {
+            return;
+        }
+        Node node = path.getLast();
+        Terminal terminal = null;
+        for (Terminal candidate : node.terminals) {
+            if (candidate.kind == term.kind()) {
+                terminal = candidate;
+            }
+        }
+        if (terminal == null) {
+            if (delta <= 0) {
+                return;
+            }
+            terminal = new Terminal(term.kind(), term.text());
+            node.terminals = append(node.terminals, terminal);
+        }
+        terminal.weight += delta;
+        if (terminal.weight <= 0) {
+            Terminal removed = terminal;
+            node.terminals = Arrays.stream(node.terminals)
+                    .filter(candidate -> candidate != removed)
+                    .toArray(Terminal[]::new);
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node current = path.get(i);
+            if (i > 0 && current.terminals.length == 0 && current.children.length <= 1) {
+                // Drop nodes that no longer lead anywhere and fold single-child chains back
+                // into one edge, so the trie stays as small as after a rebuild.
+                Node parent = path.get(i - 1);
+                int index = childIndex(parent, current.edge.charAt(0));
+                if (current.children.length == 0) {
+                    parent.children = remove(parent.children, index);
+                } else {
+                    Node only = current.children[0];
+                    only.edge = current.edge + only.edge;
+                    parent.children[index] = only;
+                }
+                continue;
+            }
+            Terminal[] before = current.top;
+            current.top = rank(current);
+            if (Arrays.equals(before, current.top) && !contains(before, terminal)) {
+                // The ancestors rank this node by its list, which did not move.
+                break;
+            }
+        }
+    }
+
+    /**
+     * The nodes from {@code start} to the one for {@code key}, splitting edges and adding
+     * nodes on the way if {@code create} is set; otherwise null when the key is not present.
+     */
+    private static List<Node> locate(Node start, String key, boolean create) {
+        List<Node> path = new ArrayList<>();
+        path.add(start);
+        Node node = start;
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = childIndex(node, key.charAt(depth));
+            if (index < 0) {
+                if (!create) {
+                    return null;
+                }
+                Node leaf = new Node(key.substring(depth));
+                node.children = insert(node.children, -index - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.edge, key, depth);
+            if (common < child.edge.length()) {
+                if (!create) {
+                    return null;
+                }
+                Node middle = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                middle.children = new Node[]{child};
+                middle.top = child.top;
+                node.children[index] = middle;
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            depth += common;
+        }
+        return path;
+    }
+
+    private static void rankAll(Node node) {
+        for (Node child : node.children) {
+            rankAll(child);
+        }
+        node.top = rank(node);
+    }
+
+    /**
+     * The node's own terms merged with its children's lists, by insertion into a short
+     * sorted array.
+     */
+    private static Terminal[] rank(Node node) {
+        Terminal[] top = new Terminal[TOP_K];
+        int size = 0;
+        for (Terminal terminal : node.terminals) {
+            size = offer(top, size, terminal);
+        }
+        for (Node child : node.children) {
+            for (Terminal terminal : child.top) {
+                if (size == TOP_K && BEST_FIRST.compare(terminal, top[TOP_K - 1]) >= 0) {
+                    // Child lists are sorted, so nothing after this one fits either.
+                    break;
+                }
+                size = offer(top, size, terminal);
+            }
+        }
+        return size == TOP_K ? top : Arrays.copyOf(top, size);
+    }
+
+    private static int offer(Terminal[] top, int size, Terminal terminal) {
+        if (size == TOP_K && BEST_FIRST.compare(terminal, top[TOP_K - 1]) >= 0) {
+            return size;
+        }
+        int position = Math.min(size, TOP_K - 1);
+        while (position > 0 && BEST_FIRST.compare(terminal, top[position - 1]) < 0) {
+            top[position] = top[position - 1];
+            position--;
+        }
+        top[position] = terminal;
+        return Math.min(size + 1, TOP_K);
+    }
+
+    private static void addTerm(Map<String, Term> terms, SuggestionKind kind, String text) {
+        String key = fold(text);
+        if (!key.isEmpty() && key.length() <= MAX_TERM_LENGTH) {
+            terms.putIfAbsent(kind + ":" + key, new Term(kind, key, text));
+        }
+    }
+
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char candidate = node.children[middle].edge.charAt(0);
+            if (candidate < first) {
+                low = middle + 1;
+            } else if (candidate > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int length = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean contains(Terminal[] terminals, Terminal terminal) {
+        for (Terminal candidate : terminals) {
+            if (candidate == terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Terminal[] append(Terminal[] terminals, Terminal terminal) {
+        Terminal[] result = Arrays.copyOf(terminals, terminals.length + 1);
+        result[terminals.length] = terminal;
+        return result;
+    }
+
+    private static Node[] insert(Node[] children, int index, Node child) {
+        Node[] result = new Node[children.length + 1];
+        System.arraycopy(children, 0, result, 0, index);
+        result[index] = child;
+        System.arraycopy(children, index, result, index + 1, children.length - index);
+        return result;
+    }
+
+    private static Node[] remove(Node[] children, int index) {
+        Node[] result = new Node[children.length - 1];
+        System.arraycopy(children, 0, result, 0, index);
+        System.arraycopy(children, index + 1, result, index, result.length - index);
+        return result;
+    }
+}
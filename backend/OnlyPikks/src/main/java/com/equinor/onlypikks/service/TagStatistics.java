@@ -0,0 +1,106 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.TagCountResponse;
+import com.equinor.onlypikks.repository.TagCount;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Post counts per tag for publicly visible posts. The counts are seeded once at startup
+ * and then maintained incrementally from the post write paths, so reading the popular
+ * tags never has to regroup the {@code post_tags} table.
+ */
+@Component
+public class TagStatistics {
+
+    private static final Comparator<Map.Entry<String, Long>> BY_COUNT_THEN_TAG =
+            Map.Entry.<String, Long>comparingByValue()
+                    .thenComparing(Map.Entry.<String, Long>comparingByKey().reversed());
+
+    private final ConcurrentHashMap<String, Long> counts = new ConcurrentHashMap<>();
+
+    public void reset(List<TagCount> initialCounts) {
+        counts.clear();
+        for (TagCount tagCount : initialCounts) {
+            if (tagCount.getCount() > 0) {
+                counts.put(tagCount.getTag(), tagCount.getCount());
+            }
+        }
+    }
+
+    /**
+     * Applies the difference between the tags a post contributed before and after a write.
+     * Either side may be empty, which covers creation and deletion.
+     */
+    public void applyChange(Collection<String> before, Collection<String> after) {
+        for (String tag : before) {
+            if (!after.contains(tag)) {
+                adjust(tag, -1);
+            }
+        }
+        for (String tag : after) {
+            if (!before.contains(tag)) {
+                adjust(tag, 1);
+            }
+        }
+    }
+
+    public long count(String tag) {
+        return counts.getOrDefault(tag, 0L);
+    }
+
+    public List<TagCountResponse> topTags(int limit) {
+        return topK(counts, limit);
+    }
+
+    /**
+     * Selects the {@code limit} largest counts with a bounded min-heap, ordering ties by tag
+     * name so the result is stable between calls.
+     */
+    public static List<TagCountResponse> topK(Map<String, Long> source, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(limit + 1, BY_COUNT_THEN_TAG);
+        for (Map.Entry<String, Long> entry : source.entrySet()) {
+            Map.Entry<String, Long> snapshot = Map.entry(entry.getKey(), entry.getValue());
+            if (heap.size() < limit) {
+                heap.offer(snapshot);
+            } else if (BY_COUNT_THEN_TAG.compare(snapshot, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(snapshot);
+            }
+        }
+        List<TagCountResponse> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<String, Long> entry = heap.poll();
+            result.add(new TagCountResponse(entry.getKey(), entry.getValue()));
+        }
+        return result.reversed();
+    }
+
+    public static Map<String, Long> countTags(Collection<? extends Collection<String>> tagLists) {
+        Map<String, Long> result = new HashMap<>();
+        for (Collection<String> tags : tagLists) {
+            for (String tag : tags) {
+                result.merge(tag, 1L, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    private void adjust(String tag, long delta) {
+        counts.compute(tag, (key, current) -> {
+            long next = (current != null ? current : 0L) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+}
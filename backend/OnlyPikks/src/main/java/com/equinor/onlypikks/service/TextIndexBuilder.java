@@ -0,0 +1,135 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.PostRepository;
+import com.equinor.onlypikks.repository.PostTag;
+import com.equinor.onlypikks.repository.PostText;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Builds the in-memory indexes over post text, {@link RelatedPostsIndex} and
+ * {@link SuggestionIndex}, on a background thread, so startup and imports do not wait for a
+ * pass over every post. Public posts are read in keyset pages of id, title, owner name and
+ * tags rather than as entities; posts written during the pass are re-read before the result
+ * is swapped in.
+ */
+@Component
+public class TextIndexBuilder implements DisposableBean {
+
+    static final int PAGE_SIZE = 1_000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final PostRepository postRepository;
+    private final RelatedPostsIndex relatedPosts;
+    private final SuggestionIndex suggestions;
+    private final ScheduledExecutorService builder = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("text-index-build").daemon().factory());
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    public TextIndexBuilder(
+            PostRepository postRepository,
+            RelatedPostsIndex relatedPosts,
+            SuggestionIndex suggestions
+    ) {
+        this.postRepository = postRepository;
+        this.relatedPosts = relatedPosts;
+        this.suggestions = suggestions;
+    }
+
+    /**
+     * Queues a rebuild; calls made while one is already queued are coalesced.
+     */
+    public void rebuild() {
+        if (queued.compareAndSet(false, true)) {
+            builder.execute(this::runQueued);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        builder.shutdownNow();
+    }
+
+    private void runQueued() {
+        queued.set(false);
+        try {
+            build();
+        } catch (RuntimeException ex) {
+            // The indexes keep what they had; a database that is not up yet gets another go.
+            if (!builder.isShutdown()) {
+                builder.schedule(this::rebuild, RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void build() {
+        relatedPosts.startRebuild();
+        suggestions.startRebuild();
+        Map<String, Text> texts = new HashMap<>();
+        String after = "";
+        List<PostText> page;
+        do {
+            page = postRepository.findTextsAfter(PostVisibility.PUBLIC, after, PageRequest.of(0, PAGE_SIZE));
+            load(page, texts);
+            if (!page.isEmpty()) {
+                after = page.getLast().getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        swapIn(texts, relatedPosts::changedDuringRebuild,
+                loaded -> relatedPosts.finishRebuild(loaded.stream().map(Text::document).toList()));
+        swapIn(texts, suggestions::changedDuringRebuild,
+                loaded -> suggestions.finishRebuild(loaded.stream().map(Text::terms).toList()));
+    }
+
+    private void swapIn(Map<String, Text> texts, Supplier<Set<String>> changed, Predicate<Collection<Text>> finish) {
+        do {
+            Set<String> ids = changed.get();
+            if (!ids.isEmpty()) {
+                // Posts no longer public simply do not come back.
+                texts.keySet().removeAll(ids);
+                load(postRepository.findTextsByIds(PostVisibility.PUBLIC, ids), texts);
+            }
+        } while (!finish.test(texts.values()));
+    }
+
+    private void load(List<PostText> rows, Map<String, Text> texts) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> tags = new HashMap<>();
+        for (PostTag tag : postRepository.findTagsByPostIds(rows.stream().map(PostText::getId).toList())) {
+            tags.computeIfAbsent(tag.getPostId(), key -> new ArrayList<>()).add(tag.getTag());
+        }
+        for (PostText row : rows) {
+            texts.put(row.getId(), new Text(
+                    row.getId(), row.getTitle(), row.getOwnerDisplayName(), tags.getOrDefault(row.getId(), List.of())));
+        }
+    }
+
+    private record Text(String id, String title, String ownerDisplayName, List<String> tags) {
+
+        RelatedPostsIndex.Document document() {
+            return new RelatedPostsIndex.Document(id, true, title, tags);
+        }
+
+        List<SuggestionIndex.Term> terms() {
+            return SuggestionIndex.terms(title, tags, ownerDisplayName);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.FollowRepository;
+import com.equinor.onlypikks.repository.PostRepository;
+import com.equinor.onlypikks.repository.TimelineEntryRepository;
+import com.equinor.onlypikks.repository.entity.TimelineEntryEntity;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Follow graph and the precomputed "following" timelines.
+ *
+ * <p>Public posts are pushed into a {@code timeline_entries} row per follower when they are
+ * written, so reading a feed is a single index range scan. Owners with more than
+ * {@link FeedProperties#fanOutFollowerLimit()} followers are not pushed; their recent posts
+ * are pulled at read time and merged in instead; whether an owner is one is read from
+ * their stored follower count. Each timeline's size is kept in {@code timeline_sizes}, and a
+ * timeline is trimmed back to {@link FeedProperties#timelineCapacity()} entries only once it
+ * has grown past that by {@link #trimThreshold} slack, so a post ranks only the few timelines
+ * that need it and reads never write.
+ */
+@Service
+public class TimelineService {
+
+    private static final int BACKFILL_SIZE = 50;
+    private static final int FOLLOW_ATTEMPTS = 4;
+    private static final Comparator<Entry> NEWEST_FIRST =
+            Comparator.comparing(Entry::createdAt).reversed()
+                    .thenComparing(Comparator.comparing(Entry::postId).reversed());
+
+    private final FollowRepository followRepository;
+    private final TimelineEntryRepository timelineRepository;
+    private final PostRepository postRepository;
+    private final int fanOutFollowerLimit;
+    private final int capacity;
+    private final int trimThreshold;
+    private final TransactionTemplate writeTransaction;
+
+    public TimelineService(
+            FollowRepository followRepository,
+            TimelineEntryRepository timelineRepository,
+            PostRepository postRepository,
+            FeedProperties properties,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.followRepository = followRepository;
+        this.timelineRepository = timelineRepository;
+        this.postRepository = postRepository;
+        this.fanOutFollowerLimit = properties.fanOutFollowerLimitOrDefault();
+        this.capacity = properties.timelineCapacityOrDefault();
+        this.trimThreshold = capacity + Math.max(capacity / 8, 1);
+    }
+
+    public void follow(String followerId, String ownerId) {
+        if (followerId.equals(ownerId)) {
+            throw new IllegalArgumentException("You cannot follow yourself");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeTransaction.executeWithoutResult(status -> insertFollow(followerId, ownerId));
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                // A concurrent follow inserted the same follow, the owner's first count row or
+                // the follower's first size row, and committed first. The next attempt sees that
+                // row, so each of them can cost at most one retry.
+                if (attempt == FOLLOW_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private void insertFollow(String followerId, String ownerId) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (followRepository.insertIfAbsent(followerId, ownerId, now) == 0) {
+            return;
+        }
+        followRepository.createFollowerCount(ownerId);
+        followRepository.adjustFollowerCount(ownerId, 1);
+        timelineRepository.createSize(followerId);
+        if (followRepository.hasMoreFollowersThan(ownerId, fanOutFollowerLimit)) {
+            return;
+        }
+        int backfilled = timelineRepository.backfill(followerId, ownerId, BACKFILL_SIZE);
+        if (backfilled > 0) {
+            timelineRepository.adjustSize(followerId, backfilled);
+            if (timelineRepository.findSize(followerId).orElse(0L) > trimThreshold) {
+                trim(followerId);
+            }
+        }
+    }
+
+    @Transactional
+    public void unfollow(String followerId, String ownerId) {
+        // Counted only by the unfollow that removed the row, however many run at once.
+        if (followRepository.deleteFollow(followerId, ownerId) == 0) {
+            return;
+        }
+        followRepository.adjustFollowerCount(ownerId, -1);
+        int removed = timelineRepository.deleteByUserIdAndOwnerId(followerId, ownerId);
+        timelineRepository.adjustSize(followerId, -removed);
+    }
+
+    /**
+     * Pushes a public post to the owner's followers. Called by {@link TimelineSyncHandler}
+     * once the post write has committed; safe to repeat.
+     */
+    @Transactional
+    public void postPublished(String postId, String ownerId, Instant createdAt) {
+        if (followRepository.hasMoreFollowersThan(ownerId, fanOutFollowerLimit)) {
+            return;
+        }
+        if (timelineRepository.fanOut(postId, ownerId, createdAt) == 0) {
+            return;
+        }
+        timelineRepository.growFollowersOf(ownerId);
+        timelineRepository.findFollowersOfWithMoreEntriesThan(ownerId, trimThreshold)
+                .forEach(this::trim);
+    }
+
+    private void trim(String userId) {
+        timelineRepository.trim(userId, capacity);
+        timelineRepository.recountSize(userId);
+    }
+
+    /**
+     * Removes a post that was deleted or is no longer public from every timeline. The
+     * stored sizes are left as they are; counting too many only trims those timelines sooner.
+     */
+    public void postWithdrawn(String postId) {
+        timelineRepository.deleteByPostId(postId);
+    }
+
+    /**
+     * The newest {@code limit} entries of a user's following feed, merging the pushed
+     * timeline with posts pulled from popular owners.
+     */
+    @Transactional(readOnly = true)
+    public Window newest(String userId, int limit) {
+        int size = Math.max(Math.min(limit, capacity), 1);
+
+        Map<String, Entry> merged = new LinkedHashMap<>();
+        for (TimelineEntryEntity entry : timelineRepository.findNewest(userId, PageRequest.of(0, size))) {
+            merged.put(entry.getId().getPostId(), new Entry(entry.getId().getPostId(), entry.getCreatedAt()));
+        }
+        long total = timelineRepository.countByUserId(userId);
+
+        List<String> popularOwners = followRepository.findFolloweesWithMoreFollowersThan(userId, fanOutFollowerLimit);
+        if (!popularOwners.isEmpty()) {
+            PageRequest window = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+            postRepository.findByOwnerIdInAndVisibility(popularOwners, PostVisibility.PUBLIC, window)
+                    .forEach(post -> merged.putIfAbsent(post.getId(), new Entry(post.getId(), post.getCreatedAt())));
+            total += postRepository.countByOwnerIdInAndVisibility(popularOwners, PostVisibility.PUBLIC);
+        }
+
+        List<Entry> entries = new ArrayList<>(merged.values());
+        entries.sort(NEWEST_FIRST);
+        List<String> postIds = entries.stream()
+                .limit(size)
+                .map(Entry::postId)
+                .toList();
+        return new Window(postIds, Math.min(total, capacity));
+    }
+
+    public record Window(List<String> postIds, long total) {
+    }
+
+    private record Entry(String postId, Instant createdAt) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.PostRepository;
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Brings followers' timelines in line with a post whose visibility changed or that was
+ * deleted. It reads the post's current state rather than trusting the event, which makes
+ * repeated and out-of-order deliveries harmless.
+ */
+@Component
+public class TimelineSyncHandler implements OutboxHandler {
+
+    public static final String EVENT_TYPE = "post.timeline_sync";
+
+    private final PostRepository postRepository;
+    private final TimelineService timelines;
+
+    public TimelineSyncHandler(PostRepository postRepository, TimelineService timelines) {
+        this.postRepository = postRepository;
+        this.timelines = timelines;
+    }
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEventEntity event) {
+        Optional<PostEntity> post = postRepository.findById(event.getAggregateId())
+                .filter(candidate -> candidate.getVisibility() == PostVisibility.PUBLIC);
+        if (post.isPresent()) {
+            timelines.postPublished(post.get().getId(), post.get().getOwnerId(), post.get().getCreatedAt());
+        } else {
+            timelines.postWithdrawn(event.getAggregateId());
+        }
+    }
+}
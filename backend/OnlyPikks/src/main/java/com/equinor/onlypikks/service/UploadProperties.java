@@ -0,0 +1,51 @@
+package com.equinor.onlypikks.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "onlypikks.uploads")
+public record UploadProperties(
+        Integer maxConcurrent,
+        Integer maxConcurrentPerUser,
+        Integer maxQueued,
+        Duration queueTimeout,
+        DataSize maxSize,
+        DataSize bytesPerSecond,
+        DataSize bytesPerSecondPerUser
+) {
+    public int maxConcurrentOrDefault() {
+        return maxConcurrent != null && maxConcurrent > 0 ? maxConcurrent : 8;
+    }
+
+    public int maxConcurrentPerUserOrDefault() {
+        return maxConcurrentPerUser != null && maxConcurrentPerUser > 0 ? maxConcurrentPerUser : 2;
+    }
+
+    public int maxQueuedOrDefault() {
+        return maxQueued != null && maxQueued >= 0 ? maxQueued : 32;
+    }
+
+    public Duration queueTimeoutOrDefault() {
+        return queueTimeout != null ? queueTimeout : Duration.ofSeconds(10);
+    }
+
+    public long maxSizeOrDefault() {
+        return maxSize != null ? maxSize.toBytes() : DataSize.ofMegabytes(100).toBytes();
+    }
+
+    /**
+     * @return the combined upload rate across all users, or 0 for no limit
+     */
+    public long bytesPerSecondOrDefault() {
+        return bytesPerSecond != null ? bytesPerSecond.toBytes() : 0;
+    }
+
+    /**
+     * @return the upload rate of each user, or 0 for no limit
+     */
+    public long bytesPerSecondPerUserOrDefault() {
+        return bytesPerSecondPerUser != null ? bytesPerSecondPerUser.toBytes() : 0;
+    }
+}
@@ -0,0 +1,245 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.UploadStatsResponse;
+import com.equinor.onlypikks.exception.PayloadTooLargeException;
+import com.equinor.onlypikks.exception.ServiceUnavailableException;
+import com.equinor.onlypikks.exception.TooManyRequestsException;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for media uploads, so a burst of large uploads cannot take every request
+ * thread, fill memory or disk, and starve feed reads.
+ *
+ * <p>An upload needs one of its user's slots and then one of the global slots. Both are fair
+ * semaphores, so waiting uploads are admitted in arrival order; an upload that waits longer
+ * than the queue timeout, or arrives to a full queue, is turned away with a retry hint.
+ * Admitted uploads read their bytes through {@link Permit#throttle}, which holds each user
+ * and all users together to the configured byte rates and enforces the size limit when the
+ * client sent no {@code Content-Length}.
+ */
+@Component
+public class UploadScheduler {
+
+    private final Semaphore globalSlots;
+    private final ConcurrentMap<String, UserState> users = new ConcurrentHashMap<>();
+    private final ByteRateLimiter globalRate;
+    private final int maxConcurrent;
+    private final int maxConcurrentPerUser;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+    private final long retryAfterSeconds;
+    private final long maxSize;
+    private final long bytesPerSecondPerUser;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public UploadScheduler(UploadProperties properties) {
+        this.maxConcurrent = properties.maxConcurrentOrDefault();
+        this.maxConcurrentPerUser = properties.maxConcurrentPerUserOrDefault();
+        this.maxQueued = properties.maxQueuedOrDefault();
+        this.queueTimeoutNanos = properties.queueTimeoutOrDefault().toNanos();
+        this.retryAfterSeconds = Math.max(1, properties.queueTimeoutOrDefault().toSeconds());
+        this.maxSize = properties.maxSizeOrDefault();
+        this.bytesPerSecondPerUser = properties.bytesPerSecondPerUserOrDefault();
+        this.globalSlots = new Semaphore(maxConcurrent, true);
+        this.globalRate = properties.bytesPerSecondOrDefault() > 0
+                ? new ByteRateLimiter(properties.bytesPerSecondOrDefault())
+                : null;
+    }
+
+    /**
+     * Waits for the upload's turn. The caller must close the permit when the upload is done.
+     *
+     * @param contentLength the declared body size, or -1 when unknown
+     * @throws PayloadTooLargeException    when the declared size is over the limit
+     * @throws TooManyRequestsException    when the user's own uploads keep it waiting too long
+     * @throws ServiceUnavailableException when the queue is full or the server stays saturated
+     */
+    public Permit admit(String userId, long contentLength) {
+        if (contentLength > maxSize) {
+            rejected.incrementAndGet();
+            throw new PayloadTooLargeException("Uploads are limited to " + maxSize + " bytes");
+        }
+        long started = System.nanoTime();
+        UserState user = users.compute(userId, (id, state) -> {
+            UserState current = state != null ? state : new UserState(maxConcurrentPerUser, bytesPerSecondPerUser);
+            current.references++;
+            return current;
+        });
+        long deadline = started + queueTimeoutNanos;
+        boolean userSlot = false;
+        boolean globalSlot = false;
+        try {
+            userSlot = acquire(user.slots, deadline);
+            if (!userSlot) {
+                timedOut.incrementAndGet();
+                throw new TooManyRequestsException("Too many concurrent uploads for this user", retryAfterSeconds);
+            }
+            globalSlot = acquire(globalSlots, deadline);
+            if (!globalSlot) {
+                timedOut.incrementAndGet();
+                throw new ServiceUnavailableException("The server is busy with other uploads", retryAfterSeconds);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting to upload", retryAfterSeconds);
+        } finally {
+            if (!globalSlot) {
+                if (userSlot) {
+                    user.slots.release();
+                }
+                release(userId);
+            }
+        }
+        long waited = System.nanoTime() - started;
+        admitted.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return new Permit(userId, user);
+    }
+
+    /**
+     * Takes a slot right away if one is free, otherwise joins the queue until the deadline.
+     * A zero timeout rather than {@code tryAcquire()} keeps a newcomer from jumping the queue.
+     */
+    private boolean acquire(Semaphore slots, long deadline) throws InterruptedException {
+        if (slots.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new ServiceUnavailableException("Too many uploads are waiting", retryAfterSeconds);
+        }
+        try {
+            return slots.tryAcquire(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public UploadStatsResponse stats() {
+        long count = admitted.get();
+        return new UploadStatsResponse(
+                maxConcurrent - globalSlots.availablePermits(),
+                queued.get(),
+                count,
+                rejected.get(),
+                timedOut.get(),
+                count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count,
+                maxWaitNanos.get() / 1e6
+        );
+    }
+
+    private void release(String userId) {
+        users.computeIfPresent(userId, (id, state) -> --state.references == 0 ? null : state);
+    }
+
+    private static final class UserState {
+
+        final Semaphore slots;
+        final ByteRateLimiter rate;
+        // Guarded by the map's compute; the entry goes away with its last upload.
+        int references;
+
+        UserState(int maxConcurrent, long bytesPerSecond) {
+            this.slots = new Semaphore(maxConcurrent, true);
+            this.rate = bytesPerSecond > 0 ? new ByteRateLimiter(bytesPerSecond) : null;
+        }
+    }
+
+    /**
+     * One admitted upload's claim on a user slot and a global slot.
+     */
+    public final class Permit implements AutoCloseable {
+
+        /** Request attribute under which the upload filter exposes the permit. */
+        public static final String ATTRIBUTE = Permit.class.getName();
+
+        private final String userId;
+        private final UserState user;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(String userId, UserState user) {
+            this.userId = userId;
+            this.user = user;
+        }
+
+        /**
+         * Wraps an upload body so that reading it is held to the byte rates and the size limit.
+         */
+        public InputStream throttle(InputStream content) {
+            return new ThrottledInputStream(content, user.rate);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                globalSlots.release();
+                user.slots.release();
+                release(userId);
+            }
+        }
+    }
+
+    private final class ThrottledInputStream extends FilterInputStream {
+
+        // Small reads keep the pacing smooth instead of sleeping for one large chunk.
+        private static final int MAX_READ = 64 * 1024;
+
+        private final ByteRateLimiter userRate;
+        private long total;
+
+        ThrottledInputStream(InputStream in, ByteRateLimiter userRate) {
+            super(in);
+            this.userRate = userRate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, Math.min(length, MAX_READ));
+            if (read > 0) {
+                consumed(read);
+            }
+            return read;
+        }
+
+        private void consumed(int bytes) throws IOException {
+            total += bytes;
+            if (total > maxSize) {
+                throw new PayloadTooLargeException("Uploads are limited to " + maxSize + " bytes");
+            }
+            if (userRate != null) {
+                userRate.acquire(bytes);
+            }
+            if (globalRate != null) {
+                globalRate.acquire(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.equinor.onlypikks.storage;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The time bucket a signed URL belongs to. Every request within one bucket signs the same
+ * expiry, so it gets the same URL; the URL stays valid for the TTL after the bucket ends.
+ */
+record ExpiryWindow(Instant start, Instant stableUntil, Instant expiresAt) {
+
+    static ExpiryWindow of(Instant now, Duration ttl, Duration bucket) {
+        long bucketSeconds = Math.max(bucket.toSeconds(), 1);
+        long start = Math.floorDiv(now.getEpochSecond(), bucketSeconds) * bucketSeconds;
+        Instant stableUntil = Instant.ofEpochSecond(start + bucketSeconds);
+        return new ExpiryWindow(Instant.ofEpochSecond(start), stableUntil, stableUntil.plus(ttl));
+    }
+}
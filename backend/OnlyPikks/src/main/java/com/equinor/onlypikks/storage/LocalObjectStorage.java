@@ -0,0 +1,100 @@
+package com.equinor.onlypikks.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps objects as files in one directory and serves them through this application with
+ * {@link MediaUrlSigner} URLs. Writes go to a temporary file that is moved into place, so a
+ * reader never sees a partial object.
+ */
+public class LocalObjectStorage implements ObjectStorage {
+
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+    private static final String CONTENT_TYPE_SUFFIX = ".content-type";
+
+    private final Path root;
+    private final MediaUrlSigner urlSigner;
+
+    public LocalObjectStorage(Path root, MediaUrlSigner urlSigner) {
+        this.root = root;
+        this.urlSigner = urlSigner;
+    }
+
+    @Override
+    public long put(String key, InputStream content, long contentLength, String contentType) {
+        Path target = resolve(key);
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, ".upload-", ".tmp");
+            try {
+                long size = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+                if (contentLength >= 0 && size != contentLength) {
+                    throw new IllegalArgumentException(
+                            "Expected " + contentLength + " bytes but received " + size);
+                }
+                if (contentType != null) {
+                    Files.writeString(contentTypeFile(target), contentType, StandardCharsets.UTF_8);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return size;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<ObjectContent> open(String key) {
+        Path file = resolve(key);
+        try {
+            InputStream stream = Files.newInputStream(file);
+            Path typeFile = contentTypeFile(file);
+            String contentType = Files.exists(typeFile) ? Files.readString(typeFile, StandardCharsets.UTF_8) : null;
+            return Optional.of(new ObjectContent(stream, Files.size(file), contentType));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        Path file = resolve(key);
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(contentTypeFile(file));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public SignedUrl presignGet(String key, String disposition) {
+        resolve(key);
+        return urlSigner.sign(key, disposition);
+    }
+
+    private Path resolve(String key) {
+        // Keys come from request paths; never let one name a file outside the root.
+        if (key == null || !KEY.matcher(key).matches() || key.endsWith(CONTENT_TYPE_SUFFIX)) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        return root.resolve(key);
+    }
+
+    private static Path contentTypeFile(Path file) {
+        return file.resolveSibling(file.getFileName() + CONTENT_TYPE_SUFFIX);
+    }
+}
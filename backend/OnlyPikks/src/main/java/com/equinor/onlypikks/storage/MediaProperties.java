@@ -0,0 +1,31 @@
+package com.equinor.onlypikks.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "onlypikks.media")
+public record MediaProperties(
+        String baseUrl,
+        String signingKey,
+        Duration urlTtl,
+        Duration urlBucket,
+        Boolean requireSigningKey
+) {
+    public String baseUrlOrDefault() {
+        // Relative by default: locally stored media is served by this application.
+        return baseUrl != null ? baseUrl : "";
+    }
+
+    public Duration urlTtlOrDefault() {
+        return urlTtl != null ? urlTtl : Duration.ofHours(1);
+    }
+
+    public Duration urlBucketOrDefault() {
+        return urlBucket != null ? urlBucket : Duration.ofMinutes(15);
+    }
+
+    public boolean requireSigningKeyOrDefault() {
+        return requireSigningKey != null && requireSigningKey;
+    }
+}
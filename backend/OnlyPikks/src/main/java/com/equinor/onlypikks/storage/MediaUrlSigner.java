@@ -0,0 +1,100 @@
+package com.equinor.onlypikks.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signed URLs for media served by this application from local storage. The
+ * expiry is rounded up to the end of a time bucket, so every request for a file within one
+ * bucket gets the same URL and browsers and CDNs can cache it. A URL stays valid for at
+ * least the configured TTL.
+ *
+ * <p>Verification recomputes the signature from the URL alone and compares it in constant
+ * time; it needs no storage lookup.
+ */
+@Component
+public class MediaUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final String baseUrl;
+    private final Duration ttl;
+    private final Duration bucket;
+
+    public MediaUrlSigner(MediaProperties properties) {
+        byte[] secret;
+        if (StringUtils.hasText(properties.signingKey())) {
+            secret = properties.signingKey().getBytes(StandardCharsets.UTF_8);
+        } else if (properties.requireSigningKeyOrDefault()) {
+            throw new IllegalStateException("onlypikks.media.signing-key must be set");
+        } else {
+            // Fine for a single instance; replicas must share a configured key.
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.baseUrl = properties.baseUrlOrDefault();
+        this.ttl = properties.urlTtlOrDefault();
+        this.bucket = properties.urlBucketOrDefault();
+    }
+
+    public SignedUrl sign(String fileId, String disposition) {
+        return sign(fileId, disposition, Instant.now());
+    }
+
+    SignedUrl sign(String fileId, String disposition, Instant now) {
+        ExpiryWindow window = ExpiryWindow.of(now, ttl, bucket);
+        long expires = window.expiresAt().getEpochSecond();
+        String url = UriComponentsBuilder.fromUriString(baseUrl)
+                .path("/files/{fileId}/content")
+                .queryParam("disposition", disposition)
+                .queryParam("expires", expires)
+                .queryParam("signature", ENCODER.encodeToString(mac(fileId, disposition, expires)))
+                .buildAndExpand(fileId)
+                .encode()
+                .toUriString();
+        return new SignedUrl(url, window.stableUntil(), window.expiresAt());
+    }
+
+    public boolean verify(String fileId, String disposition, long expires, String signature) {
+        return verify(fileId, disposition, expires, signature, Instant.now());
+    }
+
+    boolean verify(String fileId, String disposition, long expires, String signature, Instant now) {
+        if (signature == null || expires < now.getEpochSecond()) {
+            return false;
+        }
+        byte[] presented;
+        try {
+            presented = DECODER.decode(signature);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac(fileId, disposition, expires), presented);
+    }
+
+    private byte[] mac(String fileId, String disposition, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            // Newlines cannot occur in any field, so the fields cannot be shifted into each other.
+            return mac.doFinal((fileId + "\n" + disposition + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", ex);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.equinor.onlypikks.storage;
+
+import java.io.InputStream;
+
+/**
+ * An opened object. The caller owns and must close the stream.
+ *
+ * @param length the number of bytes, or -1 when unknown
+ */
+public record ObjectContent(InputStream stream, long length, String contentType) {
+}
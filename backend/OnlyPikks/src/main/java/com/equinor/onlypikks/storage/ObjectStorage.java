@@ -0,0 +1,31 @@
+package com.equinor.onlypikks.storage;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Where uploaded media bytes live. Keys are opaque, URL-safe identifiers chosen by the caller.
+ */
+public interface ObjectStorage {
+
+    /**
+     * Streams {@code content} into the object at {@code key}, replacing any existing object.
+     *
+     * @param contentLength the number of bytes, or -1 when unknown
+     * @return the number of bytes stored
+     */
+    long put(String key, InputStream content, long contentLength, String contentType);
+
+    Optional<ObjectContent> open(String key);
+
+    /**
+     * Removes the object; removing a missing object is not an error.
+     */
+    void delete(String key);
+
+    /**
+     * A time-limited GET URL for the object, identical for every call within one time bucket so
+     * that browsers and CDNs can cache it.
+     */
+    SignedUrl presignGet(String key, String disposition);
+}
@@ -0,0 +1,327 @@
+package com.equinor.onlypikks.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stores objects in an S3-compatible bucket over the plain REST API with SigV4 signing.
+ *
+ * <p>Uploads that fit in one part are a single PUT. Larger ones become a multipart upload
+ * whose parts are read from the stream and uploaded in parallel; a semaphore caps the parts
+ * held in memory at once, so an upload never buffers more than
+ * {@code partSize * maxInFlightParts} however large it is or however slow the endpoint. A
+ * failed multipart upload is aborted so the bucket does not keep its parts.
+ *
+ * <p>Download URLs are presigned with the signing time set to the start of the current time
+ * bucket, so every request within a bucket gets the same, cacheable URL.
+ */
+public class S3ObjectStorage implements ObjectStorage, AutoCloseable {
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    private final HttpClient http;
+    private final SigV4Signer signer;
+    private final URI endpoint;
+    private final String bucket;
+    private final boolean pathStyleAccess;
+    private final String keyPrefix;
+    private final int partSize;
+    private final int maxInFlightParts;
+    private final Duration urlTtl;
+    private final Duration urlBucket;
+    private final ExecutorService partUploads = Executors.newVirtualThreadPerTaskExecutor();
+
+    public S3ObjectStorage(StorageProperties.S3 properties, MediaProperties media) {
+        if (properties.endpoint() == null || properties.endpoint().isBlank()
+                || properties.bucket() == null || properties.bucket().isBlank()) {
+            throw new IllegalStateException("onlypikks.storage.s3.endpoint and bucket must be set");
+        }
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.signer = new SigV4Signer(properties.accessKey(), properties.secretKey(), properties.regionOrDefault());
+        this.endpoint = URI.create(properties.endpoint().replaceAll("/+$", ""));
+        this.bucket = properties.bucket();
+        this.pathStyleAccess = properties.pathStyleAccessOrDefault();
+        this.keyPrefix = properties.keyPrefixOrDefault();
+        this.partSize = properties.partSizeOrDefault();
+        this.maxInFlightParts = properties.maxInFlightPartsOrDefault();
+        this.urlTtl = media.urlTtlOrDefault();
+        this.urlBucket = media.urlBucketOrDefault();
+    }
+
+    @Override
+    public long put(String key, InputStream content, long contentLength, String contentType) {
+        String objectKey = keyPrefix + key;
+        try {
+            byte[] first = content.readNBytes(partSize);
+            if (first.length < partSize) {
+                putObject(objectKey, first, contentType);
+                return first.length;
+            }
+            return multipartUpload(objectKey, first, content, contentType);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Upload interrupted"));
+        }
+    }
+
+    @Override
+    public Optional<ObjectContent> open(String key) {
+        URI uri = objectUri(keyPrefix + key, Map.of());
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET();
+        signer.sign("GET", uri, Map.of(), SigV4Signer.EMPTY_PAYLOAD_SHA256, Instant.now()).forEach(request::header);
+        try {
+            HttpResponse<InputStream> response = http.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() == 404) {
+                response.body().close();
+                return Optional.empty();
+            }
+            if (response.statusCode() / 100 != 2) {
+                byte[] error = response.body().readAllBytes();
+                response.body().close();
+                throw failure("GET", response.statusCode(), error);
+            }
+            return Optional.of(new ObjectContent(
+                    response.body(),
+                    response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                    response.headers().firstValue("Content-Type").orElse(null)
+            ));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Download interrupted"));
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            HttpResponse<byte[]> response = send("DELETE", objectUri(keyPrefix + key, Map.of()), new byte[0], Map.of());
+            if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+                throw failure("DELETE", response.statusCode(), response.body());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Delete interrupted"));
+        }
+    }
+
+    @Override
+    public SignedUrl presignGet(String key, String disposition) {
+        return presignGet(key, disposition, Instant.now());
+    }
+
+    SignedUrl presignGet(String key, String disposition, Instant now) {
+        ExpiryWindow window = ExpiryWindow.of(now, urlTtl, urlBucket);
+        URI url = signer.presign(
+                objectUri(keyPrefix + key, Map.of()),
+                Map.of("response-content-disposition", disposition),
+                window.start(),
+                Duration.between(window.start(), window.expiresAt()).toSeconds()
+        );
+        return new SignedUrl(url.toString(), window.stableUntil(), window.expiresAt());
+    }
+
+    @Override
+    public void close() {
+        partUploads.shutdownNow();
+        http.close();
+    }
+
+    private void putObject(String objectKey, byte[] body, String contentType) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send("PUT", objectUri(objectKey, Map.of()), body, contentTypeHeader(contentType));
+        if (response.statusCode() / 100 != 2) {
+            throw failure("PUT", response.statusCode(), response.body());
+        }
+    }
+
+    private long multipartUpload(String objectKey, byte[] first, InputStream content, String contentType)
+            throws IOException, InterruptedException {
+        String uploadId = createMultipartUpload(objectKey, contentType);
+        Semaphore buffers = new Semaphore(maxInFlightParts);
+        List<Future<String>> parts = new ArrayList<>();
+        int checked = 0;
+        long total = 0;
+        try {
+            buffers.acquire();
+            byte[] part = first;
+            while (true) {
+                byte[] body = part;
+                int partNumber = parts.size() + 1;
+                parts.add(partUploads.submit(() -> {
+                    try {
+                        return uploadPart(objectKey, uploadId, partNumber, body);
+                    } finally {
+                        buffers.release();
+                    }
+                }));
+                total += body.length;
+                if (body.length < partSize) {
+                    break;
+                }
+                // Take a buffer before reading into one: a slow endpoint stalls the reader
+                // rather than letting parts pile up in memory.
+                buffers.acquire();
+                while (checked < parts.size() && parts.get(checked).isDone()) {
+                    await(parts.get(checked++));
+                }
+                part = content.readNBytes(partSize);
+                if (part.length == 0) {
+                    buffers.release();
+                    break;
+                }
+            }
+            List<String> etags = new ArrayList<>(parts.size());
+            for (Future<String> uploaded : parts) {
+                etags.add(await(uploaded));
+            }
+            completeMultipartUpload(objectKey, uploadId, etags);
+            return total;
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            parts.forEach(uploaded -> uploaded.cancel(true));
+            abortMultipartUpload(objectKey, uploadId, ex);
+            throw ex;
+        }
+    }
+
+    private String createMultipartUpload(String objectKey, String contentType) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = send("POST", objectUri(objectKey, Map.of("uploads", "")),
+                new byte[0], contentTypeHeader(contentType));
+        if (response.statusCode() / 100 != 2) {
+            throw failure("CreateMultipartUpload", response.statusCode(), response.body());
+        }
+        Matcher matcher = UPLOAD_ID.matcher(new String(response.body(), StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            throw new IOException("CreateMultipartUpload returned no upload id");
+        }
+        return matcher.group(1);
+    }
+
+    private String uploadPart(String objectKey, String uploadId, int partNumber, byte[] body)
+            throws IOException, InterruptedException {
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put("partNumber", String.valueOf(partNumber));
+        query.put("uploadId", uploadId);
+        HttpResponse<byte[]> response = send("PUT", objectUri(objectKey, query), body, Map.of());
+        if (response.statusCode() / 100 != 2) {
+            throw failure("UploadPart " + partNumber, response.statusCode(), response.body());
+        }
+        return response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IOException("UploadPart " + partNumber + " returned no ETag"));
+    }
+
+    private void completeMultipartUpload(String objectKey, String uploadId, List<String> etags)
+            throws IOException, InterruptedException {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("&", "&amp;").replace("<", "&lt;"))
+                    .append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        HttpResponse<byte[]> response = send("POST", objectUri(objectKey, Map.of("uploadId", uploadId)),
+                xml.toString().getBytes(StandardCharsets.UTF_8), Map.of("Content-Type", "application/xml"));
+        // S3 may report a failed completion inside a 200 response.
+        if (response.statusCode() / 100 != 2
+                || new String(response.body(), StandardCharsets.UTF_8).contains("<Error>")) {
+            throw failure("CompleteMultipartUpload", response.statusCode(), response.body());
+        }
+    }
+
+    private void abortMultipartUpload(String objectKey, String uploadId, Exception cause) {
+        try {
+            send("DELETE", objectUri(objectKey, Map.of("uploadId", uploadId)), new byte[0], Map.of());
+        } catch (IOException | RuntimeException ex) {
+            cause.addSuppressed(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cause.addSuppressed(ex);
+        }
+    }
+
+    private HttpResponse<byte[]> send(String method, URI uri, byte[] body, Map<String, String> headers)
+            throws IOException, InterruptedException {
+        String payloadHash = body.length == 0
+                ? SigV4Signer.EMPTY_PAYLOAD_SHA256
+                : SigV4Signer.sha256Hex(body, 0, body.length);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .method(method, body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(request::header);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI objectUri(String objectKey, Map<String, String> query) {
+        String path = SigV4Signer.encode(objectKey, true);
+        String base = pathStyleAccess
+                ? endpoint + "/" + bucket + "/" + path
+                : endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + "/" + path;
+        if (query.isEmpty()) {
+            return URI.create(base);
+        }
+        StringBuilder uri = new StringBuilder(base).append('?');
+        query.forEach((name, value) -> {
+            if (uri.charAt(uri.length() - 1) != '?') {
+                uri.append('&');
+            }
+            uri.append(SigV4Signer.encode(name, false)).append('=').append(SigV4Signer.encode(value, false));
+        });
+        return URI.create(uri.toString());
+    }
+
+    private static Map<String, String> contentTypeHeader(String contentType) {
+        return contentType != null ? Map.of("Content-Type", contentType) : Map.of();
+    }
+
+    private static <T> T await(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static IOException failure(String operation, int status, byte[] body) {
+        String detail = new String(body, 0, Math.min(body.length, 512), StandardCharsets.UTF_8);
+        return new IOException(operation + " failed with HTTP " + status + ": " + detail);
+    }
+}
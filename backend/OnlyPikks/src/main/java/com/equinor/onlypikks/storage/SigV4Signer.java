@@ -0,0 +1,199 @@
+package com.equinor.onlypikks.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * AWS Signature Version 4 for the S3 API, both as an {@code Authorization} header and as
+ * presigned query parameters.
+ */
+final class SigV4Signer {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String EMPTY_PAYLOAD_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    SigV4Signer(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Headers to add to a request: {@code x-amz-date}, {@code x-amz-content-sha256} and
+     * {@code Authorization}. {@code headers} holds any other headers to sign besides host.
+     */
+    Map<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash, Instant now) {
+        String amzDate = AMZ_DATE.format(now);
+        TreeMap<String, String> signed = new TreeMap<>();
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(), value.trim()));
+        signed.put("host", hostHeader(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", amzDate);
+        String signedHeaders = String.join(";", signed.keySet());
+        String canonicalHeaders = signed.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue() + "\n")
+                .collect(Collectors.joining());
+
+        String canonicalRequest = method + "\n"
+                + canonicalPath(uri) + "\n"
+                + canonicalQuery(queryParameters(uri)) + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + payloadHash;
+        String scope = scope(now);
+        String signature = signature(canonicalRequest, amzDate, scope, now);
+
+        Map<String, String> result = new TreeMap<>();
+        result.put("x-amz-date", amzDate);
+        result.put("x-amz-content-sha256", payloadHash);
+        result.put("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        return result;
+    }
+
+    /**
+     * A presigned GET URL valid from {@code signedAt} for {@code expiresInSeconds}.
+     * {@code extraQuery} (such as response header overrides) is covered by the signature.
+     */
+    URI presign(URI uri, Map<String, String> extraQuery, Instant signedAt, long expiresInSeconds) {
+        String amzDate = AMZ_DATE.format(signedAt);
+        String scope = scope(signedAt);
+        TreeMap<String, String> query = new TreeMap<>(queryParameters(uri));
+        query.putAll(extraQuery);
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope);
+        query.put("X-Amz-Date", amzDate);
+        query.put("X-Amz-Expires", String.valueOf(expiresInSeconds));
+        query.put("X-Amz-SignedHeaders", "host");
+
+        String canonicalQuery = canonicalQuery(query);
+        String canonicalRequest = "GET\n"
+                + canonicalPath(uri) + "\n"
+                + canonicalQuery + "\n"
+                + "host:" + hostHeader(uri) + "\n\n"
+                + "host\n"
+                + UNSIGNED_PAYLOAD;
+        String signature = signature(canonicalRequest, amzDate, scope, signedAt);
+        String base = uri.getScheme() + "://" + uri.getRawAuthority() + canonicalPath(uri);
+        return URI.create(base + "?" + canonicalQuery + "&X-Amz-Signature=" + signature);
+    }
+
+    static String sha256Hex(byte[] data, int offset, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, offset, length);
+            return HEX.formatHex(digest.digest());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("SHA-256 unavailable", ex);
+        }
+    }
+
+    /**
+     * RFC 3986 percent-encoding as SigV4 requires: everything but unreserved characters,
+     * keeping slashes when encoding a path.
+     */
+    static String encode(String value, boolean keepSlash) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlash && c == '/')) {
+                out.append(c);
+            } else {
+                out.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xf, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+            }
+        }
+        return out.toString();
+    }
+
+    private String signature(String canonicalRequest, String amzDate, String scope, Instant now) {
+        byte[] canonicalBytes = canonicalRequest.getBytes(StandardCharsets.UTF_8);
+        String stringToSign = ALGORITHM + "\n"
+                + amzDate + "\n"
+                + scope + "\n"
+                + sha256Hex(canonicalBytes, 0, canonicalBytes.length);
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATE_STAMP.format(now));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        return HEX.formatHex(hmac(key, stringToSign));
+    }
+
+    private String scope(Instant now) {
+        return DATE_STAMP.format(now) + "/" + region + "/" + SERVICE + "/aws4_request";
+    }
+
+    private static String canonicalPath(URI uri) {
+        String path = uri.getPath();
+        return path == null || path.isEmpty() ? "/" : encode(path, true);
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query.entrySet().stream().collect(Collectors.toMap(
+                        entry -> encode(entry.getKey(), false),
+                        entry -> encode(entry.getValue(), false))))
+                .entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("&"));
+    }
+
+    private static Map<String, String> queryParameters(URI uri) {
+        Map<String, String> query = new TreeMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            query.put(decode(eq < 0 ? pair : pair.substring(0, eq)), eq < 0 ? "" : decode(pair.substring(eq + 1)));
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equals(uri.getScheme()) && port == 443)
+                || ("http".equals(uri.getScheme()) && port == 80);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", ex);
+        }
+    }
+}
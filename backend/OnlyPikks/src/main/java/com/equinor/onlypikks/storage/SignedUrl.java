@@ -0,0 +1,12 @@
+package com.equinor.onlypikks.storage;
+
+import java.time.Instant;
+
+/**
+ * @param url         the signed URL
+ * @param stableUntil when requests start getting a different URL; a redirect to this
+ *                    one may be cached until then
+ * @param expiresAt   when the URL stops verifying
+ */
+public record SignedUrl(String url, Instant stableUntil, Instant expiresAt) {
+}
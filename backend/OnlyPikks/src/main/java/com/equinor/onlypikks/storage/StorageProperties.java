@@ -0,0 +1,67 @@
+package com.equinor.onlypikks.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "onlypikks.storage")
+public record StorageProperties(
+        String type,
+        String localDirectory,
+        S3 s3
+) {
+    public boolean s3Enabled() {
+        return "s3".equalsIgnoreCase(type);
+    }
+
+    public Path localDirectoryOrDefault() {
+        return localDirectory != null && !localDirectory.isBlank()
+                ? Path.of(localDirectory)
+                : Path.of(System.getProperty("java.io.tmpdir"), "onlypikks-media");
+    }
+
+    public S3 s3OrDefault() {
+        return s3 != null ? s3 : new S3(null, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * An S3-compatible endpoint, such as AWS S3 or MinIO.
+     *
+     * @param partSize         multipart chunk size; S3 requires at least 5 MB for all but the
+     *                         last part
+     * @param maxInFlightParts parts buffered and uploaded concurrently per upload, which bounds
+     *                         an upload's memory to {@code partSize * maxInFlightParts}
+     */
+    public record S3(
+            String endpoint,
+            String region,
+            String bucket,
+            String accessKey,
+            String secretKey,
+            Boolean pathStyleAccess,
+            String keyPrefix,
+            DataSize partSize,
+            Integer maxInFlightParts
+    ) {
+        public String regionOrDefault() {
+            return region != null && !region.isBlank() ? region : "us-east-1";
+        }
+
+        public boolean pathStyleAccessOrDefault() {
+            return pathStyleAccess == null || pathStyleAccess;
+        }
+
+        public String keyPrefixOrDefault() {
+            return keyPrefix != null ? keyPrefix : "media/";
+        }
+
+        public int partSizeOrDefault() {
+            return partSize != null ? (int) partSize.toBytes() : 8 * 1024 * 1024;
+        }
+
+        public int maxInFlightPartsOrDefault() {
+            return maxInFlightParts != null && maxInFlightParts > 0 ? maxInFlightParts : 4;
+        }
+    }
+}
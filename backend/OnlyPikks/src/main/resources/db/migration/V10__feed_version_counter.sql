@@ -0,0 +1,10 @@
+-- Feed version counter: bumped in the transaction of every write that can change a feed and
+-- read by primary key, instead of aggregating count(*) and max(updated_at) over all posts.
+-- A counter also cannot go backwards when replicas' clocks disagree.
+create table feed_versions (
+    id      varchar(32) not null,
+    version bigint      not null,
+    constraint pk_feed_versions primary key (id)
+);
+
+insert into feed_versions (id, version) values ('posts', 0);
@@ -0,0 +1,10 @@
+-- Follower count per followed user, kept by follow and unfollow, so deciding whether an
+-- owner is too popular to fan out to is a primary key read instead of an index probe.
+create table follower_counts (
+    user_id        varchar(255) not null,
+    follower_count bigint       not null,
+    constraint pk_follower_counts primary key (user_id)
+);
+
+insert into follower_counts (user_id, follower_count)
+select followee_id, count(*) from follows group by followee_id;
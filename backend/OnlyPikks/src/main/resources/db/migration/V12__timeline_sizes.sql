@@ -0,0 +1,12 @@
+-- Entries per timeline, never below the true number: fan-out adds to it, and trimming a
+-- timeline sets it to what is left. Only timelines past capacity by some slack are trimmed,
+-- instead of ranking every follower's timeline on every post.
+create table timeline_sizes (
+    user_id     varchar(255) not null,
+    entry_count bigint       not null,
+    constraint pk_timeline_sizes primary key (user_id)
+);
+
+insert into timeline_sizes (user_id, entry_count)
+select f.follower_id, (select count(*) from timeline_entries t where t.user_id = f.follower_id)
+from (select distinct follower_id from follows) f;
@@ -0,0 +1,3 @@
+-- Conditional GETs read the feed version counter now, so nothing scans posts by updated_at
+-- and the index only slowed every post write down.
+drop index idx_posts_updated_at;
@@ -0,0 +1,7 @@
+-- One feed version per post visibility instead of one for every write. A write bumps only
+-- the rows of the visibilities its post had and has, so writes to private and unlisted posts
+-- no longer queue behind public ones on a single row, and caches of the public feed are not
+-- invalidated by changes they cannot show. Every listing is some set of visibilities.
+update feed_versions set id = 'PUBLIC' where id = 'posts';
+insert into feed_versions (id, version) values ('UNLISTED', 0);
+insert into feed_versions (id, version) values ('PRIVATE', 0);
@@ -0,0 +1,35 @@
+create table posts (
+    id                 varchar(255)             not null,
+    title              varchar(255)             not null,
+    description        varchar(4000),
+    visibility         varchar(16)              not null,
+    owner_id           varchar(255)             not null,
+    owner_display_name varchar(255)             not null,
+    file_id            varchar(255)             not null,
+    file_url           varchar(255)             not null,
+    thumbnail_url      varchar(255)             not null,
+    original_file_name varchar(255)             not null,
+    file_size_bytes    bigint                   not null,
+    created_at         timestamp with time zone not null,
+    updated_at         timestamp with time zone not null,
+    comment_count      bigint                   not null,
+    like_count         bigint                   not null,
+    constraint pk_posts primary key (id)
+);
+
+create table post_tags (
+    post_id varchar(255) not null,
+    tag     varchar(255) not null,
+    constraint fk_post_tags_post foreign key (post_id) references posts (id)
+);
+
+create table comments (
+    id                  varchar(255)             not null,
+    post_id             varchar(255)             not null,
+    author_id           varchar(255)             not null,
+    author_display_name varchar(255)             not null,
+    text                varchar(2000)            not null,
+    created_at          timestamp with time zone not null,
+    updated_at          timestamp with time zone not null,
+    constraint pk_comments primary key (id)
+);
@@ -0,0 +1,11 @@
+-- Feed: newest first, optionally narrowed to one owner or one visibility.
+create index idx_posts_created_at on posts (created_at);
+create index idx_posts_owner_created_at on posts (owner_id, created_at);
+create index idx_posts_visibility_created_at on posts (visibility, created_at);
+
+-- Tag lookups and the per-post element collection load.
+create index idx_post_tags_post_id on post_tags (post_id);
+create index idx_post_tags_tag_post_id on post_tags (tag, post_id);
+
+-- Comment listing, latest comments, counts and cascading deletes are all keyed by post.
+create index idx_comments_post_created_at on comments (post_id, created_at);
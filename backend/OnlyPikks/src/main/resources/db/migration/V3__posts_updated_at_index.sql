@@ -0,0 +1,2 @@
+-- Conditional GETs derive the feed version from max(updated_at) on every request.
+create index idx_posts_updated_at on posts (updated_at);
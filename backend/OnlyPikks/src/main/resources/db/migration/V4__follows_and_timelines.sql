@@ -0,0 +1,22 @@
+create table follows (
+    follower_id varchar(255)             not null,
+    followee_id varchar(255)             not null,
+    created_at  timestamp with time zone not null,
+    constraint pk_follows primary key (follower_id, followee_id)
+);
+
+-- Fan-out and the high-fan-out check walk the followers of one owner.
+create index idx_follows_followee on follows (followee_id, follower_id);
+
+-- Precomputed "following" feed, one row per (reader, post), written on post creation.
+create table timeline_entries (
+    user_id    varchar(255)             not null,
+    post_id    varchar(255)             not null,
+    owner_id   varchar(255)             not null,
+    created_at timestamp with time zone not null,
+    constraint pk_timeline_entries primary key (user_id, post_id)
+);
+
+create index idx_timeline_user_created_at on timeline_entries (user_id, created_at);
+create index idx_timeline_user_owner on timeline_entries (user_id, owner_id);
+create index idx_timeline_post on timeline_entries (post_id);
@@ -0,0 +1,8 @@
+alter table comments add column parent_id varchar(255);
+alter table comments add column reply_count bigint default 0 not null;
+
+-- Comment pages are read per post in (created_at, id) order; the id breaks ties so keyset
+-- cursors are stable. Replies are read per parent in the same order.
+drop index idx_comments_post_created_at;
+create index idx_comments_post_created_at_id on comments (post_id, created_at, id);
+create index idx_comments_parent_created_at_id on comments (parent_id, created_at, id);
@@ -0,0 +1,17 @@
+-- Transactional outbox: side effects of a write are recorded in the write's own transaction
+-- and carried out afterwards by the outbox dispatcher.
+create table outbox_events (
+    id           bigint                   not null,
+    event_type   varchar(64)              not null,
+    aggregate_id varchar(255)             not null,
+    payload      varchar(4000),
+    created_at   timestamp with time zone not null,
+    available_at timestamp with time zone not null,
+    attempts     integer default 0        not null,
+    processed_at timestamp with time zone,
+    last_error   varchar(1000),
+    constraint pk_outbox_events primary key (id)
+);
+
+-- Claims scan pending events that are due, oldest first.
+create index idx_outbox_pending on outbox_events (processed_at, available_at, id);
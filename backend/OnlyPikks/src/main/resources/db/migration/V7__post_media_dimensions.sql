@@ -0,0 +1,5 @@
+-- Format and display size read from the image headers on upload; null for media that was
+-- not recognized and for posts uploaded before inspection existed.
+alter table posts add column mime_type varchar(100);
+alter table posts add column width integer;
+alter table posts add column height integer;
@@ -0,0 +1,3 @@
+-- BlurHash placeholder computed in the background after an image upload; null until then and
+-- for media that cannot be decoded.
+alter table posts add column placeholder varchar(64);
@@ -0,0 +1,3 @@
+-- 64-bit dHash of the post image, computed with the placeholder; read once at startup to
+-- build the in-memory similar-image index.
+alter table posts add column perceptual_hash bigint;
@@ -0,0 +1,109 @@
+package com.equinor.onlypikks.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "onlypikks.admin.user-ids=admin")
+@AutoConfigureMockMvc
+class AdminControllerTest {
+
+    private static final String ADMIN = "Bearer admin";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exportStreamsPostsBeforeComments() throws Exception {
+        MvcResult started = mockMvc.perform(get("/admin/export").header(HttpHeaders.AUTHORIZATION, ADMIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).isNotEmpty();
+        assertThat(lines.getFirst()).startsWith("{\"type\":\"post\"");
+        assertThat(lines.getLast()).startsWith("{\"type\":\"comment\"");
+        assertThat(body)
+                .contains("\"id\":\"post-1001\"")
+                .contains("\"tags\":[\"energy\"")
+                .contains("\"id\":\"comment-5001\"");
+    }
+
+    @Test
+    void importInsertsRecordsAndReportsTheResult() throws Exception {
+        String ndjson = """
+                {"type":"post","id":"post-import-1","title":"Imported","tags":["imported","archive"],"visibility":"PUBLIC","owner_id":"zoe","owner_display_name":"Zoe","file_id":"f-1","file_url":"https://cdn.example.com/files/f-1","thumbnail_url":"https://cdn.example.com/thumbnails/f-1.jpg","original_file_name":"old.png","file_size_bytes":10,"created_at":"2024-05-01T10:00:00Z","updated_at":"2024-05-01T10:00:00Z","comment_count":1,"like_count":0}
+
+                {"type":"comment","id":"comment-import-1","post_id":"post-import-1","author_id":"yan","author_display_name":"Yan","text":"From the archive","created_at":"2024-05-01T11:00:00Z","updated_at":"2024-05-01T11:00:00Z","reply_count":0}
+                """;
+        String body = mockMvc.perform(post("/admin/import")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines().toList().getLast())
+                .contains("\"posts\":1")
+                .contains("\"comments\":1")
+                .contains("\"done\":true");
+        mockMvc.perform(get("/posts/post-import-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[0]").value("imported"))
+                .andExpect(jsonPath("$.latest_comments[0].id").value("comment-import-1"));
+    }
+
+    @Test
+    void importReportsConflictingAndMalformedLines() throws Exception {
+        String duplicate = """
+                {"type":"comment","id":"comment-5001","post_id":"post-1001","author_id":"yan","author_display_name":"Yan","text":"Again","created_at":"2024-05-01T11:00:00Z","updated_at":"2024-05-01T11:00:00Z","reply_count":0}
+                """;
+        String conflict = mockMvc.perform(post("/admin/import")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(duplicate))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(conflict).contains("\"done\":false").contains("Lines 1-1 could not be imported");
+
+        String malformed = mockMvc.perform(post("/admin/import")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"type\":\"like\"}\n"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(malformed).contains("Line 1 is not a valid post or comment record");
+    }
+
+    @Test
+    void moderationStatsDescribeTheLoadedBlocklist() throws Exception {
+        mockMvc.perform(post("/admin/moderation/reload").header(HttpHeaders.AUTHORIZATION, ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.terms").value(2))
+                .andExpect(jsonPath("$.last_error").doesNotExist());
+        mockMvc.perform(get("/admin/moderation").header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void nonAdminsAreForbidden() throws Exception {
+        mockMvc.perform(get("/admin/export").header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isForbidden());
+    }
+}
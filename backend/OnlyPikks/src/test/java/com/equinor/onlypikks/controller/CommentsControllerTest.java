@@ -0,0 +1,151 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.service.MockPostService;
+import com.equinor.onlypikks.service.StoredMedia;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CommentsControllerTest {
+
+    private static final AuthContext OWNER = new AuthContext("olga", "olga@example.com", "Olga");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MockPostService postService;
+
+    @Test
+    void cursorPagingWalksEveryCommentOnce() throws Exception {
+        String postId = createPost();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(postService.addComment(postId, OWNER, "Comment " + i, null).orElseThrow().id());
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/posts/{postId}/comments", postId).param("per_page", "3");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(7))
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(body, "$.items[*].id"));
+            cursor = JsonPath.<List<String>>read(body, "$.items[*].id").size() == 3
+                    ? JsonPath.read(body, "$.next_cursor")
+                    : null;
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void repliesAreListedPerThread() throws Exception {
+        String postId = createPost();
+        String rootId = postService.addComment(postId, OWNER, "Root", null).orElseThrow().id();
+        String replyId = postService.addComment(postId, OWNER, "Reply", rootId).orElseThrow().id();
+        String nestedId = postService.addComment(postId, OWNER, "Reply to reply", replyId).orElseThrow().id();
+
+        mockMvc.perform(get("/posts/{postId}/comments", postId).param("parent_id", rootId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id").value(replyId))
+                .andExpect(jsonPath("$.items[1].id").value(nestedId))
+                .andExpect(jsonPath("$.items[1].parent_id").value(rootId));
+
+        postService.deleteComment(postId, rootId, OWNER);
+
+        mockMvc.perform(get("/posts/{postId}/comments", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    void countsFollowCommentsAndRepliesAsTheyComeAndGo() throws Exception {
+        String postId = createPost();
+        String rootId = postService.addComment(postId, OWNER, "Root", null).orElseThrow().id();
+        String replyId = postService.addComment(postId, OWNER, "Reply", rootId).orElseThrow().id();
+        postService.addComment(postId, OWNER, "Another reply", replyId);
+        postService.addComment(postId, OWNER, "Second root", null);
+
+        assertThat(commentCount(postId)).isEqualTo(4);
+        mockMvc.perform(get("/posts/{postId}/comments", postId))
+                .andExpect(jsonPath("$.items[0].id").value(rootId))
+                .andExpect(jsonPath("$.items[0].reply_count").value(2));
+
+        postService.deleteComment(postId, replyId, OWNER);
+
+        assertThat(commentCount(postId)).isEqualTo(3);
+        mockMvc.perform(get("/posts/{postId}/comments", postId))
+                .andExpect(jsonPath("$.items[0].reply_count").value(1));
+
+        postService.deleteComment(postId, rootId, OWNER);
+
+        assertThat(commentCount(postId)).isEqualTo(1);
+    }
+
+    @Test
+    void unknownParentIsNotFound() throws Exception {
+        mockMvc.perform(get("/posts/post-1001/comments").param("parent_id", "comment-missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/posts/post-1001/comments").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void commentsWithBlockedPhrasesAreRejected() throws Exception {
+        String postId = createPost();
+
+        mockMvc.perform(post("/posts/{postId}/comments", postId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Cheap! Buy\\n  FOLLOWERS here\"}"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").value("content_rejected"));
+        mockMvc.perform(post("/posts/{postId}/comments", postId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Not a spamwordy comment\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private long commentCount(String postId) {
+        return postService.findPost(postId, Optional.empty()).orElseThrow().commentCount();
+    }
+
+    private String createPost() {
+        return postService.createPost(OWNER, "Thread", null, List.of(), PostVisibility.PUBLIC, "photo.png", new StoredMedia(UUID.randomUUID().toString(), 1_024)).id();
+    }
+}
@@ -0,0 +1,115 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.service.OutboxDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.jayway.jsonpath.JsonPath;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FilesControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Test
+    void redirectsToACacheableSignedUrl() throws Exception {
+        String location = mockMvc.perform(get("/files/file-1"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, matchesPattern("max-age=\\d+, public")))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.LOCATION);
+
+        assertThat(location).startsWith("/files/file-1/content?disposition=inline&expires=").contains("&signature=");
+    }
+
+    @Test
+    void rejectsUnknownDispositions() throws Exception {
+        mockMvc.perform(get("/files/file-1").param("disposition", "evil"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_request"));
+    }
+
+    @Test
+    void uploadedBytesAreServedThroughTheSignedUrl() throws Exception {
+        byte[] payload = "not really a png".getBytes();
+        String created = mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .param("title", "Stored")
+                        .content(payload))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.file_size").value(payload.length))
+                .andReturn().getResponse().getContentAsString();
+        String fileId = JsonPath.read(created, "$.file_id");
+
+        String location = mockMvc.perform(get("/files/" + fileId).param("disposition", "attachment"))
+                .andExpect(status().isFound())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/octet-stream"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment"))
+                .andExpect(content().bytes(payload));
+        mockMvc.perform(get(location.replace("attachment", "inline")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void recognizedImagesAreStoredWithTheirOwnTypeAndSize() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_ARGB), "png", png);
+        String created = mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .param("title", "Sized")
+                        .content(png.toByteArray()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.mime_type").value("image/png"))
+                .andExpect(jsonPath("$.width").value(64))
+                .andExpect(jsonPath("$.height").value(48))
+                .andReturn().getResponse().getContentAsString();
+        String fileId = JsonPath.read(created, "$.file_id");
+
+        String location = mockMvc.perform(get("/files/" + fileId))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(content().bytes(png.toByteArray()));
+
+        // The placeholder is computed in the background once the upload has committed.
+        String postId = JsonPath.read(created, "$.id");
+        String placeholder = null;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (placeholder == null && System.currentTimeMillis() < deadline) {
+            outboxDispatcher.dispatchPending();
+            placeholder = JsonPath.read(mockMvc.perform(get("/posts/" + postId))
+                    .andReturn().getResponse().getContentAsString(), "$.placeholder");
+        }
+        assertThat(placeholder).matches("L.{27}");
+    }
+}
@@ -0,0 +1,68 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.CommentResponse;
+import com.equinor.onlypikks.api.model.PagedResponse;
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.api.model.TagCountResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PagedResponseHttpMessageConverterTest {
+
+    // Configured like Spring Boot's mapper: ISO-8601 dates rather than numeric timestamps.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final PagedResponseHttpMessageConverter converter = new PagedResponseHttpMessageConverter(objectMapper);
+
+    @Test
+    void writesPostPagesExactlyLikeJackson() throws Exception {
+        Instant createdAt = Instant.parse("2025-03-01T10:15:30.123456Z");
+        PagedResponse<PostSummaryResponse> page = new PagedResponse<>(
+                List.of(
+                        new PostSummaryResponse("post-1", "Title \"quoted\"", null, List.of("a", "ø"),
+                                PostVisibility.PUBLIC, "alice", "Alice", "https://cdn.example.com/t.jpg",
+                                1200, 800, "LEHV6nWB2yk8pyoJadR*.7kCMdnj", createdAt, createdAt.plusSeconds(5), 3, 7),
+                        new PostSummaryResponse("post-2", "Second", "Line\nbreak", List.of(),
+                                PostVisibility.UNLISTED, "bob", "Bob", null, null, null, null,
+                                Instant.parse("2025-03-01T10:00:00Z"), Instant.parse("2025-03-01T10:00:00Z"), 0, 0)
+                ),
+                2,
+                24,
+                26,
+                List.of(new TagCountResponse("a", 4)),
+                "cursor-1"
+        );
+
+        assertThat(write(page)).isEqualTo(objectMapper.writeValueAsString(page));
+    }
+
+    @Test
+    void writesOtherItemTypesExactlyLikeJackson() throws Exception {
+        PagedResponse<CommentResponse> page = new PagedResponse<>(
+                List.of(new CommentResponse("comment-1", "post-1", null, "bob", "Bob", "Hi",
+                        Instant.parse("2025-03-01T10:00:00Z"), Instant.parse("2025-03-01T10:00:00Z"), 0)),
+                1,
+                20,
+                1
+        );
+
+        assertThat(write(page)).isEqualTo(objectMapper.writeValueAsString(page));
+    }
+
+    private String write(PagedResponse<?> page) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, output);
+        return output.getBodyAsString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.equinor.onlypikks.controller;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.api.model.UpdatePostMetadataRequest;
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.service.MockPostService;
+import com.equinor.onlypikks.service.PostEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostEventsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MockPostService postService;
+
+    @Autowired
+    private PostEventBus eventBus;
+
+    @Test
+    void streamsNewCommentsToSubscribers() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/posts/post-1001/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+        assertThat(eventBus.subscriberCount("post-1001")).isPositive();
+
+        postService.addComment("post-1001", new AuthContext("dave", "dave@example.com", "Dave"), "Live!", null);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!response.getContentAsString().contains("Live!") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(response.getContentAsString())
+                .contains("event:comment.created")
+                .contains("\"text\":\"Live!\"");
+    }
+
+    @Test
+    void everySubscriberGetsEachEventOnce() throws Exception {
+        String postId = "post-1002";
+        MockHttpServletResponse first = mockMvc.perform(get("/posts/" + postId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse second = mockMvc.perform(get("/posts/" + postId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        postService.addComment(postId, new AuthContext("dave", "dave@example.com", "Dave"), "Shared", null);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!(first.getContentAsString().contains("Shared") && second.getContentAsString().contains("Shared"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            String body = response.getContentAsString();
+            assertThat(body.split("event:comment.created", -1)).hasSize(2);
+            assertThat(body.split("\"text\":\"Shared\"", -1)).hasSize(2);
+        }
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    void streamsEndWhenThePostsVisibilityChanges() throws Exception {
+        AuthContext alice = new AuthContext("alice", "alice@example.com", "Alice");
+        String postId = "post-1001";
+        MockHttpServletResponse response = mockMvc.perform(get("/posts/" + postId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+        assertThat(eventBus.subscriberCount(postId)).isPositive();
+
+        postService.updateMetadata(postId, alice, new UpdatePostMetadataRequest(null, null, null, PostVisibility.PRIVATE));
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (eventBus.subscriberCount(postId) > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(eventBus.subscriberCount(postId)).isZero();
+            postService.addComment(postId, alice, "Only for me", null);
+            assertThat(response.getContentAsString()).contains("event:post.updated").doesNotContain("Only for me");
+            mockMvc.perform(get("/posts/" + postId + "/events"))
+                    .andExpect(status().isNotFound());
+        } finally {
+            postService.updateMetadata(postId, alice, new UpdatePostMetadataRequest(null, null, null, PostVisibility.PUBLIC));
+        }
+    }
+
+    @Test
+    void unknownPostIsNotFound() throws Exception {
+        mockMvc.perform(get("/posts/post-missing/events"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,23 +1,56 @@
 package com.equinor.onlypikks.controller;
 
+import com.equinor.onlypikks.service.MediaService;
+import com.equinor.onlypikks.service.OutboxDispatcher;
+import com.equinor.onlypikks.service.PostCatalog;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -28,9 +61,21 @@ class PostsControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostCatalog postCatalog;
+
     @MockBean
     private JwtDecoder jwtDecoder;
 
+    @SpyBean
+    private MediaService mediaService;
+
     @BeforeEach
     void setUpJwtDecoder() {
         Instant now = Instant.now();
@@ -57,4 +102,367 @@ class PostsControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("invalid_request"));
     }
+
+    @Test
+    void listPostsIncludesTagFacetsWhenRequested() throws Exception {
+        mockMvc.perform(get("/posts").param("facets", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets[0].tag").exists())
+                .andExpect(jsonPath("$.facets[0].count").isNumber());
+    }
+
+    @Test
+    void mediaUrlsPointAtTheFilesEndpoint() throws Exception {
+        String body = mockMvc.perform(get("/posts/post-1001"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String fileId = JsonPath.read(body, "$.file_id");
+        assertThat((String) JsonPath.read(body, "$.file_url")).isEqualTo("/files/" + fileId);
+        assertThat((String) JsonPath.read(body, "$.thumbnail_url")).isEqualTo("/files/" + fileId);
+    }
+
+    @Test
+    void replacingSomeoneElsesMediaStoresNothing() throws Exception {
+        // post-1002 belongs to bob.
+        mockMvc.perform(multipart(HttpMethod.PUT, "/posts/post-1002")
+                        .file(new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, new byte[512]))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(multipart(HttpMethod.PUT, "/posts/post-missing")
+                        .file(new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, new byte[512]))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isNotFound());
+
+        verify(mediaService, never()).store(any(), anyLong(), any());
+    }
+
+    @Test
+    void getPostReturnsNotModifiedForMatchingETag() throws Exception {
+        String etag = mockMvc.perform(get("/posts/post-1001"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/posts/post-1001").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void listPostsETagDependsOnQueryParameters() throws Exception {
+        String etag = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/posts").param("page", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void publicListingETagIgnoresWritesToPrivatePosts() throws Exception {
+        String post = create("Quiet fjord", "fjord");
+        updateMetadata(post, "{\"visibility\":\"PRIVATE\"}");
+        String etag = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        updateMetadata(post, "{\"title\":\"Quieter fjord\"}");
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        updateMetadata(post, "{\"visibility\":\"PUBLIC\"}");
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void batchGetResolvesAccessiblePostsInRequestOrder() throws Exception {
+        mockMvc.perform(get("/posts").param("ids", "post-1002,post-1003,post-1001,post-missing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("post-1002"))
+                .andExpect(jsonPath("$.items[1].id").value("post-1001"))
+                .andExpect(jsonPath("$.items[1].latest_comments[0].id").value("comment-5002"))
+                .andExpect(jsonPath("$.items[1].latest_comments[1].id").value("comment-5001"))
+                .andExpect(jsonPath("$.missing[0]").value("post-1003"))
+                .andExpect(jsonPath("$.missing[1]").value("post-missing"));
+    }
+
+    @Test
+    void anonymousHomeFeedMatchesTheRegularListing() throws Exception {
+        String snapshot = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items[0].created_at").isString())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        // Any filter that is equivalent for anonymous callers bypasses the snapshot.
+        String regular = mockMvc.perform(get("/posts").param("visibility", "public"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(snapshot).isEqualTo(regular);
+    }
+
+    @Test
+    void sparseFieldsOmitUnrequestedProperties() throws Exception {
+        mockMvc.perform(get("/posts").param("fields", "title,tags"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").isString())
+                .andExpect(jsonPath("$.items[0].title").exists())
+                .andExpect(jsonPath("$.items[0].tags").isArray())
+                .andExpect(jsonPath("$.items[0].description").doesNotExist())
+                .andExpect(jsonPath("$.items[0].created_at").doesNotExist())
+                .andExpect(jsonPath("$.total").isNumber());
+
+        mockMvc.perform(get("/posts").param("fields", "title,shoe_size"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_request"));
+    }
+
+    @Test
+    void sparseListingMatchesTheFullListing() throws Exception {
+        String fields = "id,title,description,tags,visibility,owner_id,owner_display_name,thumbnail_url,"
+                + "width,height,placeholder,created_at,updated_at,comment_count,like_count";
+        // Rows imported or written before media URLs were derived still carry a stored CDN URL.
+        jdbcTemplate.update("update posts set thumbnail_url = 'https://cdn.example.com/thumbnails/stale.jpg'");
+        // Posts created in the same instant are ordered by id in both listings.
+        jdbcTemplate.update("update posts set created_at = timestamp '2024-05-01 10:00:00'");
+        postCatalog.invalidate();
+        String sparse = mockMvc.perform(get("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .param("fields", fields))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String full = mockMvc.perform(get("/posts").header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(sparse).isEqualTo(full);
+    }
+
+    @Test
+    void anonymousHomeFeedIsServedPreCompressed() throws Exception {
+        MockHttpServletResponse plain = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        MockHttpServletResponse compressed = mockMvc.perform(get("/posts")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("Authorization, Accept-Encoding")))
+                .andReturn()
+                .getResponse();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getContentAsByteArray());
+        }
+        assertThat(compressed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(plain.getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/posts")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, compressed.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("Authorization, Accept-Encoding")));
+    }
+
+    @Test
+    void similarPostsFindResizedCopiesOfTheSameImage() throws Exception {
+        BufferedImage original = scene(800, 600, 3);
+        BufferedImage smaller = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = smaller.createGraphics();
+        graphics.drawImage(original, 0, 0, 400, 300, null);
+        graphics.dispose();
+        String first = upload(encode(original, "png"));
+        String copy = upload(encode(smaller, "jpg"));
+        String other = upload(encode(scene(800, 600, 4), "png"));
+
+        List<String> similar = List.of();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!similar.contains(copy) && System.currentTimeMillis() < deadline) {
+            outboxDispatcher.dispatchPending();
+            similar = JsonPath.read(mockMvc.perform(get("/posts/" + first + "/similar"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.items[*].post.id");
+        }
+
+        assertThat(similar).contains(copy).doesNotContain(first, other);
+        mockMvc.perform(get("/posts/post-missing/similar"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void relatedPostsShareTagsAndTitleWords() throws Exception {
+        String first = create("Offshore wind farm at dawn", "wind,offshore,dawn");
+        String related = create("Offshore wind farm maintenance", "wind,offshore");
+        String unrelated = create("Canteen tasting day", "food");
+
+        mockMvc.perform(get("/posts/" + first + "/related"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].post.id").value(related))
+                .andExpect(jsonPath("$.items[0].score").isNumber())
+                .andExpect(jsonPath("$.items[*].post.id", not(hasItem(unrelated))));
+        mockMvc.perform(get("/posts/post-missing/related"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void writesToMissingOrForeignPostsAreRejected() throws Exception {
+        String post = create("Short-lived harbour", "harbour");
+
+        mockMvc.perform(patch("/posts/post-404")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Renamed\"}"))
+                .andExpect(status().isNotFound());
+        // Seeded, and owned by bob.
+        mockMvc.perform(patch("/posts/post-1002")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Renamed\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/posts/post-1002").header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/posts/" + post).header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/posts/" + post).header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/posts/" + post))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void postsImportedOnAnotherReplicaAreFoundOnceItsWriteIsNoticed() throws Exception {
+        // What an import on another replica leaves behind: an id in the seed data's format,
+        // which this replica's id filter would otherwise rule out, and moved feed versions.
+        jdbcTemplate.update("insert into posts (id, title, visibility, owner_id, owner_display_name, file_id, "
+                + "file_url, thumbnail_url, original_file_name, file_size_bytes, created_at, updated_at, "
+                + "comment_count, like_count) values ('post-5001', 'From the archive', 'PUBLIC', 'zoe', 'Zoe', "
+                + "'f-5001', '', '', 'old.png', 10, current_timestamp, current_timestamp, 0, 0)");
+        jdbcTemplate.update("update feed_versions set version = version + 1");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        int status = HttpStatus.NOT_FOUND.value();
+        while (status == HttpStatus.NOT_FOUND.value() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = mockMvc.perform(get("/posts/post-5001")).andReturn().getResponse().getStatus();
+        }
+        assertThat(status).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void suggestionsCompleteTagsAndTitleWordsOfPublicPosts() throws Exception {
+        create("Zéphyrine harbour", "zephyr");
+        create("Zephyrine at night", "zephyr,night");
+
+        mockMvc.perform(get("/suggest").param("prefix", "ZEPH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("zephyr"))
+                .andExpect(jsonPath("$[0].kind").value("TAG"))
+                .andExpect(jsonPath("$[0].weight").value(2))
+                .andExpect(jsonPath("$[1].kind").value("TITLE"))
+                .andExpect(jsonPath("$[1].weight").value(2));
+        mockMvc.perform(get("/suggest").param("prefix", "zeppelin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void listingsHonourTheSortOrder() throws Exception {
+        create("Freshly posted", "fresh");
+        List<String> newest = listIds("created_desc");
+        List<String> oldest = listIds("created_asc");
+
+        assertThat(newest).hasSizeGreaterThan(1);
+        assertThat(oldest).isEqualTo(newest.reversed());
+        String popular = mockMvc.perform(get("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .param("sort", "popular")
+                        .param("per_page", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> likes = JsonPath.read(popular, "$.items[*].like_count");
+        assertThat(likes).isSortedAccordingTo(Comparator.reverseOrder());
+        mockMvc.perform(get("/posts").param("sort", "random"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> listIds(String sort) throws Exception {
+        String listing = mockMvc.perform(get("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .param("sort", sort)
+                        .param("per_page", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(listing, "$.items[*].id");
+    }
+
+    private String create(String title, String tags) throws Exception {
+        String created = mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .param("title", title)
+                        .param("tags", tags)
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(created, "$.id");
+    }
+
+    private void updateMetadata(String postId, String metadata) throws Exception {
+        mockMvc.perform(patch("/posts/" + postId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(metadata))
+                .andExpect(status().isOk());
+    }
+
+    private String upload(byte[] image) throws Exception {
+        String created = mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .param("title", "Scene")
+                        .content(image))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(created, "$.id");
+    }
+
+    private static BufferedImage scene(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < 12; i++) {
+            graphics.setColor(new Color(random.nextInt(0xffffff)));
+            int size = width / 4 + random.nextInt(width / 3);
+            graphics.fillOval(random.nextInt(width) - size / 2, random.nextInt(height) - size / 2, size, size);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,79 @@
+package com.equinor.onlypikks.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression is applied by the servlet container, so it is only visible over a real socket.
+ * The threshold is lowered to fit the seed data.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.compression.min-response-size=256"
+)
+class ResponseCompressionTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @Test
+    void largeJsonResponsesAreCompressedForGzipClients() throws Exception {
+        HttpResponse<byte[]> plain = fetch("/posts?facets=true", null);
+        HttpResponse<byte[]> compressed = fetch("/posts?facets=true", "gzip");
+
+        assertThat(plain.body().length).isGreaterThan(256);
+        assertThat(plain.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+        assertThat(compressed.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(compressed.body().length).isLessThan(plain.body().length);
+        assertThat(gunzip(compressed.body())).isEqualTo(plain.body());
+    }
+
+    @Test
+    void smallResponsesAreSentUncompressed() throws Exception {
+        HttpResponse<byte[]> response = fetch("/posts?fields=id&per_page=1", "gzip");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
+    @Test
+    void preCompressedFeedIsNotCompressedTwice() throws Exception {
+        HttpResponse<byte[]> plain = fetch("/posts", null);
+        HttpResponse<byte[]> compressed = fetch("/posts", "gzip");
+
+        assertThat(compressed.headers().allValues(HttpHeaders.CONTENT_ENCODING)).containsExactly("gzip");
+        assertThat(gunzip(compressed.body())).isEqualTo(plain.body());
+    }
+
+    private HttpResponse<byte[]> fetch(String path, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.equinor.onlypikks.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "onlypikks.uploads.max-size=1KB",
+        "onlypikks.admin.user-ids=admin"
+})
+@AutoConfigureMockMvc
+class UploadAdmissionFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void oversizedUploadsAreRejectedFromTheirContentLength() throws Exception {
+        mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[2048]))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error").value("payload_too_large"));
+        mockMvc.perform(multipart("/posts")
+                        .file(new MockMultipartFile("file", "big.png", "image/png", new byte[2048]))
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void anonymousUploadsAreRejectedBeforeTheBodyIsParsed() throws Exception {
+        mockMvc.perform(multipart("/posts")
+                        .file(new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, new byte[512]))
+                        .param("title", "Anonymous"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(multipart(HttpMethod.PUT, "/posts/post-1001")
+                        .file(new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, new byte[512])))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void admittedUploadsShowUpInTheStats() throws Exception {
+        mockMvc.perform(post("/posts")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer alice")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[100]))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/admin/uploads").header(HttpHeaders.AUTHORIZATION, "Bearer admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.active").value(0))
+                .andExpect(jsonPath("$.queued").value(0))
+                .andExpect(jsonPath("$.admitted").isNumber())
+                .andExpect(jsonPath("$.average_wait_millis").isNumber());
+        mockMvc.perform(get("/admin/uploads").header(HttpHeaders.AUTHORIZATION, "Bearer alice"))
+                .andExpect(status().isForbidden());
+    }
+}
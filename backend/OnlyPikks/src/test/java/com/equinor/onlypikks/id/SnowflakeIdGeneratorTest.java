@@ -0,0 +1,69 @@
+package com.equinor.onlypikks.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long START = SnowflakeIdGenerator.EPOCH.toEpochMilli() + 1_000;
+
+    @Test
+    void idsAreStrictlyIncreasingWithinAMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, () -> START);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long next = generator.nextId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsKeepIncreasingWhenTheClockStepsBack() {
+        AtomicLong clock = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.set(START - 5_000);
+
+        assertThat(generator.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    void nodeIdAndTimestampAreEncoded() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(517, () -> START);
+
+        long id = generator.nextId();
+
+        assertThat(SnowflakeIdGenerator.nodeIdOf(id)).isEqualTo(517);
+        assertThat(SnowflakeIdGenerator.timestampOf(id).toEpochMilli()).isEqualTo(START);
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> START);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> START);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            assertThat(ids.add(first.nextId())).isTrue();
+            assertThat(ids.add(second.nextId())).isTrue();
+        });
+
+        assertThat(ids).hasSize(40_000);
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
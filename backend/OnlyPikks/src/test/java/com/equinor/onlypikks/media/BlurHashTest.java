@@ -0,0 +1,29 @@
+package com.equinor.onlypikks.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlurHashTest {
+
+    @Test
+    void matchesTheReferenceEncoder() {
+        // Expected values from the reference TypeScript implementation's algorithm.
+        assertThat(BlurHash.encode(gradient(8, 6), 8, 6)).isEqualTo("LcE.,Z34a_%0zHNJfRnQeof8fRf6");
+        int[] solid = new int[8 * 6];
+        Arrays.fill(solid, 0xc81e1e);
+        assertThat(BlurHash.encode(solid, 8, 6)).isEqualTo("LVM^z|]TfQ]T|wsUfQsUfQfQfQfQ");
+    }
+
+    private static int[] gradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = (x * 30) << 16 | (y * 40) << 8 | (x + y) * 10;
+            }
+        }
+        return pixels;
+    }
+}
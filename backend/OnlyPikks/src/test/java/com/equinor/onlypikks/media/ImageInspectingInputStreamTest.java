@@ -0,0 +1,198 @@
+package com.equinor.onlypikks.media;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageInspectingInputStreamTest {
+
+    @Test
+    void readsJpegSizeAndStripsMetadataButKeepsOrientation() throws Exception {
+        byte[] plain = encode(40, 30, "jpg");
+        byte[] exif = exifWithOrientation(6, "SecretCam");
+        byte[] xmp = concat("http://ns.adobe.com/xap/1.0/\0".getBytes(StandardCharsets.ISO_8859_1),
+                "<x:xmpmeta>secret location</x:xmpmeta>".getBytes(StandardCharsets.ISO_8859_1));
+        byte[] upload = concat(
+                slice(plain, 0, 2),
+                segment(0xE1, exif),
+                segment(0xE1, xmp),
+                segment(0xFE, "secret comment".getBytes(StandardCharsets.ISO_8859_1)),
+                slice(plain, 2, plain.length)
+        );
+
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(new ByteArrayInputStream(upload));
+        byte[] stored = inspected.readAllBytes();
+
+        assertThat(inspected.mimeType()).contains("image/jpeg");
+        // Orientation 6 turns the image on its side.
+        assertThat(inspected.imageInfo()).contains(new ImageInfo("image/jpeg", 30, 40));
+        assertThat(JpegParser.exifOrientation(slice(stored, 6, 6 + 32))).isEqualTo(6);
+        assertThat(latin1(stored)).doesNotContain("SecretCam", "secret location", "secret comment");
+        assertThat(stored).hasSize(plain.length + 36);
+        assertThat(decode(stored).getWidth()).isEqualTo(40);
+    }
+
+    @Test
+    void readsPngSizeAndDropsTextChunks() throws Exception {
+        byte[] plain = encode(17, 9, "png");
+        // Insert a tEXt chunk right after IHDR (8 byte signature + 25 byte chunk).
+        byte[] upload = concat(
+                slice(plain, 0, 33),
+                pngChunk("tEXt", "Author\0secret author".getBytes(StandardCharsets.ISO_8859_1)),
+                slice(plain, 33, plain.length)
+        );
+
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(new ByteArrayInputStream(upload));
+        byte[] stored = inspected.readAllBytes();
+
+        assertThat(inspected.imageInfo()).contains(new ImageInfo("image/png", 17, 9));
+        assertThat(stored).isEqualTo(plain);
+    }
+
+    @Test
+    void readsGifSize() throws Exception {
+        byte[] plain = encode(12, 34, "gif");
+
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(new ByteArrayInputStream(plain));
+
+        assertThat(inspected.readAllBytes()).isEqualTo(plain);
+        assertThat(inspected.imageInfo()).contains(new ImageInfo("image/gif", 12, 34));
+    }
+
+    @Test
+    void readsWebpCanvasAndBlanksExifInPlace() throws Exception {
+        byte[] vp8x = new byte[10];
+        vp8x[0] = 0x08 | 0x04;
+        writeU24le(vp8x, 4, 640 - 1);
+        writeU24le(vp8x, 7, 480 - 1);
+        byte[] exif = "Exif\0\0secret camera".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] chunks = concat(riffChunk("VP8X", vp8x), riffChunk("EXIF", exif), riffChunk("VP8L", new byte[6]));
+        byte[] upload = concat("RIFF".getBytes(StandardCharsets.ISO_8859_1), u32le(4 + chunks.length),
+                "WEBP".getBytes(StandardCharsets.ISO_8859_1), chunks);
+
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(new ByteArrayInputStream(upload));
+        byte[] stored = inspected.readAllBytes();
+
+        assertThat(inspected.imageInfo()).contains(new ImageInfo("image/webp", 640, 480));
+        assertThat(stored).hasSameSizeAs(upload);
+        assertThat(stored[20] & 0x0c).isZero();
+        assertThat(latin1(stored)).contains("JUNK").doesNotContain("EXIF", "secret camera");
+    }
+
+    @Test
+    void parsesTheSameWhenBytesArriveOneAtATime() throws Exception {
+        byte[] plain = encode(40, 30, "jpg");
+        byte[] upload = concat(slice(plain, 0, 2), segment(0xE1, exifWithOrientation(8, "Cam")),
+                slice(plain, 2, plain.length));
+
+        ImageInspectingInputStream whole = ImageInspectingInputStream.inspect(new ByteArrayInputStream(upload));
+        ImageInspectingInputStream trickled = ImageInspectingInputStream.inspect(trickle(upload));
+
+        assertThat(trickled.readAllBytes()).isEqualTo(whole.readAllBytes());
+        assertThat(trickled.imageInfo()).isEqualTo(whole.imageInfo()).contains(new ImageInfo("image/jpeg", 30, 40));
+    }
+
+    @Test
+    void passesUnrecognizedContentThrough() throws Exception {
+        byte[] upload = "not an image, just some text".getBytes(StandardCharsets.UTF_8);
+
+        ImageInspectingInputStream inspected = ImageInspectingInputStream.inspect(new ByteArrayInputStream(upload));
+
+        assertThat(inspected.mimeType()).isEmpty();
+        assertThat(inspected.readAllBytes()).isEqualTo(upload);
+        assertThat(inspected.imageInfo()).isEmpty();
+    }
+
+    private static byte[] encode(int width, int height, String format) throws IOException {
+        int type = "jpg".equals(format) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage image = new BufferedImage(width, height, type);
+        image.setRGB(1, 1, 0xff336699);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(ImageIO.write(image, format, out)).isTrue();
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] exifWithOrientation(int orientation, String make) {
+        byte[] makeBytes = (make + "\0").getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 2 * 12 + 4 + makeBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        tiff.putShort((short) 2);
+        tiff.putShort((short) 0x010F).putShort((short) 2).putInt(makeBytes.length).putInt(8 + 2 + 24 + 4);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        tiff.put(makeBytes);
+        return concat("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1), tiff.array());
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        int length = payload.length + 2;
+        return concat(new byte[]{(byte) 0xFF, (byte) marker, (byte) (length >> 8), (byte) length}, payload);
+    }
+
+    private static byte[] pngChunk(String type, byte[] data) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.ISO_8859_1);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        return concat(ByteBuffer.allocate(4).putInt(data.length).array(), typeBytes, data,
+                ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    private static byte[] riffChunk(String type, byte[] data) {
+        byte[] padding = new byte[data.length & 1];
+        return concat(type.getBytes(StandardCharsets.ISO_8859_1), u32le(data.length), data, padding);
+    }
+
+    private static byte[] u32le(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    private static void writeU24le(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+        bytes[offset + 2] = (byte) (value >> 16);
+    }
+
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        byte[] result = new byte[to - from];
+        System.arraycopy(bytes, from, result, 0, result.length);
+        return result;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static String latin1(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static InputStream trickle(byte[] bytes) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.equinor.onlypikks.media;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageSampleTest {
+
+    @Test
+    void decodesASubsampledImage() throws Exception {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(639, 0, 0xffffff);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        assertThat(ImageSample.decode(new ByteArrayInputStream(png.toByteArray())))
+                .hasValueSatisfying(sample -> {
+                    assertThat(sample.width()).isEqualTo(64);
+                    assertThat(sample.height()).isEqualTo(48);
+                    assertThat(sample.pixels()).hasSize(64 * 48);
+                });
+    }
+
+    @Test
+    void isEmptyForFormatsThatCannotBeDecoded() throws Exception {
+        byte[] text = "plain text".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(ImageSample.decode(new ByteArrayInputStream(text))).isEmpty();
+    }
+
+    @Test
+    void orientsPixelsTheWayTheyAreDisplayed() {
+        // 3x2 image with pixels numbered row by row.
+        int[] pixels = {1, 2, 3, 4, 5, 6};
+
+        assertThat(ImageSample.orient(pixels, 3, 2, 1)).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(ImageSample.orient(pixels, 3, 2, 3)).containsExactly(6, 5, 4, 3, 2, 1);
+        // Rotated 90 degrees clockwise: the bottom-left pixel ends up top-left.
+        assertThat(ImageSample.orient(pixels, 3, 2, 6)).containsExactly(4, 1, 5, 2, 6, 3);
+        assertThat(ImageSample.orient(pixels, 3, 2, 8)).containsExactly(3, 6, 2, 5, 1, 4);
+    }
+}
@@ -0,0 +1,90 @@
+package com.equinor.onlypikks.media;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerceptualHashTest {
+
+    @Test
+    void resizedAndRecompressedCopiesStayClose() throws Exception {
+        BufferedImage original = scene(1200, 900, 1);
+        long hash = hash(jpeg(original, 0.95f));
+
+        assertThat(PerceptualHash.distance(hash, hash(jpeg(resize(original, 400, 300), 0.4f))))
+                .isLessThanOrEqualTo(4);
+        assertThat(PerceptualHash.distance(hash, hash(png(resize(original, 800, 600)))))
+                .isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void differentPicturesAreFarApart() throws Exception {
+        long first = hash(png(scene(800, 600, 1)));
+        long second = hash(png(scene(800, 600, 2)));
+
+        assertThat(PerceptualHash.distance(first, second)).isGreaterThan(16);
+    }
+
+    private static long hash(byte[] image) throws Exception {
+        return PerceptualHash.dHash(ImageSample.decode(new ByteArrayInputStream(image)).orElseThrow());
+    }
+
+    /**
+     * Smooth blobs of colour, so the picture has structure at the scale the hash looks at.
+     */
+    private static BufferedImage scene(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < 12; i++) {
+            graphics.setColor(new Color(random.nextInt(0xffffff)));
+            int size = width / 4 + random.nextInt(width / 3);
+            graphics.fillOval(random.nextInt(width) - size / 2, random.nextInt(height) - size / 2, size, size);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return resized;
+    }
+
+    private static byte[] png(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] jpeg(BufferedImage image, float quality) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
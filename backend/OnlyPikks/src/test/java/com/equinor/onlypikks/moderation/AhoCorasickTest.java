@@ -0,0 +1,72 @@
+package com.equinor.onlypikks.moderation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingTermsThroughFailureLinks() {
+        AhoCorasick automaton = AhoCorasick.compile(List.of("he", "she", "his", "hers", "s he"));
+
+        assertThat(automaton.findAll("ushers")).isEmpty();
+        assertThat(automaton.findAll("she hers his")).containsExactly("she", "hers", "his");
+        assertThat(automaton.findAll("s he hers")).containsExactly("s he", "he", "hers");
+        assertThat(automaton.findFirst("was he here")).contains("he");
+    }
+
+    @Test
+    void matchesWholeWordsIgnoringCaseAndSpacing() {
+        AhoCorasick automaton = AhoCorasick.compile(List.of("Buy Followers", "ass", "  ", ""));
+
+        assertThat(automaton.size()).isEqualTo(2);
+        assertThat(automaton.findFirst("please BUY\n\t followers!")).contains("buy followers");
+        assertThat(automaton.findFirst("a classic mistake")).isEmpty();
+        assertThat(automaton.findFirst("kick-ass")).contains("ass");
+        assertThat(automaton.findFirst("buy followersnow")).isEmpty();
+        assertThat(AhoCorasick.empty().findFirst("anything")).isEmpty();
+    }
+
+    @Test
+    void agreesWithANaiveScan() {
+        Random random = new Random(3);
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            terms.add(randomText(random, 1 + random.nextInt(5)));
+        }
+        AhoCorasick automaton = AhoCorasick.compile(terms);
+        for (int round = 0; round < 500; round++) {
+            String text = randomText(random, 40);
+            List<String> expected = new ArrayList<>();
+            for (int end = 1; end <= text.length(); end++) {
+                for (String term : terms.stream().distinct().toList()) {
+                    int start = end - term.length();
+                    if (start >= 0 && text.startsWith(term, start)
+                            && (start == 0 || text.charAt(start - 1) == ' ')
+                            && (end == text.length() || text.charAt(end) == ' ')) {
+                        expected.add(term);
+                    }
+                }
+            }
+            assertThat(automaton.findAll(text)).as(text).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        // A tiny alphabet so terms overlap and share prefixes and suffixes often.
+        String alphabet = "abab c";
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) {
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (c != ' ' || (!text.isEmpty() && text.charAt(text.length() - 1) != ' ' && text.length() < length - 1)) {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+}
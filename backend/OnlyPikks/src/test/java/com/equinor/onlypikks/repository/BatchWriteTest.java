@@ -0,0 +1,78 @@
+package com.equinor.onlypikks.repository;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.repository.entity.CommentEntity;
+import com.equinor.onlypikks.repository.entity.PostEntity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchWriteTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        Instant now = Instant.now();
+        postRepository.saveAndFlush(new PostEntity(
+                "post-batch", "Batch", null, List.of(), PostVisibility.PUBLIC, "alice", "Alice",
+                "file", "https://cdn.example.com/files/file", "https://cdn.example.com/thumbnails/file.jpg",
+                "batch.png", 1L, now, now, 0, 0
+        ));
+        statistics.clear();
+    }
+
+    @Test
+    void saveAllInsertsInJdbcBatchesWithoutSelectingFirst() {
+        Instant now = Instant.now();
+        List<CommentEntity> comments = IntStream.range(0, 120)
+                .mapToObj(i -> new CommentEntity(
+                        "comment-batch-" + i, "post-batch", null, "bob", "Bob", "Comment " + i, now, now))
+                .toList();
+
+        commentRepository.saveAll(comments);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void deleteByPostIdIsASingleStatement() {
+        Instant now = Instant.now();
+        commentRepository.saveAllAndFlush(IntStream.range(0, 30)
+                .mapToObj(i -> new CommentEntity(
+                        "comment-batch-" + i, "post-batch", null, "bob", "Bob", "Comment " + i, now, now))
+                .toList());
+        entityManager.clear();
+        statistics.clear();
+
+        int deleted = commentRepository.deleteByPostId("post-batch");
+
+        assertThat(deleted).isEqualTo(30);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.equinor.onlypikks.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts that the hot query shapes are served by the indexes created in the Flyway
+ * migrations. H2 prints the chosen access path as a comment in the EXPLAIN output, and a
+ * missing or unusable index shows up as {@code tableScan}.
+ */
+@DataJpaTest
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void commentsForPostUseCompositeIndex() {
+        assertIndexScan(
+                "select * from comments where post_id = 'post-1' order by created_at asc",
+                "IDX_COMMENTS_POST_CREATED_AT_ID"
+        );
+    }
+
+    @Test
+    void latestCommentsForPostUseCompositeIndex() {
+        assertIndexScan(
+                "select * from comments where post_id = 'post-1' order by created_at desc fetch first 3 rows only",
+                "IDX_COMMENTS_POST_CREATED_AT_ID"
+        );
+    }
+
+    @Test
+    void commentKeysetPageUsesCompositeIndex() {
+        assertIndexScan(
+                "select * from comments where post_id = 'post-1' and (created_at > timestamp with time zone '2025-01-01 00:00:00Z' "
+                        + "or (created_at = timestamp with time zone '2025-01-01 00:00:00Z' and id > 'comment-1')) "
+                        + "order by created_at, id fetch first 20 rows only",
+                "IDX_COMMENTS_POST_CREATED_AT_ID"
+        );
+    }
+
+    @Test
+    void repliesUseParentIndex() {
+        assertIndexScan(
+                "select * from comments where parent_id = 'comment-1' order by created_at, id fetch first 20 rows only",
+                "IDX_COMMENTS_PARENT_CREATED_AT_ID"
+        );
+    }
+
+    @Test
+    void commentCountAndDeleteUseCompositeIndex() {
+        assertIndexScan("select count(*) from comments where post_id = 'post-1'", "IDX_COMMENTS_POST_CREATED_AT_ID");
+        assertIndexScan("delete from comments where post_id = 'post-1'", "IDX_COMMENTS_POST_CREATED_AT_ID");
+    }
+
+    @Test
+    void ownerFeedUsesOwnerIndex() {
+        assertIndexScan(
+                "select * from posts where owner_id = 'alice' order by created_at desc",
+                "IDX_POSTS_OWNER_CREATED_AT"
+        );
+    }
+
+    @Test
+    void visibilityFeedUsesVisibilityIndex() {
+        assertIndexScan(
+                "select * from posts where visibility = 'PUBLIC' order by created_at desc",
+                "IDX_POSTS_VISIBILITY_CREATED_AT"
+        );
+    }
+
+    @Test
+    void feedVersionIsReadByPrimaryKey() {
+        assertNoTableScan("select version from feed_versions where id = 'PUBLIC'");
+    }
+
+    @Test
+    void tagsForPostAvoidTableScan() {
+        // H2 may prefer the index it creates for the foreign key; either one is fine here.
+        assertNoTableScan("select tag from post_tags where post_id = 'post-1'");
+    }
+
+    @Test
+    void postsByTagUseTagIndex() {
+        assertIndexScan("select post_id from post_tags where tag = 'energy'", "IDX_POST_TAGS_TAG_POST_ID");
+    }
+
+    @Test
+    void followingFeedAvoidsTableScan() {
+        // The primary key also leads with user_id; either index gives a range scan.
+        assertNoTableScan(
+                "select post_id from timeline_entries where user_id = 'erin' order by created_at desc fetch first 24 rows only");
+    }
+
+    @Test
+    void fanOutReadsFollowersByFolloweeIndex() {
+        assertIndexScan("select follower_id from follows where followee_id = 'alice'", "IDX_FOLLOWS_FOLLOWEE");
+    }
+
+    private void assertIndexScan(String sql, String indexName) {
+        assertThat(explain(sql))
+                .as("plan for: %s", sql)
+                .containsIgnoringCase(indexName)
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    private void assertNoTableScan(String sql) {
+        assertThat(explain(sql))
+                .as("plan for: %s", sql)
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
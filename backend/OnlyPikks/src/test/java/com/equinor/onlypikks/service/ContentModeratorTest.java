@@ -0,0 +1,73 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.ModerationStatsResponse;
+import com.equinor.onlypikks.exception.ContentRejectedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentModeratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void picksUpAChangedBlocklistWithoutARestart() throws Exception {
+        Path blocklist = directory.resolve("blocklist.txt");
+        Files.writeString(blocklist, "# spam\nfirstword\n");
+        ContentModerator moderator = new ContentModerator(
+                new ModerationProperties(blocklist.toString(), Duration.ofMillis(20)));
+        try {
+            assertThatThrownBy(() -> moderator.check("text", "Has FirstWord in it"))
+                    .isInstanceOf(ContentRejectedException.class)
+                    .hasMessage("text contains a blocked word or phrase");
+
+            Files.writeString(blocklist, "secondword\n");
+            Files.setLastModifiedTime(blocklist, FileTime.from(Instant.now().plusSeconds(5)));
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!rejects(moderator, "secondword") && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(rejects(moderator, "secondword")).isTrue();
+            assertThatCode(() -> moderator.check("text", "firstword")).doesNotThrowAnyException();
+        } finally {
+            moderator.destroy();
+        }
+    }
+
+    @Test
+    void aFailedReloadKeepsThePreviousList() throws IOException {
+        Path blocklist = directory.resolve("blocklist.txt");
+        Files.writeString(blocklist, "blocked\n");
+        ContentModerator moderator = new ContentModerator(new ModerationProperties(blocklist.toString(), Duration.ZERO));
+        Files.delete(blocklist);
+
+        ModerationStatsResponse stats = moderator.reload();
+
+        assertThat(stats.terms()).isEqualTo(1);
+        assertThat(stats.lastError()).contains("blocklist.txt");
+        assertThat(rejects(moderator, "blocked")).isTrue();
+        assertThat(moderator.stats().scanned()).isEqualTo(1);
+        assertThat(moderator.stats().rejected()).isEqualTo(1);
+    }
+
+    private static boolean rejects(ContentModerator moderator, String text) {
+        try {
+            moderator.check("text", text);
+            return false;
+        } catch (ContentRejectedException ex) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.OutboxEventRepository;
+import com.equinor.onlypikks.repository.entity.OutboxEventEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "onlypikks.outbox.dispatcher-enabled=false",
+        "onlypikks.outbox.initial-backoff=0s",
+        "onlypikks.outbox.max-attempts=3"
+})
+class OutboxDispatcherTest {
+
+    private static final String TEST_EVENT = "test.recorded";
+
+    @Autowired
+    private OutboxService outbox;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    @Autowired
+    private RecordingHandler handler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactions;
+
+    @BeforeEach
+    void setUp() {
+        transactions = new TransactionTemplate(transactionManager);
+        dispatcher.dispatchPending();
+        handler.reset();
+    }
+
+    @Test
+    void eventsAreDispatchedOnlyAfterTheWriteCommits() {
+        transactions.executeWithoutResult(status -> outbox.enqueue(TEST_EVENT, "committed"));
+        transactions.executeWithoutResult(status -> {
+            outbox.enqueue(TEST_EVENT, "rolled-back");
+            status.setRollbackOnly();
+        });
+
+        dispatcher.dispatchPending();
+
+        assertThat(handler.handled).containsExactly("committed");
+        assertThat(dispatcher.dispatchPending()).isZero();
+    }
+
+    @Test
+    void enqueueRequiresTheCallersTransaction() {
+        assertThatThrownBy(() -> outbox.enqueue(TEST_EVENT, "no-transaction"))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void failedEventsAreRetriedUntilTheyRunOutOfAttempts() {
+        handler.failuresLeft.set(1);
+        transactions.executeWithoutResult(status -> outbox.enqueue(TEST_EVENT, "flaky"));
+        dispatcher.dispatchPending();
+        dispatcher.dispatchPending();
+        assertThat(handler.handled).containsExactly("flaky");
+
+        handler.failuresLeft.set(Integer.MAX_VALUE);
+        transactions.executeWithoutResult(status -> outbox.enqueue(TEST_EVENT, "broken"));
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatchPending();
+        }
+        OutboxEventEntity broken = repository.findAll().stream()
+                .filter(event -> event.getAggregateId().equals("broken"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(broken.getAttempts()).isEqualTo(3);
+        assertThat(broken.getProcessedAt()).isNull();
+        assertThat(broken.getLastError()).isEqualTo("boom");
+    }
+
+    @Test
+    void claimedEventsAreSkippedByOtherDispatchers() throws Exception {
+        transactions.executeWithoutResult(status -> outbox.enqueue(TEST_EVENT, "locked"));
+
+        transactions.executeWithoutResult(status -> {
+            assertThat(repository.lockDue(Instant.now(), 3, 10)).hasSize(1);
+            // A second dispatcher neither blocks on the locked row nor claims it.
+            int claimed = CompletableFuture.supplyAsync(() -> dispatcher.dispatchBatch())
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+            assertThat(claimed).isZero();
+        });
+
+        dispatcher.dispatchPending();
+        assertThat(handler.handled).containsExactly("locked");
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        OutboxDispatcher backoff = new OutboxDispatcher(
+                repository,
+                List.of(),
+                transactionManager,
+                new OutboxProperties(false, null, null, null, Duration.ofSeconds(1), Duration.ofSeconds(30), null, null)
+        );
+
+        assertThat(backoff.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(backoff.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(backoff.backoff(6)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(backoff.backoff(100)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @TestConfiguration
+    static class HandlerConfig {
+
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    static class RecordingHandler implements OutboxHandler {
+
+        final List<String> handled = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public String eventType() {
+            return TEST_EVENT;
+        }
+
+        @Override
+        public void handle(OutboxEventEntity event) {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("boom");
+            }
+            handled.add(event.getAggregateId());
+        }
+
+        void reset() {
+            handled.clear();
+            failuresLeft.set(0);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostCatalogTest {
+
+    private static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final PostCatalog catalog = new PostCatalog();
+
+    @Test
+    void listsNewestFirstWithTiesInIdOrder() {
+        catalog.reset(List.of(
+                row("post-b", 10, "alice", PostVisibility.PUBLIC, 0),
+                row("post-a", 10, "alice", PostVisibility.PUBLIC, 5),
+                row("post-c", 20, "bob", PostVisibility.PRIVATE, 1),
+                row("post-d", 5, "bob", PostVisibility.UNLISTED, 1)
+        ), versions(1));
+
+        PostCatalog.Page publicPosts = catalog.query(Optional.empty(), EnumSet.of(PostVisibility.PUBLIC), PostOrder.NEWEST, 0, 10);
+        assertThat(publicPosts.postIds()).containsExactly("post-a", "post-b");
+        assertThat(publicPosts.total()).isEqualTo(2);
+        assertThat(catalog.query(Optional.of("bob"), EnumSet.allOf(PostVisibility.class), PostOrder.OLDEST, 0, 10).postIds())
+                .containsExactly("post-d", "post-c");
+        assertThat(catalog.query(Optional.empty(), EnumSet.allOf(PostVisibility.class), PostOrder.MOST_LIKED, 1, 2).postIds())
+                .containsExactly("post-c", "post-d");
+        assertThat(catalog.query(Optional.of("nobody"), EnumSet.allOf(PostVisibility.class), PostOrder.NEWEST, 0, 10).total())
+                .isZero();
+        assertThat(catalog.sourceVersions()).isEqualTo(versions(1));
+    }
+
+    @Test
+    void writesBeforeTheFirstBuildAreIgnored() {
+        catalog.put(row("post-a", 1, "alice", PostVisibility.PUBLIC, 0));
+
+        assertThat(catalog.isInitialized()).isFalse();
+        catalog.reset(List.of(), versions(1));
+        catalog.put(row("post-a", 1, "alice", PostVisibility.PUBLIC, 0));
+        assertThat(catalog.query(Optional.empty(), EnumSet.of(PostVisibility.PUBLIC), PostOrder.NEWEST, 0, 10).postIds())
+                .containsExactly("post-a");
+        catalog.invalidate();
+        assertThat(catalog.isInitialized()).isFalse();
+    }
+
+    @Test
+    void appliedWritesKeepTheCatalogCurrent() {
+        catalog.reset(List.of(), versions(7));
+
+        catalog.put(row("post-a", 1, "alice", PostVisibility.PUBLIC, 0));
+        catalog.advance(PostVisibility.PUBLIC, 8);
+
+        assertThat(catalog.sourceVersions()).containsEntry(PostVisibility.PUBLIC, 8L)
+                .containsEntry(PostVisibility.PRIVATE, 7L);
+        catalog.advance(PostVisibility.PUBLIC, 10);
+        catalog.advance(PostVisibility.PRIVATE, 8);
+        assertThat(catalog.sourceVersions()).containsEntry(PostVisibility.PUBLIC, 8L)
+                .containsEntry(PostVisibility.PRIVATE, 8L);
+        catalog.reset(List.of(), versions(12));
+        catalog.advance(PostVisibility.PUBLIC, 9);
+        assertThat(catalog.sourceVersions()).isEqualTo(versions(12));
+    }
+
+    @Test
+    void matchesAFullSortAfterRandomWrites() {
+        Random random = new Random(49);
+        Map<String, PostCatalog.Row> posts = new LinkedHashMap<>();
+        catalog.reset(List.of(), versions(1));
+        for (int step = 0; step < 3_000; step++) {
+            String id = "post-" + random.nextInt(400);
+            PostCatalog.Row existing = posts.get(id);
+            if (existing != null && random.nextInt(4) == 0) {
+                posts.remove(id);
+                catalog.remove(id, existing.createdAt());
+                continue;
+            }
+            // Creation time is fixed per post; everything else may change.
+            long second = existing != null ? existing.createdAt().getEpochSecond() - EPOCH.getEpochSecond() : random.nextInt(200);
+            PostCatalog.Row row = row(id, second, "user-" + random.nextInt(5),
+                    PostVisibility.values()[random.nextInt(3)], random.nextInt(4));
+            posts.put(id, row);
+            catalog.put(row);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            Optional<String> owner = random.nextBoolean() ? Optional.of("user-" + random.nextInt(6)) : Optional.empty();
+            Set<PostVisibility> allowed = EnumSet.noneOf(PostVisibility.class);
+            for (PostVisibility visibility : PostVisibility.values()) {
+                if (random.nextBoolean()) {
+                    allowed.add(visibility);
+                }
+            }
+            PostOrder order = PostOrder.values()[random.nextInt(PostOrder.values().length)];
+            int offset = random.nextInt(50);
+            int limit = 1 + random.nextInt(30);
+
+            List<String> expected = posts.values().stream()
+                    .filter(row -> owner.map(row.ownerId()::equals).orElse(true))
+                    .filter(row -> allowed.contains(row.visibility()))
+                    .sorted(comparator(order))
+                    .map(PostCatalog.Row::id)
+                    .toList();
+            PostCatalog.Page page = catalog.query(owner, allowed, order, offset, limit);
+
+            assertThat(page.total()).isEqualTo(expected.size());
+            assertThat(page.postIds()).containsExactlyElementsOf(
+                    expected.subList(Math.min(offset, expected.size()), Math.min(offset + limit, expected.size())));
+        }
+    }
+
+    private static Comparator<PostCatalog.Row> comparator(PostOrder order) {
+        Comparator<PostCatalog.Row> newest = Comparator.comparing(PostCatalog.Row::createdAt).reversed()
+                .thenComparing(PostCatalog.Row::id);
+        return switch (order) {
+            case NEWEST, TRENDING -> newest;
+            case OLDEST -> newest.reversed();
+            case MOST_LIKED -> Comparator.comparingLong(PostCatalog.Row::likeCount)
+                    .thenComparingLong(PostCatalog.Row::commentCount)
+                    .reversed()
+                    .thenComparing(newest);
+        };
+    }
+
+    private static Map<PostVisibility, Long> versions(long version) {
+        Map<PostVisibility, Long> versions = new EnumMap<>(PostVisibility.class);
+        for (PostVisibility visibility : PostVisibility.values()) {
+            versions.put(visibility, version);
+        }
+        return versions;
+    }
+
+    private static PostCatalog.Row row(String id, long second, String owner, PostVisibility visibility, long likes) {
+        return new PostCatalog.Row(id, EPOCH.plusSeconds(second), owner, visibility, likes, likes % 3);
+    }
+}
@@ -0,0 +1,116 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.id.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostIdFilterTest {
+
+    private final SnowflakeIdGenerator localIds = new SnowflakeIdGenerator(1);
+    private final PostIdFilter filter = new PostIdFilter(localIds);
+
+    @Test
+    void trustsNothingUntilBuilt() {
+        assertThat(filter.definitelyAbsent("post-42")).isFalse();
+
+        filter.reset(List.of("post-1001"), Instant.now(), versions(0));
+
+        assertThat(filter.definitelyAbsent("post-1001")).isFalse();
+        assertThat(filter.definitelyAbsent("post-42")).isTrue();
+    }
+
+    @Test
+    void neverLosesALivePostWhileGrowingAndShrinking() {
+        filter.reset(List.of(), Instant.now(), versions(0));
+        long feedVersion = 0;
+        Random random = new Random(50);
+        List<String> live = new ArrayList<>();
+        Set<String> deleted = new HashSet<>();
+        // Far beyond the first stage, so several stages are added.
+        for (int step = 0; step < 20_000; step++) {
+            if (!live.isEmpty() && random.nextInt(3) == 0) {
+                String id = live.remove(random.nextInt(live.size()));
+                filter.remove(id, PostVisibility.PUBLIC, ++feedVersion);
+                filter.advance(PostVisibility.PUBLIC, feedVersion);
+                deleted.add(id);
+            } else {
+                String id = localIds.nextId("post-");
+                filter.add(id);
+                live.add(id);
+            }
+        }
+
+        assertThat(live).noneMatch(filter::definitelyAbsent);
+        long stillMatching = deleted.stream().filter(id -> !filter.definitelyAbsent(id)).count();
+        assertThat(stillMatching).isLessThan(deleted.size() / 20);
+        long falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!filter.definitelyAbsent("post-" + (2_000 + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan((long) (2 * PostIdFilter.FALSE_POSITIVE_RATE * 10_000));
+    }
+
+    @Test
+    void recentIdsFromOtherNodesAreAlwaysLookedUp() {
+        SnowflakeIdGenerator otherNode = new SnowflakeIdGenerator(2);
+        String before = otherNode.nextId("post-");
+        filter.reset(List.of(), Instant.now().plusSeconds(1), versions(0));
+        long inAMinute = System.currentTimeMillis() + 60_000 - SnowflakeIdGenerator.EPOCH.toEpochMilli();
+        String after = "post-" + (inAMinute << 22 | 2 << 12);
+
+        assertThat(filter.definitelyAbsent(before)).isTrue();
+        assertThat(filter.definitelyAbsent(after)).isFalse();
+        assertThat(filter.definitelyAbsent(localIds.nextId("post-"))).isTrue();
+    }
+
+    @Test
+    void idsNoGeneratorMintsAreAlwaysLookedUp() {
+        filter.reset(List.of("post-imported-here"), Instant.now(), versions(0));
+
+        // Imported on another replica after the rebuild, so this filter never saw it.
+        assertThat(filter.definitelyAbsent("post-imported-elsewhere")).isFalse();
+        assertThat(filter.definitelyAbsent("../../etc/passwd")).isFalse();
+        filter.remove("post-imported-here", PostVisibility.PUBLIC, 1);
+        assertThat(filter.definitelyAbsent("post-imported-here")).isFalse();
+    }
+
+    @Test
+    void deletesAfterAMissedWriteLeaveTheFilterAlone() {
+        String kept = localIds.nextId("post-");
+        String imported = localIds.nextId("post-");
+        filter.reset(List.of(kept), Instant.now(), versions(4));
+
+        // Version 5 was an import on another replica. It may have added the deleted id, and
+        // so may other ids sharing its counters, which a decrement would then hide.
+        assertThat(filter.remove(imported, PostVisibility.PUBLIC, 6)).isFalse();
+        assertThat(filter.remove(kept, PostVisibility.PRIVATE, 6)).isFalse();
+        assertThat(filter.definitelyAbsent(kept)).isFalse();
+
+        filter.advance(PostVisibility.PRIVATE, 5);
+        assertThat(filter.remove(kept, PostVisibility.PRIVATE, 6)).isTrue();
+        assertThat(filter.definitelyAbsent(kept)).isTrue();
+        assertThat(filter.sourceVersions()).containsEntry(PostVisibility.PUBLIC, 4L)
+                .containsEntry(PostVisibility.PRIVATE, 5L);
+    }
+
+    private static Map<PostVisibility, Long> versions(long version) {
+        Map<PostVisibility, Long> versions = new EnumMap<>(PostVisibility.class);
+        for (PostVisibility visibility : PostVisibility.values()) {
+            versions.put(visibility, version);
+        }
+        return versions;
+    }
+}
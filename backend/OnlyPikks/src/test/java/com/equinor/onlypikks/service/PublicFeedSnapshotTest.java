@@ -0,0 +1,86 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicFeedSnapshotTest {
+
+    private static final Instant BASE = Instant.parse("2025-06-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final PublicFeedSnapshot snapshot = new PublicFeedSnapshot(objectMapper);
+
+    @Test
+    void newPostIsInsertedAtTheTopOfTheFirstPage() throws Exception {
+        snapshot.replace(List.of(summary("post-1", 1), summary("post-2", 2)), 2, 1);
+        String before = snapshot.page(1).orElseThrow().version();
+
+        assertThat(snapshot.apply("post-3", summary("post-3", 3), false)).isTrue();
+
+        PublicFeedSnapshot.Page page = snapshot.page(1).orElseThrow();
+        JsonNode json = objectMapper.readTree(page.body());
+        assertThat(json.get("items")).extracting(item -> item.get("id").asText())
+                .containsExactly("post-3", "post-2", "post-1");
+        assertThat(json.get("total").asLong()).isEqualTo(3);
+        assertThat(page.version()).isNotEqualTo(before);
+    }
+
+    @Test
+    void removingFromAFullWindowAsksForARebuild() {
+        List<PostSummaryResponse> full = IntStream.range(0, PublicFeedSnapshot.CAPACITY)
+                .mapToObj(i -> summary("post-" + i, i))
+                .toList();
+        snapshot.replace(full, PublicFeedSnapshot.CAPACITY + 10, 1);
+
+        assertThat(snapshot.apply("post-5", null, true)).isFalse();
+    }
+
+    @Test
+    void removingWhenNothingIsBeyondTheWindowIsApplied() throws Exception {
+        snapshot.replace(List.of(summary("post-1", 1), summary("post-2", 2)), 2, 1);
+
+        assertThat(snapshot.apply("post-2", null, true)).isTrue();
+
+        JsonNode json = objectMapper.readTree(snapshot.page(1).orElseThrow().body());
+        assertThat(json.get("items")).hasSize(1);
+        assertThat(json.get("total").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void localWritesAdvanceTheSourceVersionInAnyOrder() {
+        snapshot.replace(List.of(), 0, 10);
+
+        snapshot.advance(12);
+        assertThat(snapshot.sourceVersion()).isEqualTo(10);
+        snapshot.advance(11);
+        assertThat(snapshot.sourceVersion()).isEqualTo(12);
+        // Version 13 was written elsewhere, so the snapshot stays behind until rebuilt.
+        snapshot.advance(14);
+        assertThat(snapshot.sourceVersion()).isEqualTo(12);
+    }
+
+    @Test
+    void pagesOutsideTheWindowAreNotServed() {
+        snapshot.replace(List.of(), 0, 1);
+
+        assertThat(snapshot.page(PublicFeedSnapshot.MAX_PAGES + 1)).isEmpty();
+    }
+
+    private static PostSummaryResponse summary(String id, int minutes) {
+        return new PostSummaryResponse(
+                id, "Title " + id, null, List.of(), PostVisibility.PUBLIC, "alice", "Alice",
+                "https://cdn.example.com/thumbnails/" + id + ".jpg", 1200, 800, null,
+                BASE.plusSeconds(minutes * 60L), BASE.plusSeconds(minutes * 60L), 0, 0
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package com.equinor.onlypikks.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RelatedPostsIndexTest {
+
+    private final RelatedPostsIndex index = new RelatedPostsIndex();
+
+    @BeforeEach
+    void build() {
+        index.reset(List.of());
+    }
+
+    @Test
+    void ranksPostsByTagAndTitleOverlap() {
+        index.put(document("post-1", "Wind farm at sunrise", "wind", "offshore", "energy"));
+        index.put(document("post-2", "Offshore wind farm", "wind", "offshore", "energy"));
+        index.put(document("post-3", "Wind turbine blades", "wind", "energy"));
+        index.put(document("post-4", "Lunch in the canteen", "food"));
+
+        List<RelatedPostsIndex.Related> related = index.related("post-1", 10);
+
+        assertThat(related).extracting(RelatedPostsIndex.Related::postId).startsWith("post-2").doesNotContain("post-4");
+        assertThat(related.get(0).score()).isEqualTo(5.0 / 7.0);
+    }
+
+    @Test
+    void privatePostsAreNeitherIndexedNorSuggested() {
+        index.put(document("post-1", "Wind farm", "wind", "offshore"));
+        index.put(document("post-2", "Wind farm", "wind", "offshore"));
+
+        index.put(new RelatedPostsIndex.Document("post-2", false, "Wind farm", List.of("wind", "offshore")));
+
+        assertThat(index.related("post-1", 10)).isEmpty();
+        assertThat(index.related("post-2", 10)).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesMatchARebuild() {
+        Random random = new Random(11);
+        String[] vocabulary = {"wind", "solar", "hydrogen", "subsea", "drone", "rig", "sunset", "crew", "safety",
+                "launch", "storm", "arctic"};
+        Map<String, RelatedPostsIndex.Document> current = new HashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            String postId = "post-" + random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                index.remove(postId);
+                current.remove(postId);
+                continue;
+            }
+            List<String> tags = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                tags.add(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            String title = vocabulary[random.nextInt(vocabulary.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)];
+            RelatedPostsIndex.Document document =
+                    new RelatedPostsIndex.Document(postId, random.nextInt(8) != 0, title, List.copyOf(tags));
+            index.put(document);
+            current.put(postId, document);
+        }
+
+        RelatedPostsIndex rebuilt = new RelatedPostsIndex();
+        rebuilt.reset(current.values());
+        for (String postId : current.keySet()) {
+            assertThat(index.related(postId, RelatedPostsIndex.TOP_K))
+                    .as(postId)
+                    .isEqualTo(rebuilt.related(postId, RelatedPostsIndex.TOP_K));
+        }
+    }
+
+    @Test
+    void postsWrittenDuringARebuildAreReReadBeforeItIsSwappedIn() {
+        RelatedPostsIndex fresh = new RelatedPostsIndex();
+        fresh.put(document("post-1", "Wind farm", "wind"));
+        assertThat(fresh.isReady()).isFalse();
+
+        fresh.startRebuild();
+        List<RelatedPostsIndex.Document> loaded = List.of(
+                document("post-1", "Wind farm", "wind"),
+                document("post-2", "Wind farm", "wind"));
+        fresh.put(document("post-3", "Wind farm", "wind"));
+
+        assertThat(fresh.finishRebuild(loaded)).isFalse();
+        assertThat(fresh.related("post-1", 10)).isEmpty();
+        assertThat(fresh.changedDuringRebuild()).containsExactly("post-3");
+        List<RelatedPostsIndex.Document> reRead = new ArrayList<>(loaded);
+        reRead.add(document("post-3", "Wind farm", "wind"));
+        assertThat(fresh.finishRebuild(reRead)).isTrue();
+        assertThat(fresh.related("post-1", 10)).extracting(RelatedPostsIndex.Related::postId)
+                .containsExactlyInAnyOrder("post-2", "post-3");
+    }
+
+    private static RelatedPostsIndex.Document document(String postId, String title, String... tags) {
+        return new RelatedPostsIndex.Document(postId, true, title, List.of(tags));
+    }
+}
@@ -0,0 +1,89 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.repository.PostImageHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimilarImageIndexTest {
+
+    private final SimilarImageIndex index = new SimilarImageIndex();
+
+    @Test
+    void findsExactlyWhatABruteForceScanFinds() {
+        Random random = new Random(7);
+        List<long[]> entries = new ArrayList<>();
+        long[] originals = random.longs(200).toArray();
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly unrelated hashes, plus clusters of near-duplicates around a few originals.
+            long hash = i % 4 == 0 ? flip(originals[random.nextInt(originals.length)], random.nextInt(10), random)
+                    : random.nextLong();
+            entries.add(new long[]{i, hash});
+            index.put("post-" + i, hash);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            long hash = flip(originals[query], random.nextInt(3), random);
+            List<SimilarImageIndex.Match> expected = entries.stream()
+                    .filter(entry -> Long.bitCount(entry[1] ^ hash) <= SimilarImageIndex.MAX_DISTANCE)
+                    .map(entry -> new SimilarImageIndex.Match("post-" + entry[0], Long.bitCount(entry[1] ^ hash)))
+                    .sorted(Comparator.comparingInt(SimilarImageIndex.Match::distance)
+                            .thenComparing(SimilarImageIndex.Match::postId))
+                    .toList();
+
+            assertThat(index.similar(hash, SimilarImageIndex.MAX_DISTANCE, Integer.MAX_VALUE, null))
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void removedAndReplacedPostsAreNotReturned() {
+        index.put("post-1", 0L);
+        index.put("post-2", 1L);
+        index.put("post-3", 3L);
+
+        index.remove("post-2");
+        index.put("post-3", -1L);
+        index.put("post-4", 7L);
+
+        assertThat(index.similar(0L, 4, 10, "post-1"))
+                .containsExactly(new SimilarImageIndex.Match("post-4", 3));
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void resetReplacesTheContents() {
+        index.put("post-1", 0L);
+
+        index.reset(List.of(hash("post-2", 1L)));
+
+        assertThat(index.similar(0L, 4, 10, null)).containsExactly(new SimilarImageIndex.Match("post-2", 1));
+    }
+
+    private static long flip(long hash, int bits, Random random) {
+        long result = hash;
+        while (Long.bitCount(result ^ hash) < bits) {
+            result ^= 1L << random.nextInt(64);
+        }
+        return result;
+    }
+
+    private static PostImageHash hash(String postId, long hash) {
+        return new PostImageHash() {
+            @Override
+            public String getPostId() {
+                return postId;
+            }
+
+            @Override
+            public long getPerceptualHash() {
+                return hash;
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.SuggestionKind;
+import com.equinor.onlypikks.api.model.SuggestionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionIndexTest {
+
+    private final SuggestionIndex index = new SuggestionIndex();
+
+    @BeforeEach
+    void build() {
+        index.reset(List.of());
+    }
+
+    @Test
+    void completesFoldedPrefixesByWeight() {
+        index.applyChange(List.of(), SuggestionIndex.terms("Café at the wind farm", List.of("wind"), "Alice Example"));
+        index.applyChange(List.of(), SuggestionIndex.terms("Windy day", List.of("wind", "weather"), "Bob Example"));
+
+        assertThat(index.suggest("WIN", 10)).containsExactly(
+                new SuggestionResponse("wind", SuggestionKind.TAG, 2),
+                new SuggestionResponse("wind", SuggestionKind.TITLE, 1),
+                new SuggestionResponse("windy", SuggestionKind.TITLE, 1));
+        assertThat(index.suggest("cafe", 10)).containsExactly(new SuggestionResponse("café", SuggestionKind.TITLE, 1));
+        assertThat(index.suggest("alice  ex", 10))
+                .containsExactly(new SuggestionResponse("Alice Example", SuggestionKind.OWNER, 1));
+        assertThat(index.suggest("wx", 10)).isEmpty();
+        assertThat(index.suggest("w", 1)).hasSize(1);
+    }
+
+    @Test
+    void aRebuildWaitsForWritesInFlightAndReReadsThem() throws Exception {
+        List<SuggestionIndex.Term> harbour = SuggestionIndex.terms("Harbour lights", List.of(), null);
+        index.startRebuild();
+        index.beginChange("post-1");
+        // The rebuild read post-1 before its write committed.
+        CompletableFuture<Boolean> swapped = CompletableFuture.supplyAsync(() -> index.finishRebuild(List.of()));
+
+        Thread.sleep(50);
+        assertThat(swapped).isNotDone();
+        index.endChange("post-1", List.of(), harbour);
+
+        assertThat(swapped.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(index.changedDuringRebuild()).containsExactly("post-1");
+        assertThat(index.finishRebuild(List.of(harbour))).isTrue();
+        assertThat(index.suggest("harb", 10)).containsExactly(new SuggestionResponse("harbour", SuggestionKind.TITLE, 1));
+    }
+
+    @Test
+    void removedTermsDisappear() {
+        List<SuggestionIndex.Term> terms = SuggestionIndex.terms("Harbour lights", List.of("harbour"), null);
+        index.applyChange(List.of(), terms);
+
+        index.applyChange(terms, List.of());
+
+        assertThat(index.suggest("h", 10)).isEmpty();
+        assertThat(index.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesMatchARebuild() {
+        Random random = new Random(7);
+        String[] vocabulary = {"wind", "windy", "window", "wine", "sun", "sunset", "sunrise", "subsea", "storm",
+                "stormy", "rig", "ridge", "arctic", "arc", "a", "crew", "crane", "crater"};
+        String[] owners = {"Alice Example", "Alicia Keys", "Bob Example", "Bo"};
+        Map<Integer, List<SuggestionIndex.Term>> current = new HashMap<>();
+        for (int step = 0; step < 5_000; step++) {
+            int postId = random.nextInt(200);
+            List<SuggestionIndex.Term> before = current.getOrDefault(postId, List.of());
+            List<SuggestionIndex.Term> after = List.of();
+            if (random.nextInt(8) != 0) {
+                List<String> tags = new ArrayList<>();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    tags.add(vocabulary[random.nextInt(vocabulary.length)]);
+                }
+                String title = vocabulary[random.nextInt(vocabulary.length)] + " "
+                        + vocabulary[random.nextInt(vocabulary.length)];
+                after = SuggestionIndex.terms(title, tags, owners[random.nextInt(owners.length)]);
+            }
+            index.applyChange(before, after);
+            current.put(postId, after);
+        }
+
+        SuggestionIndex rebuilt = new SuggestionIndex();
+        rebuilt.reset(current.values());
+        List<String> prefixes = new ArrayList<>(List.of("", "x"));
+        for (String word : vocabulary) {
+            for (int length = 1; length <= word.length(); length++) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        for (String owner : owners) {
+            prefixes.add(owner.substring(0, Math.min(3, owner.length())));
+            prefixes.add(owner);
+        }
+        for (String prefix : prefixes) {
+            assertThat(index.suggest(prefix, SuggestionIndex.TOP_K))
+                    .as(prefix)
+                    .isEqualTo(rebuilt.suggest(prefix, SuggestionIndex.TOP_K));
+        }
+    }
+}
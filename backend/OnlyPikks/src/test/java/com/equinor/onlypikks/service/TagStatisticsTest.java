@@ -0,0 +1,45 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.TagCountResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TagStatisticsTest {
+
+    @Test
+    void applyChangeOnlyTouchesTheTagDiff() {
+        TagStatistics statistics = new TagStatistics();
+        statistics.applyChange(List.of(), List.of("energy", "hydrogen"));
+        statistics.applyChange(List.of(), List.of("energy"));
+
+        statistics.applyChange(List.of("energy", "hydrogen"), List.of("energy", "subsea"));
+
+        assertThat(statistics.count("energy")).isEqualTo(2);
+        assertThat(statistics.count("hydrogen")).isZero();
+        assertThat(statistics.count("subsea")).isEqualTo(1);
+    }
+
+    @Test
+    void topTagsAreOrderedByCountThenName() {
+        TagStatistics statistics = new TagStatistics();
+        statistics.applyChange(List.of(), List.of("b", "a", "c"));
+        statistics.applyChange(List.of(), List.of("c", "a"));
+        statistics.applyChange(List.of(), List.of("c"));
+
+        assertThat(statistics.topTags(2)).containsExactly(
+                new TagCountResponse("c", 3),
+                new TagCountResponse("a", 2)
+        );
+    }
+
+    @Test
+    void topKBreaksTiesAlphabetically() {
+        List<TagCountResponse> top = TagStatistics.topK(Map.of("z", 1L, "y", 1L, "x", 1L), 2);
+
+        assertThat(top).extracting(TagCountResponse::tag).containsExactly("x", "y");
+    }
+}
@@ -0,0 +1,163 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.api.model.PostSummaryResponse;
+import com.equinor.onlypikks.api.model.PostVisibility;
+import com.equinor.onlypikks.auth.AuthContext;
+import com.equinor.onlypikks.repository.FollowRepository;
+import com.equinor.onlypikks.repository.TimelineEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "onlypikks.feed.fan-out-follower-limit=1",
+        "onlypikks.feed.timeline-capacity=2",
+        "onlypikks.outbox.dispatcher-enabled=false"
+})
+class TimelineServiceTest {
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private MockPostService postService;
+
+    @Autowired
+    private TimelineEntryRepository timelineRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Test
+    void followBackfillsAndNewPostsAreFannedOut() {
+        AuthContext erin = user("erin");
+        AuthContext ivan = user("ivan");
+        timelineService.follow("erin", "ivan");
+        String older = createPost(ivan, "Older", PostVisibility.PUBLIC);
+        String hidden = createPost(ivan, "Hidden", PostVisibility.PRIVATE);
+        String newer = createPost(ivan, "Newer", PostVisibility.PUBLIC);
+
+        assertThat(feedIds(erin)).containsExactly(newer, older).doesNotContain(hidden);
+
+        timelineService.unfollow("erin", "ivan");
+        assertThat(feedIds(erin)).isEmpty();
+
+        timelineService.follow("erin", "ivan");
+        assertThat(feedIds(erin)).containsExactly(newer, older);
+    }
+
+    @Test
+    void withdrawnPostsLeaveTheTimeline() {
+        AuthContext judy = user("judy");
+        AuthContext kim = user("kim");
+        timelineService.follow("judy", "kim");
+        String kept = createPost(kim, "Kept", PostVisibility.PUBLIC);
+        String deleted = createPost(kim, "Deleted", PostVisibility.PUBLIC);
+        assertThat(feedIds(judy)).containsExactly(deleted, kept);
+
+        postService.deletePost(deleted, kim);
+        outboxDispatcher.dispatchPending();
+
+        assertThat(feedIds(judy)).containsExactly(kept);
+    }
+
+    @Test
+    void popularOwnersArePulledAtReadTime() {
+        AuthContext leo = user("leo");
+        AuthContext star = user("star");
+        timelineService.follow("leo", "star");
+        timelineService.follow("mia", "star");
+        String post = createPost(star, "Big news", PostVisibility.PUBLIC);
+
+        assertThat(timelineRepository.countByUserId("leo")).isZero();
+        assertThat(feedIds(leo)).containsExactly(post);
+    }
+
+    @Test
+    void timelinesAreTrimmedAsPostsAreFannedOut() {
+        AuthContext olly = user("olly");
+        AuthContext pia = user("pia");
+        timelineService.follow("olly", "pia");
+        createPost(pia, "First", PostVisibility.PUBLIC);
+        createPost(pia, "Second", PostVisibility.PUBLIC);
+        String third = createPost(pia, "Third", PostVisibility.PUBLIC);
+
+        // One entry of slack over the capacity of two before a timeline is trimmed.
+        assertThat(timelineRepository.countByUserId("olly")).isEqualTo(3);
+
+        String fourth = createPost(pia, "Fourth", PostVisibility.PUBLIC);
+
+        assertThat(timelineRepository.countByUserId("olly")).isEqualTo(2);
+        assertThat(timelineRepository.findSize("olly")).contains(2L);
+        assertThat(feedIds(olly)).containsExactly(fourth, third);
+    }
+
+    @Test
+    void followerCountsFollowFollowsAndUnfollows() {
+        timelineService.follow("quin", "rae");
+        timelineService.follow("quin", "rae");
+        timelineService.follow("sam", "rae");
+        assertThat(followRepository.findFollowerCount("rae")).contains(2L);
+
+        timelineService.unfollow("quin", "rae");
+        timelineService.unfollow("quin", "rae");
+        assertThat(followRepository.findFollowerCount("rae")).contains(1L);
+        assertThat(followRepository.hasMoreFollowersThan("rae", 1)).isFalse();
+    }
+
+    @Test
+    void concurrentFollowsOfTheSameOwnerAllSucceed() throws Exception {
+        List<String> followers = List.of("tess", "tess", "uma", "uma", "vic", "vic", "wes", "wes");
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(followers.size())) {
+            List<Future<Void>> follows = followers.stream()
+                    .map(follower -> executor.<Void>submit(() -> {
+                        start.await();
+                        timelineService.follow(follower, "xena");
+                        return null;
+                    }))
+                    .toList();
+            start.countDown();
+            for (Future<Void> follow : follows) {
+                follow.get();
+            }
+        }
+
+        assertThat(followRepository.findFollowerCount("xena")).contains(4L);
+    }
+
+    @Test
+    void cannotFollowYourself() {
+        assertThatThrownBy(() -> timelineService.follow("nora", "nora"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String createPost(AuthContext owner, String title, PostVisibility visibility) {
+        String id = postService.createPost(owner, title, null, List.of(), visibility, "photo.png", new StoredMedia(UUID.randomUUID().toString(), 1_024)).id();
+        outboxDispatcher.dispatchPending();
+        return id;
+    }
+
+    private List<String> feedIds(AuthContext reader) {
+        return postService.followingFeed(reader, 1, 24).items().stream()
+                .map(PostSummaryResponse::id)
+                .toList();
+    }
+
+    private static AuthContext user(String userId) {
+        return new AuthContext(userId, userId + "@example.com", userId);
+    }
+}
@@ -0,0 +1,106 @@
+package com.equinor.onlypikks.service;
+
+import com.equinor.onlypikks.exception.PayloadTooLargeException;
+import com.equinor.onlypikks.exception.ServiceUnavailableException;
+import com.equinor.onlypikks.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadSchedulerTest {
+
+    private static UploadScheduler scheduler(int global, int perUser, int queued, Duration timeout) {
+        return new UploadScheduler(new UploadProperties(
+                global, perUser, queued, timeout, DataSize.ofKilobytes(1), null, null));
+    }
+
+    @Test
+    void declaredSizesOverTheLimitAreRejectedUpFront() {
+        UploadScheduler scheduler = scheduler(1, 1, 1, Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> scheduler.admit("alice", 1025)).isInstanceOf(PayloadTooLargeException.class);
+        assertThat(scheduler.stats().rejected()).isEqualTo(1);
+        assertThat(scheduler.stats().active()).isZero();
+    }
+
+    @Test
+    void aUserOverTheirLimitTimesOutWithoutBlockingOthers() {
+        UploadScheduler scheduler = scheduler(4, 1, 4, Duration.ofMillis(50));
+
+        try (UploadScheduler.Permit first = scheduler.admit("alice", 10)) {
+            assertThatThrownBy(() -> scheduler.admit("alice", 10))
+                    .isInstanceOf(TooManyRequestsException.class);
+            try (UploadScheduler.Permit other = scheduler.admit("bob", 10)) {
+                assertThat(scheduler.stats().active()).isEqualTo(2);
+            }
+        }
+        assertThat(scheduler.stats().timedOut()).isEqualTo(1);
+        assertThat(scheduler.stats().active()).isZero();
+    }
+
+    @Test
+    void waitingUploadsAreAdmittedWhenASlotFrees() throws Exception {
+        UploadScheduler scheduler = scheduler(1, 2, 4, Duration.ofSeconds(5));
+        UploadScheduler.Permit first = scheduler.admit("alice", 10);
+
+        CompletableFuture<UploadScheduler.Permit> second = CompletableFuture.supplyAsync(() -> scheduler.admit("bob", 10));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (scheduler.stats().queued() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(scheduler.stats().queued()).isEqualTo(1);
+        first.close();
+        first.close();
+
+        second.get(5, TimeUnit.SECONDS).close();
+        assertThat(scheduler.stats().admitted()).isEqualTo(2);
+        assertThat(scheduler.stats().maxWaitMillis()).isPositive();
+        assertThat(scheduler.stats().active()).isZero();
+    }
+
+    @Test
+    void aFullQueueRejectsImmediately() {
+        UploadScheduler scheduler = scheduler(1, 2, 0, Duration.ofSeconds(5));
+
+        try (UploadScheduler.Permit first = scheduler.admit("alice", 10)) {
+            long started = System.nanoTime();
+            assertThatThrownBy(() -> scheduler.admit("bob", 10))
+                    .isInstanceOf(ServiceUnavailableException.class)
+                    .hasMessageContaining("waiting");
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        }
+    }
+
+    @Test
+    void throttledBodiesEnforceTheSizeLimitWithoutAContentLength() throws Exception {
+        UploadScheduler scheduler = scheduler(1, 1, 1, Duration.ofSeconds(1));
+
+        try (UploadScheduler.Permit permit = scheduler.admit("alice", -1);
+             InputStream body = permit.throttle(new ByteArrayInputStream(new byte[2048]))) {
+            assertThatThrownBy(body::readAllBytes).isInstanceOf(PayloadTooLargeException.class);
+        }
+    }
+
+    @Test
+    void throttledBodiesAreHeldToTheUserRate() throws Exception {
+        UploadScheduler scheduler = new UploadScheduler(new UploadProperties(
+                1, 1, 1, Duration.ofSeconds(1), DataSize.ofMegabytes(1), null, DataSize.ofKilobytes(128)));
+
+        long started = System.nanoTime();
+        try (UploadScheduler.Permit permit = scheduler.admit("alice", -1);
+             InputStream body = permit.throttle(new ByteArrayInputStream(new byte[256 * 1024]))) {
+            assertThat(body.readAllBytes()).hasSize(256 * 1024);
+        }
+
+        // One second of burst, then 128 KB more at 128 KB/s.
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThan(Duration.ofMillis(900));
+    }
+}
@@ -0,0 +1,64 @@
+package com.equinor.onlypikks.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalObjectStorageTest {
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStorage storage() {
+        return new LocalObjectStorage(root, new MediaUrlSigner(new MediaProperties(
+                "", "test-key", Duration.ofHours(1), Duration.ofMinutes(15), null)));
+    }
+
+    @Test
+    void storesOpensAndDeletesObjects() throws Exception {
+        LocalObjectStorage storage = storage();
+
+        long size = storage.put("file-1", new ByteArrayInputStream(new byte[]{1, 2, 3}), 3, "image/gif");
+
+        assertThat(size).isEqualTo(3);
+        ObjectContent content = storage.open("file-1").orElseThrow();
+        try (InputStream stream = content.stream()) {
+            assertThat(stream.readAllBytes()).containsExactly(1, 2, 3);
+        }
+        assertThat(content.contentType()).isEqualTo("image/gif");
+        storage.delete("file-1");
+        assertThat(storage.open("file-1")).isEmpty();
+        try (var files = Files.list(root)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void aTruncatedUploadLeavesNothingBehind() throws Exception {
+        LocalObjectStorage storage = storage();
+
+        assertThatThrownBy(() -> storage.put("file-1", new ByteArrayInputStream(new byte[]{1, 2}), 5, null))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        try (var files = Files.list(root)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsKeysThatLeaveTheRoot() {
+        LocalObjectStorage storage = storage();
+
+        assertThatThrownBy(() -> storage.open("../secret")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.open(".hidden")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.delete("a/b")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
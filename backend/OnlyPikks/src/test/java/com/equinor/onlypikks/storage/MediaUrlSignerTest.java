@@ -0,0 +1,71 @@
+package com.equinor.onlypikks.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MediaUrlSignerTest {
+
+    private final MediaUrlSigner signer = new MediaUrlSigner(new MediaProperties(
+            "https://media.example.com",
+            "test-key",
+            Duration.ofHours(1),
+            Duration.ofMinutes(15),
+            null
+    ));
+
+    @Test
+    void requestsWithinABucketGetTheSameUrl() {
+        Instant bucketStart = Instant.parse("2025-03-01T12:00:00Z");
+
+        SignedUrl first = signer.sign("file-1", "inline", bucketStart.plusSeconds(1));
+        SignedUrl second = signer.sign("file-1", "inline", bucketStart.plusSeconds(899));
+        SignedUrl next = signer.sign("file-1", "inline", bucketStart.plusSeconds(900));
+
+        assertThat(second.url()).isEqualTo(first.url());
+        assertThat(next.url()).isNotEqualTo(first.url());
+        assertThat(first.stableUntil()).isEqualTo(bucketStart.plusSeconds(900));
+        assertThat(first.expiresAt()).isEqualTo(bucketStart.plusSeconds(900).plus(Duration.ofHours(1)));
+        assertThat(first.url()).startsWith("https://media.example.com/files/file-1/content?disposition=inline&expires=");
+    }
+
+    @Test
+    void signedUrlsVerifyUntilTheyExpire() {
+        Instant now = Instant.parse("2025-03-01T12:05:00Z");
+        UriComponents url = UriComponentsBuilder.fromUriString(
+                signer.sign("file-1", "attachment", now).url()).build();
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+
+        assertThat(signer.verify("file-1", "attachment", expires, signature, now)).isTrue();
+        assertThat(signer.verify("file-1", "attachment", expires, signature, Instant.ofEpochSecond(expires + 1)))
+                .isFalse();
+        assertThat(signer.verify("file-2", "attachment", expires, signature, now)).isFalse();
+        assertThat(signer.verify("file-1", "inline", expires, signature, now)).isFalse();
+        assertThat(signer.verify("file-1", "attachment", expires + 3600, signature, now)).isFalse();
+        assertThat(signer.verify("file-1", "attachment", expires, "not base64!", now)).isFalse();
+    }
+
+    @Test
+    void signaturesDependOnTheKey() {
+        MediaUrlSigner other = new MediaUrlSigner(new MediaProperties(
+                "https://media.example.com", "other-key", Duration.ofHours(1), Duration.ofMinutes(15), null));
+        Instant now = Instant.parse("2025-03-01T12:05:00Z");
+
+        assertThat(other.sign("file-1", "inline", now).url()).isNotEqualTo(signer.sign("file-1", "inline", now).url());
+    }
+
+    @Test
+    void aRequiredKeyMustBeConfigured() {
+        assertThatThrownBy(() -> new MediaUrlSigner(new MediaProperties(
+                "", " ", Duration.ofHours(1), Duration.ofMinutes(15), true)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("onlypikks.media.signing-key");
+    }
+}
@@ -0,0 +1,153 @@
+package com.equinor.onlypikks.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3ObjectStorageTest {
+
+    private static final int PART_SIZE = 256 * 1024;
+    private static final MediaProperties MEDIA = new MediaProperties(
+            null, null, Duration.ofHours(1), Duration.ofMinutes(15), null);
+
+    private S3StandIn s3;
+
+    @BeforeEach
+    void startStandIn() throws Exception {
+        s3 = new S3StandIn("media-bucket", "test-access", "test-secret", "eu-north-1");
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        s3.close();
+    }
+
+    @Test
+    void smallObjectsAreASinglePut() throws Exception {
+        byte[] content = randomBytes(1_000);
+        try (S3ObjectStorage storage = storage(PART_SIZE, 4)) {
+            assertThat(storage.put("file-1", new ByteArrayInputStream(content), content.length, "image/png"))
+                    .isEqualTo(1_000);
+
+            assertThat(s3.singlePuts.get()).isEqualTo(1);
+            assertThat(s3.partUploads.get()).isZero();
+            ObjectContent stored = storage.open("file-1").orElseThrow();
+            try (InputStream stream = stored.stream()) {
+                assertThat(stream.readAllBytes()).isEqualTo(content);
+            }
+            assertThat(stored.contentType()).isEqualTo("image/png");
+        }
+    }
+
+    @Test
+    void largeObjectsAreUploadedInParallelPartsWithBoundedBuffers() throws Exception {
+        byte[] content = randomBytes(PART_SIZE * 10 + 123);
+        s3.bytesPerSecond = 16L * 1024 * 1024;
+        try (S3ObjectStorage storage = storage(PART_SIZE, 3)) {
+            long size = storage.put("big", new ByteArrayInputStream(content), -1, "video/mp4");
+
+            assertThat(size).isEqualTo(content.length);
+            assertThat(s3.partUploads.get()).isEqualTo(11);
+            assertThat(s3.maxConcurrentParts.get()).isBetween(2, 3);
+            assertThat(s3.objects.get("media/big")).isEqualTo(content);
+            assertThat(s3.pendingUploads()).isZero();
+        }
+    }
+
+    @Test
+    void anExactMultipleOfThePartSizeEndsWithoutAnEmptyPart() throws Exception {
+        byte[] content = randomBytes(PART_SIZE * 2);
+        try (S3ObjectStorage storage = storage(PART_SIZE, 2)) {
+            storage.put("even", new ByteArrayInputStream(content), content.length, null);
+
+            assertThat(s3.partUploads.get()).isEqualTo(2);
+            assertThat(s3.objects.get("media/even")).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void aFailedPartAbortsTheUpload() throws Exception {
+        s3.failPartNumber = 3;
+        byte[] content = randomBytes(PART_SIZE * 6);
+        try (S3ObjectStorage storage = storage(PART_SIZE, 2)) {
+            assertThatThrownBy(() -> storage.put("broken", new ByteArrayInputStream(content), content.length, null))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("UploadPart 3 failed with HTTP 500");
+
+            assertThat(s3.aborts.get()).isEqualTo(1);
+            assertThat(s3.pendingUploads()).isZero();
+            assertThat(s3.objects).doesNotContainKey("media/broken");
+        }
+    }
+
+    @Test
+    void deletedAndMissingObjectsCannotBeOpened() throws Exception {
+        try (S3ObjectStorage storage = storage(PART_SIZE, 2)) {
+            storage.put("gone", new ByteArrayInputStream(new byte[]{1, 2, 3}), 3, null);
+            storage.delete("gone");
+            storage.delete("never-existed");
+
+            assertThat(storage.open("gone")).isEmpty();
+        }
+    }
+
+    @Test
+    void presignedUrlsAreStableWithinABucketAndAcceptedByTheEndpoint() throws Exception {
+        byte[] content = randomBytes(2_000);
+        try (S3ObjectStorage storage = storage(PART_SIZE, 2);
+             HttpClient client = HttpClient.newHttpClient()) {
+            storage.put("photo", new ByteArrayInputStream(content), content.length, "image/jpeg");
+            Instant now = Instant.now();
+
+            SignedUrl first = storage.presignGet("photo", "inline", now);
+            SignedUrl again = storage.presignGet("photo", "inline", now.plusSeconds(1));
+
+            assertThat(again.url()).isEqualTo(first.url());
+            assertThat(first.url()).contains("response-content-disposition=inline").contains("X-Amz-Signature=");
+            HttpResponse<byte[]> response = client.send(
+                    HttpRequest.newBuilder(URI.create(first.url())).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).isEqualTo(content);
+
+            String tampered = first.url().replace("inline", "attachment");
+            assertThat(client.send(HttpRequest.newBuilder(URI.create(tampered)).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(403);
+        }
+    }
+
+    private S3ObjectStorage storage(int partSize, int maxInFlightParts) {
+        return new S3ObjectStorage(new StorageProperties.S3(
+                s3.endpoint(),
+                "eu-north-1",
+                "media-bucket",
+                "test-access",
+                "test-secret",
+                true,
+                "media/",
+                DataSize.ofBytes(partSize),
+                maxInFlightParts
+        ), MEDIA);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,279 @@
+package com.equinor.onlypikks.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough of the S3 REST API, path-style, to exercise {@link S3ObjectStorage}: object PUT,
+ * GET and DELETE and the multipart upload calls. Every request's SigV4 signature and payload
+ * hash is checked, so a request the client signed differently from how it sent it fails.
+ * Request bodies can be throttled to model a bandwidth-limited connection.
+ */
+final class S3StandIn implements AutoCloseable {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    final AtomicInteger singlePuts = new AtomicInteger();
+    final AtomicInteger partUploads = new AtomicInteger();
+    final AtomicInteger aborts = new AtomicInteger();
+    final AtomicInteger maxConcurrentParts = new AtomicInteger();
+    volatile int failPartNumber = -1;
+    volatile long bytesPerSecond;
+
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrentParts = new AtomicInteger();
+    private final HttpServer server;
+    private final SigV4Signer signer;
+    private final String bucket;
+
+    S3StandIn(String bucket, String accessKey, String secretKey, String region) throws IOException {
+        this.bucket = bucket;
+        this.signer = new SigV4Signer(accessKey, secretKey, region);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int pendingUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = readBody(exchange);
+            Map<String, String> query = query(exchange.getRequestURI());
+            if (!signatureValid(exchange, query, body)) {
+                respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+                return;
+            }
+            String prefix = "/" + bucket + "/";
+            String path = exchange.getRequestURI().getPath();
+            if (!path.startsWith(prefix)) {
+                respond(exchange, 404, "<Error><Code>NoSuchBucket</Code></Error>");
+                return;
+            }
+            String key = path.substring(prefix.length());
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploadPart(exchange, query, body);
+                    } else {
+                        singlePuts.incrementAndGet();
+                        objects.put(key, body);
+                        storeContentType(exchange, key);
+                        respond(exchange, 200, "");
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        String uploadId = UUID.randomUUID() + "+/=";
+                        uploads.put(uploadId, new ConcurrentHashMap<>());
+                        storeContentType(exchange, key);
+                        respond(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId
+                                + "</UploadId></InitiateMultipartUploadResult>");
+                    } else {
+                        complete(exchange, key, query.get("uploadId"), body);
+                    }
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                        aborts.incrementAndGet();
+                    } else {
+                        objects.remove(key);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "GET" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                        return;
+                    }
+                    if (contentTypes.containsKey(key)) {
+                        exchange.getResponseHeaders().add("Content-Type", contentTypes.get(key));
+                    }
+                    exchange.sendResponseHeaders(200, object.length);
+                    exchange.getResponseBody().write(object);
+                }
+                default -> respond(exchange, 405, "");
+            }
+        }
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+        int partNumber = Integer.parseInt(query.get("partNumber"));
+        if (parts == null) {
+            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        if (partNumber == failPartNumber) {
+            respond(exchange, 500, "<Error><Code>InternalError</Code></Error>");
+            return;
+        }
+        partUploads.incrementAndGet();
+        parts.put(partNumber, body);
+        exchange.getResponseHeaders().add("ETag", "\"" + SigV4Signer.sha256Hex(body, 0, body.length) + "\"");
+        respond(exchange, 200, "");
+    }
+
+    private void complete(HttpExchange exchange, String key, String uploadId, byte[] body) throws IOException {
+        Map<Integer, byte[]> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        Matcher matcher = PART_NUMBER.matcher(new String(body, StandardCharsets.UTF_8));
+        int expected = 1;
+        while (matcher.find()) {
+            int partNumber = Integer.parseInt(matcher.group(1));
+            if (partNumber != expected++ || !parts.containsKey(partNumber)) {
+                respond(exchange, 200, "<Error><Code>InvalidPart</Code></Error>");
+                return;
+            }
+            object.write(parts.get(partNumber));
+        }
+        objects.put(key, object.toByteArray());
+        respond(exchange, 200, "<CompleteMultipartUploadResult/>");
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        boolean part = query(exchange.getRequestURI()).containsKey("partNumber");
+        if (part) {
+            maxConcurrentParts.accumulateAndGet(concurrentParts.incrementAndGet(), Math::max);
+        }
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            long started = System.nanoTime();
+            int read;
+            while ((read = exchange.getRequestBody().read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                throttle(started, body.size());
+            }
+            return body.toByteArray();
+        } finally {
+            if (part) {
+                concurrentParts.decrementAndGet();
+            }
+        }
+    }
+
+    private void throttle(long startedNanos, long bytesSoFar) {
+        long rate = bytesPerSecond;
+        if (rate <= 0) {
+            return;
+        }
+        long dueNanos = startedNanos + bytesSoFar * 1_000_000_000L / rate;
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean signatureValid(HttpExchange exchange, Map<String, String> query, byte[] body) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        URI uri = exchange.getRequestURI();
+        if (query.containsKey("X-Amz-Signature")) {
+            Map<String, String> extra = new LinkedHashMap<>(query);
+            extra.keySet().removeIf(name -> name.startsWith("X-Amz-"));
+            Instant signedAt = LocalDateTime.parse(query.get("X-Amz-Date"), AMZ_DATE).toInstant(ZoneOffset.UTC);
+            long expires = Long.parseLong(query.get("X-Amz-Expires"));
+            if (signedAt.plusSeconds(expires).isBefore(Instant.now())) {
+                return false;
+            }
+            URI expected = signer.presign(URI.create("http://" + host + uri.getRawPath()), extra, signedAt, expires);
+            return expected.getRawQuery().equals(uri.getRawQuery());
+        }
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (payloadHash == null || authorization == null
+                || !payloadHash.equals(SigV4Signer.sha256Hex(body, 0, body.length))) {
+            return false;
+        }
+        Map<String, String> signedHeaders = new TreeMap<>();
+        String names = authorization.replaceAll(".*SignedHeaders=([^,]+).*", "$1");
+        for (String name : names.split(";")) {
+            if (!name.equals("host") && !name.startsWith("x-amz-")) {
+                signedHeaders.put(name, exchange.getRequestHeaders().getFirst(name));
+            }
+        }
+        Instant date = LocalDateTime.parse(exchange.getRequestHeaders().getFirst("x-amz-date"), AMZ_DATE)
+                .toInstant(ZoneOffset.UTC);
+        String raw = "http://" + host + uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        String expected = signer.sign(exchange.getRequestMethod(), URI.create(raw), signedHeaders, payloadHash, date)
+                .get("Authorization");
+        return authorization.equals(expected);
+    }
+
+    private void storeContentType(HttpExchange exchange, String key) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null) {
+            contentTypes.put(key, contentType);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> query = new LinkedHashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        Arrays.stream(raw.split("&")).forEach(pair -> {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        });
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+}
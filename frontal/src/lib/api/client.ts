@@ -1,6 +1,7 @@
 import { API_BASE_URL } from '$lib/config';
 import type {
   AuthTokens,
+  BatchGetPostsResponse,
   Comment,
   CommentListResponse,
   CreateCommentRequest,
@@ -10,7 +11,9 @@ import type {
   ListPostsParams,
   LoginRequest,
   Post,
+  PostEvent,
   PostListResponse,
+  Suggestion,
   UserInfo
 } from './types';
 
@@ -98,6 +101,29 @@ export async function getPosts(
   return handleResponse<PostListResponse>(response);
 }
 
+export async function getPostsByIds(
+  fetch: Fetch,
+  postIds: string[],
+  accessToken?: string
+): Promise<BatchGetPostsResponse> {
+  const response = await fetch(buildUrl('/posts', { ids: postIds.join(',') }), {
+    headers: {
+      ...jsonHeaders,
+      ...(accessToken ? { Authorization: `Bearer ${accessToken}` } : {})
+    }
+  });
+
+  return handleResponse<BatchGetPostsResponse>(response);
+}
+
+export async function getSuggestions(fetch: Fetch, prefix: string, limit?: number): Promise<Suggestion[]> {
+  const response = await fetch(buildUrl('/suggest', { prefix, limit }), {
+    headers: jsonHeaders
+  });
+
+  return handleResponse<Suggestion[]>(response);
+}
+
 export async function getPost(fetch: Fetch, postId: string, accessToken?: string): Promise<Post> {
   const response = await fetch(buildUrl(`/posts/${postId}`), {
     headers: {
@@ -117,7 +143,9 @@ export async function getComments(
 ): Promise<CommentListResponse> {
   const url = buildUrl(`/posts/${postId}/comments`, {
     page: params.page,
-    per_page: params.per_page
+    per_page: params.per_page,
+    parent_id: params.parent_id,
+    after: params.after
   });
 
   const response = await fetch(url, {
@@ -130,6 +158,29 @@ export async function getComments(
   return handleResponse<CommentListResponse>(response);
 }
 
+const postEventTypes = ['comment.created', 'comment.deleted', 'post.updated', 'post.deleted'] as const;
+
+/**
+ * Opens a Server-Sent Events stream for a post. Returns a function that closes the stream.
+ * EventSource cannot send an Authorization header, so this only works for posts the
+ * anonymous caller can see.
+ */
+export function subscribeToPostEvents(postId: string, onEvent: (event: PostEvent) => void): () => void {
+  const source = new EventSource(buildUrl(`/posts/${postId}/events`));
+
+  for (const type of postEventTypes) {
+    source.addEventListener(type, (message) => {
+      try {
+        onEvent(JSON.parse((message as MessageEvent<string>).data) as PostEvent);
+      } catch (error) {
+        console.error('Failed to parse post event', error);
+      }
+    });
+  }
+
+  return () => source.close();
+}
+
 export async function createPost(
   fetch: Fetch,
   payload: CreatePostRequest,
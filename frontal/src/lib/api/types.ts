@@ -45,9 +45,21 @@ export interface PaginatedResponse<T> {
   page: number;
   per_page: number;
   total: number;
+  next_cursor?: string;
 }
 
 export type PostListResponse = PaginatedResponse<PostSummary>;
+
+export interface BatchGetPostsResponse {
+  items: Post[];
+  missing: string[];
+}
+
+export interface Suggestion {
+  text: string;
+  kind: 'TAG' | 'TITLE' | 'OWNER';
+  weight: number;
+}
 export type CommentListResponse = PaginatedResponse<Comment>;
 
 export interface PostMetadataPatch {
@@ -63,6 +75,18 @@ export interface Comment {
   author_id: string;
   text: string;
   created_at: string;
+  parent_id?: string | null;
+  reply_count?: number;
+}
+
+export type PostEventType = 'comment.created' | 'comment.deleted' | 'post.updated' | 'post.deleted';
+
+export interface PostEvent {
+  type: PostEventType;
+  post_id: string;
+  comment_id?: string;
+  occurred_at: string;
+  comment?: Comment;
 }
 
 export interface ListPostsParams {
@@ -77,6 +101,8 @@ export interface ListPostsParams {
 export interface ListCommentsParams {
   page?: number;
   per_page?: number;
+  parent_id?: string;
+  after?: string;
 }
 
 export interface LoginRequest {
@@ -86,6 +112,7 @@ export interface LoginRequest {
 
 export interface CreateCommentRequest {
   text: string;
+  parent_id?: string;
 }
 
 export interface CreatePostRequest {
@@ -1,3 +1,8 @@
 import { env } from '$env/dynamic/public';
 
 export const API_BASE_URL = (env.PUBLIC_API_BASE_URL ?? 'http://localhost:8080').replace(/\/$/, '');
+
+/** Resolves a URL the API returned relative to itself, such as `/files/{id}`. */
+export function apiUrl(url: string): string {
+  return url.startsWith('/') ? `${API_BASE_URL}${url}` : url;
+}